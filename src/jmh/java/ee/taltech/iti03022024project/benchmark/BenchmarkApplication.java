@@ -0,0 +1,38 @@
+package ee.taltech.iti03022024project.benchmark;
+
+import ee.taltech.iti03022024project.Iti03022024ProjectApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * The application on a PostgreSQL container of its own, for benchmarks that go through the database. The schema is
+ * migrated by the application's changelog and holds no data until the benchmark inserts it.
+ */
+final class BenchmarkApplication implements AutoCloseable {
+
+    private final PostgreSQLContainer<?> postgres;
+    private final ConfigurableApplicationContext context;
+
+    BenchmarkApplication() {
+        postgres = new PostgreSQLContainer<>("postgres:16.2");
+        postgres.start();
+        context = new SpringApplicationBuilder(Iti03022024ProjectApplication.class)
+                .properties(
+                        "spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "spring.datasource.username=" + postgres.getUsername(),
+                        "spring.datasource.password=" + postgres.getPassword(),
+                        "server.port=0")
+                .run();
+    }
+
+    <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        postgres.stop();
+    }
+}
@@ -0,0 +1,49 @@
+package ee.taltech.iti03022024project.benchmark;
+
+import ee.taltech.iti03022024project.entity.CustomerEntity;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * OrderEntity as it was mapped before pooled sequences, with IDENTITY ids. Hibernate can't batch its inserts because
+ * every row has to be written to learn its id, the column default gives it one.
+ */
+@Entity
+@Table(name = "orders")
+public class IdentityOrderEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer orderId;
+
+    @ManyToOne
+    @JoinColumn(name = "customer_id", nullable = false)
+    private CustomerEntity customer;
+
+    private LocalDateTime pickupDate;
+
+    private LocalDateTime dropOffDate;
+
+    private Integer weight;
+
+    private Integer width;
+
+    private Integer height;
+
+    private Integer length;
+
+    // The benchmark source set isn't run through Lombok
+    protected IdentityOrderEntity() {
+    }
+
+    IdentityOrderEntity(CustomerEntity customer, LocalDateTime pickupDate, LocalDateTime dropOffDate,
+                        Integer weight, Integer width, Integer height, Integer length) {
+        this.customer = customer;
+        this.pickupDate = pickupDate;
+        this.dropOffDate = dropOffDate;
+        this.weight = weight;
+        this.width = width;
+        this.height = height;
+        this.length = length;
+    }
+}
@@ -0,0 +1,6 @@
+package ee.taltech.iti03022024project.benchmark;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface IdentityOrderRepository extends JpaRepository<IdentityOrderEntity, Integer> {
+}
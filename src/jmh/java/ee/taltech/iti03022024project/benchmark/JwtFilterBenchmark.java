@@ -0,0 +1,80 @@
+package ee.taltech.iti03022024project.benchmark;
+
+import ee.taltech.iti03022024project.security.JwtRequestFilter;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per-request cost of authenticating the same token by building a parser on every request, as the
+ * filter used to, with a parser built once, and with the filter that keeps verified tokens. Run it with
+ * {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    private SecretKey key;
+    private String token;
+    private JwtParser parser;
+    private JwtRequestFilter filter;
+
+    @Setup
+    public void setUp() {
+        key = Jwts.SIG.HS256.key().build();
+        token = Jwts.builder()
+                .subject("admin")
+                .claims(Map.of("employeeId", 1, "name", "admin", "permissionId", 1))
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60))
+                .signWith(key)
+                .compact();
+        parser = Jwts.parser().verifyWith(key).build();
+        filter = new JwtRequestFilter(key);
+    }
+
+    @Benchmark
+    public void parserPerRequest(Blackhole blackhole) {
+        blackhole.consume(Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload());
+    }
+
+    @Benchmark
+    public void parserOnce(Blackhole blackhole) {
+        blackhole.consume(parser.parseSignedClaims(token).getPayload());
+    }
+
+    // The request and chain are part of every filtered request, a MockFilterChain can only be called once
+    @Benchmark
+    public void filterWithCachedToken(Blackhole blackhole) throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        blackhole.consume(SecurityContextHolder.getContext().getAuthentication());
+        SecurityContextHolder.clearContext();
+    }
+}
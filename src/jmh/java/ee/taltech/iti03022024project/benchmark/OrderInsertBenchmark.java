@@ -0,0 +1,98 @@
+package ee.taltech.iti03022024project.benchmark;
+
+import ee.taltech.iti03022024project.entity.CustomerEntity;
+import ee.taltech.iti03022024project.entity.OrderEntity;
+import ee.taltech.iti03022024project.repository.CustomerRepository;
+import ee.taltech.iti03022024project.repository.OrderRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares saveAll of 1000 orders in one transaction with IDENTITY ids, one insert per row, against the batched
+ * inserts that pooled sequence ids allow. Run it with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderInsertBenchmark {
+
+    private static final int ORDERS_PER_TRANSACTION = 1000;
+    private static final LocalDateTime PICKUP_DATE = LocalDateTime.of(2020, 1, 1, 8, 0);
+    private static final LocalDateTime DROP_OFF_DATE = LocalDateTime.of(2020, 1, 2, 8, 0);
+
+    private BenchmarkApplication application;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private CustomerRepository customerRepository;
+    private OrderRepository orderRepository;
+    private IdentityOrderRepository identityOrderRepository;
+    private Integer customerId;
+
+    @Setup
+    public void setUp() {
+        application = new BenchmarkApplication();
+        jdbcTemplate = application.getBean(JdbcTemplate.class);
+        transactionTemplate = application.getBean(TransactionTemplate.class);
+        customerRepository = application.getBean(CustomerRepository.class);
+        orderRepository = application.getBean(OrderRepository.class);
+        identityOrderRepository = application.getBean(IdentityOrderRepository.class);
+        customerId = jdbcTemplate.queryForObject(
+                "INSERT INTO customer (name) VALUES ('Insert benchmark') RETURNING customer_id", Integer.class);
+    }
+
+    // Keeps every iteration inserting into a table of the same size
+    @TearDown(Level.Iteration)
+    public void deleteOrders() {
+        jdbcTemplate.update("DELETE FROM orders");
+    }
+
+    @TearDown
+    public void tearDown() {
+        application.close();
+    }
+
+    @Benchmark
+    public void identitySaveAll(Blackhole blackhole) {
+        blackhole.consume(transactionTemplate.execute(status -> {
+            CustomerEntity customer = customerRepository.getReferenceById(customerId);
+            List<IdentityOrderEntity> orders = new ArrayList<>(ORDERS_PER_TRANSACTION);
+            for (int i = 0; i < ORDERS_PER_TRANSACTION; i++) {
+                orders.add(new IdentityOrderEntity(customer, PICKUP_DATE, DROP_OFF_DATE, 100, 10, 10, 10));
+            }
+            return identityOrderRepository.saveAll(orders);
+        }));
+    }
+
+    @Benchmark
+    public void pooledSaveAll(Blackhole blackhole) {
+        blackhole.consume(transactionTemplate.execute(status -> {
+            CustomerEntity customer = customerRepository.getReferenceById(customerId);
+            List<OrderEntity> orders = new ArrayList<>(ORDERS_PER_TRANSACTION);
+            for (int i = 0; i < ORDERS_PER_TRANSACTION; i++) {
+                orders.add(new OrderEntity(null, customer, PICKUP_DATE, DROP_OFF_DATE, 100, 10, 10, 10, null));
+            }
+            return orderRepository.saveAll(orders);
+        }));
+    }
+}
@@ -0,0 +1,75 @@
+package ee.taltech.iti03022024project.benchmark;
+
+import ee.taltech.iti03022024project.repository.VehicleRepository;
+import ee.taltech.iti03022024project.repository.specifications.VehicleSpecifications;
+import ee.taltech.iti03022024project.service.RegistrationPlateIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the LIKE plate filter with the ID filter resolved by RegistrationPlateIndex at 100k vehicles. The indexed
+ * filter includes the index lookup. Run it with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegistrationPlateFilterBenchmark {
+
+    private static final int VEHICLES = 100_000;
+
+    @Param({"bm09999", "12345", "4567"})
+    private String fragment;
+
+    private BenchmarkApplication application;
+    private VehicleRepository vehicleRepository;
+    private RegistrationPlateIndex registrationPlateIndex;
+
+    @Setup
+    public void setUp() {
+        application = new BenchmarkApplication();
+        vehicleRepository = application.getBean(VehicleRepository.class);
+        registrationPlateIndex = application.getBean(RegistrationPlateIndex.class);
+
+        JdbcTemplate jdbcTemplate = application.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("""
+                INSERT INTO vehicle (vehicle_type, is_in_use, max_load, current_fuel, registration_plate)
+                SELECT 'T', false, 20000, 100, 'BM' || lpad(g::text, 6, '0') FROM generate_series(1, ?) g""",
+                VEHICLES);
+        jdbcTemplate.execute("ANALYZE vehicle");
+        registrationPlateIndex.reload();
+    }
+
+    @TearDown
+    public void tearDown() {
+        application.close();
+    }
+
+    @Benchmark
+    public void like(Blackhole blackhole) {
+        blackhole.consume(vehicleRepository.findAll(VehicleSpecifications.registrationPlateLike(fragment)));
+    }
+
+    // Every fragment has few enough matches for the index to answer
+    @Benchmark
+    public void indexed(Blackhole blackhole) {
+        blackhole.consume(vehicleRepository.findAll(VehicleSpecifications.vehicleIdIn(
+                registrationPlateIndex.findVehicleIds(fragment).orElseThrow())));
+    }
+}
@@ -0,0 +1,93 @@
+package ee.taltech.iti03022024project.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import ee.taltech.iti03022024project.dto.PageResponse;
+import ee.taltech.iti03022024project.dto.query.DoneJobTableInfoDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares the time a page of 1000 done jobs takes to write as JSON and as CBOR, plain and gzipped as compressed
+ * responses are. Run it with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TablePayloadBenchmark {
+
+    private static final int ROWS = 1000;
+
+    private PageResponse<DoneJobTableInfoDto> page;
+    private ObjectMapper json;
+    private ObjectMapper cbor;
+
+    @Setup
+    public void setUp() {
+        List<DoneJobTableInfoDto> rows = new ArrayList<>();
+        LocalDateTime pickupDate = LocalDateTime.of(2024, 11, 10, 8, 0);
+        for (int i = 1; i <= ROWS; i++) {
+            rows.add(new DoneJobTableInfoDto(i, i % 50, "ABC" + (100 + i % 50), 40.0 + i % 30, 100.0 + i % 400,
+                    i, "Customer " + i % 200, pickupDate.plusHours(i), pickupDate.plusHours(i + 9), true));
+        }
+        page = new PageResponse<>(new PageImpl<>(rows, PageRequest.of(0, ROWS), ROWS * 20L));
+
+        // Same filters as the application's mappers, the table DTOs can't be written without them
+        SimpleFilterProvider filters = new SimpleFilterProvider().setDefaultFilter(SimpleBeanPropertyFilter.serializeAll());
+        json = Jackson2ObjectMapperBuilder.json().filters(filters).build();
+        cbor = Jackson2ObjectMapperBuilder.cbor().filters(filters).build();
+    }
+
+    @Benchmark
+    public void json(Blackhole blackhole) throws JsonProcessingException {
+        blackhole.consume(json.writeValueAsBytes(page));
+    }
+
+    @Benchmark
+    public void cbor(Blackhole blackhole) throws JsonProcessingException {
+        blackhole.consume(cbor.writeValueAsBytes(page));
+    }
+
+    @Benchmark
+    public void jsonGzipped(Blackhole blackhole) throws IOException {
+        blackhole.consume(gzip(json.writeValueAsBytes(page)));
+    }
+
+    @Benchmark
+    public void cborGzipped(Blackhole blackhole) throws IOException {
+        blackhole.consume(gzip(cbor.writeValueAsBytes(page)));
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,60 @@
+package ee.taltech.iti03022024project.config;
+
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Second-level cache of the entities that are read far more often than they are written, such as the vehicles,
+ * customers and reference data every job and order resolves by ID. Each cache region is bounded by
+ * {@code entity-cache.regions.<region>.max-entries} and {@code .ttl}, an entity annotated with a region that isn't
+ * configured fails the startup instead of getting an unbounded cache.
+ */
+@Configuration
+@EnableConfigurationProperties(EntityCacheConfiguration.EntityCacheProperties.class)
+public class EntityCacheConfiguration {
+
+    @ConfigurationProperties("entity-cache")
+    public record EntityCacheProperties(Map<String, Region> regions) {
+
+        public record Region(long maxEntries, Duration ttl) {}
+    }
+
+    // Every application context gets a cache manager of its own, the provider would otherwise share one per class loader
+    @Bean(destroyMethod = "close")
+    public CacheManager entityCacheManager(EntityCacheProperties properties) {
+        ConfigurationBuilder configuration = ConfigurationBuilder.newConfigurationBuilder();
+        properties.regions().forEach((region, settings) -> configuration.withCache(region,
+                CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(settings.maxEntries()))
+                        .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(settings.ttl()))));
+
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        return provider.getCacheManager(URI.create("urn:entity-cache:" + UUID.randomUUID()), configuration.build());
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheCustomizer(CacheManager entityCacheManager) {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            hibernateProperties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            hibernateProperties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+            hibernateProperties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+}
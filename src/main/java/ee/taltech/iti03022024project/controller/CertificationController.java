@@ -1,6 +1,8 @@
 package ee.taltech.iti03022024project.controller;
 
 import ee.taltech.iti03022024project.dto.CertificationDto;
+import ee.taltech.iti03022024project.dto.CertificationImportResultDto;
+import ee.taltech.iti03022024project.dto.searchcriteria.StreamFormat;
 import ee.taltech.iti03022024project.service.CertificationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -9,6 +11,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -35,6 +38,21 @@ public class CertificationController {
         return ResponseEntity.ok(createdCertification);
     }
 
+    @Operation(
+            summary = "Import many certifications",
+            description = "Adds certifications for new employee and type pairs and renews existing ones when the new expiry date is later. "
+                    + "Invalid certifications are left out and reported."
+    )
+    @ApiResponse(responseCode = "200", description = "Certifications imported, rejected ones are reported in the result")
+    @ApiResponse(responseCode = "409", description = "Batch is empty or too large")
+    @ApiResponse(responseCode = "403", description = "User doesn't have correct permissions!")
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'USER')")
+    @PostMapping("/batch")
+    public ResponseEntity<CertificationImportResultDto> importCertifications(@RequestBody List<CertificationDto> certificationDtos) {
+        CertificationImportResultDto result = certificationService.importCertifications(certificationDtos);
+        return ResponseEntity.ok(result);
+    }
+
     @Operation(
             summary = "Get all certifications",
             description = "Fetches all certifications and returns a list of certification DTOs."
@@ -48,6 +66,21 @@ public class CertificationController {
         return ResponseEntity.ok(certifications);
     }
 
+    @Operation(
+            summary = "Stream all certifications",
+            description = "Streams all certifications as one JSON array or as NDJSON while they are read from the database."
+    )
+    @ApiResponse(responseCode = "200", description = "Certifications streamed successfully")
+    @ApiResponse(responseCode = "403", description = "User doesn't have correct permissions!")
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'USER')")
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamAllCertifications(@RequestParam(defaultValue = "JSON") StreamFormat format) {
+        StreamingResponseBody body = outputStream -> certificationService.streamAllCertifications(format, outputStream);
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .body(body);
+    }
+
     @Operation(
             summary = "Get a certification by ID",
             description = "Retrieves a certification by its ID and returns the corresponding DTO."
@@ -4,6 +4,7 @@ import ee.taltech.iti03022024project.dto.CustomerDto;
 import ee.taltech.iti03022024project.dto.PageResponse;
 import ee.taltech.iti03022024project.dto.query.CustomerTableInfoDto;
 import ee.taltech.iti03022024project.dto.searchcriteria.CustomerSearchCriteria;
+import ee.taltech.iti03022024project.dto.searchcriteria.StreamFormat;
 import ee.taltech.iti03022024project.service.CustomerService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -13,6 +14,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -49,6 +51,21 @@ public class CustomerController {
         return ResponseEntity.ok(customers);
     }
 
+    @Operation(
+            summary = "Stream all customers",
+            description = "Streams all customers as one JSON array or as NDJSON while they are read from the database."
+    )
+    @ApiResponse(responseCode = "200", description = "Customers streamed successfully")
+    @ApiResponse(responseCode = "403", description = "User doesn't have correct permissions!")
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'USER')")
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamAllCustomers(@RequestParam(defaultValue = "JSON") StreamFormat format) {
+        StreamingResponseBody body = outputStream -> customerService.streamAllCustomers(format, outputStream);
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .body(body);
+    }
+
     @Operation(
             summary = "Get a customer by ID",
             description = "Retrieves a customer by its ID and returns the corresponding customer DTO."
@@ -1,22 +1,39 @@
 package ee.taltech.iti03022024project.controller;
 
+import ee.taltech.iti03022024project.dto.CursorPageResponse;
+import ee.taltech.iti03022024project.dto.JobBatchResultDto;
 import ee.taltech.iti03022024project.dto.JobDto;
 import ee.taltech.iti03022024project.dto.PageResponse;
 import ee.taltech.iti03022024project.dto.query.DoneJobTableInfoDto;
 import ee.taltech.iti03022024project.dto.query.NotDoneJobTableInfoDto;
 import ee.taltech.iti03022024project.dto.searchcriteria.DoneJobSearchCriteria;
+import ee.taltech.iti03022024project.dto.searchcriteria.ExportFormat;
 import ee.taltech.iti03022024project.dto.searchcriteria.NotDoneJobSearchCriteria;
+import ee.taltech.iti03022024project.dto.searchcriteria.StreamFormat;
+import ee.taltech.iti03022024project.entity.CustomerEntity;
+import ee.taltech.iti03022024project.entity.JobEntity;
+import ee.taltech.iti03022024project.entity.OrderEntity;
+import ee.taltech.iti03022024project.entity.VehicleEntity;
 import ee.taltech.iti03022024project.service.JobService;
+import ee.taltech.iti03022024project.service.TableVersions;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Locale;
 
 @RequiredArgsConstructor
 @RestController
@@ -24,7 +41,10 @@ import java.util.List;
 @Tag(name = "Jobs", description = "APIs for managing jobs")
 public class JobController {
 
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
     private final JobService jobService;
+    private final TableVersions tableVersions;
 
     @Operation(
             summary = "Create a new job",
@@ -40,6 +60,20 @@ public class JobController {
         return ResponseEntity.ok(createdJob);
     }
 
+    @Operation(
+            summary = "Create many jobs",
+            description = "Adds all jobs whose vehicle, employee and order exist, and returns the outcome of every job in request order."
+    )
+    @ApiResponse(responseCode = "200", description = "Batch processed, failed jobs are reported in their result")
+    @ApiResponse(responseCode = "409", description = "Batch is empty or too large")
+    @ApiResponse(responseCode = "403", description = "User doesn't have correct permissions!")
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'USER')")
+    @PostMapping("/batch")
+    public ResponseEntity<List<JobBatchResultDto>> createJobs(@RequestBody List<JobDto> jobDtos) {
+        List<JobBatchResultDto> results = jobService.createJobs(jobDtos);
+        return ResponseEntity.ok(results);
+    }
+
     @Operation(
             summary = "Get all jobs",
             description = "Fetches all jobs and returns a list of job DTOs."
@@ -53,6 +87,21 @@ public class JobController {
         return ResponseEntity.ok(jobs);
     }
 
+    @Operation(
+            summary = "Stream all jobs",
+            description = "Streams all jobs as one JSON array or as NDJSON while they are read from the database."
+    )
+    @ApiResponse(responseCode = "200", description = "Jobs streamed successfully")
+    @ApiResponse(responseCode = "403", description = "User doesn't have correct permissions!")
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'USER', 'DRIVER')")
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamAllJobs(@RequestParam(defaultValue = "JSON") StreamFormat format) {
+        StreamingResponseBody body = outputStream -> jobService.streamAllJobs(format, outputStream);
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .body(body);
+    }
+
     @Operation(
             summary = "Get a job by ID",
             description = "Retrieves a job by its ID and returns the corresponding job DTO."
@@ -99,18 +148,79 @@ public class JobController {
         return ResponseEntity.ok(response);
     }
 
+    @Operation(
+            summary = "Export done jobs",
+            description = "Streams every done job matching the search criteria as CSV or NDJSON, ignoring paging. "
+                    + "The file is written while rows are read, so exports of any size are sent in one response."
+    )
+    @ApiResponse(responseCode = "200", description = "Done jobs exported successfully")
+    @ApiResponse(responseCode = "403", description = "User doesn't have correct permissions!")
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'USER')")
+    @GetMapping("/done-table/export")
+    public ResponseEntity<StreamingResponseBody> exportDoneJobs(@Valid DoneJobSearchCriteria criteria,
+                                                                @RequestParam(defaultValue = "CSV") ExportFormat format) {
+        DoneJobSearchCriteria searchCriteria = criteria != null ? criteria : new DoneJobSearchCriteria();
+        StreamingResponseBody body = outputStream -> jobService.exportDoneJobs(searchCriteria, format, outputStream);
+        return ResponseEntity.ok()
+                .contentType(format == ExportFormat.CSV ? TEXT_CSV : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("done-jobs." + format.name().toLowerCase(Locale.ROOT))
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
     @Operation(
             summary = "Search for not done jobs",
             description = "Fetches a paginated and filtered list of not done jobs based on search criteria."
     )
     @ApiResponse(responseCode = "200", description = "Not done jobs retrieved successfully")
+    @ApiResponse(responseCode = "304", description = "Not done jobs haven't changed since the response with the ETag given in If-None-Match")
     @ApiResponse(responseCode = "403", description = "User doesn't have correct permissions!")
     @GetMapping("/not-done-table")
-    public ResponseEntity<PageResponse<NotDoneJobTableInfoDto>> searchNotDoneJobs(@Valid NotDoneJobSearchCriteria criteria) {
+    public ResponseEntity<PageResponse<NotDoneJobTableInfoDto>> searchNotDoneJobs(@Valid NotDoneJobSearchCriteria criteria, WebRequest request) {
         if (criteria == null) {
             criteria = new NotDoneJobSearchCriteria();
         }
+        // Polled by the dashboards, an unchanged table is answered with 304 before anything is read
+        String etag = tableVersions.etag(criteria, request.getHeader(HttpHeaders.ACCEPT),
+                JobEntity.class, VehicleEntity.class, OrderEntity.class, CustomerEntity.class);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
         PageResponse<NotDoneJobTableInfoDto> response = jobService.searchNotDoneJobsTable(criteria);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).eTag(etag).body(response);
+    }
+
+    @Operation(
+            summary = "Scroll through done jobs",
+            description = "Fetches the next slice of filtered done jobs after the given cursor. Sorting is taken from the cursor once scrolling has started."
+    )
+    @ApiResponse(responseCode = "200", description = "Done jobs retrieved successfully")
+    @ApiResponse(responseCode = "409", description = "Cursor is invalid or doesn't match the requested sorting")
+    @ApiResponse(responseCode = "403", description = "User doesn't have correct permissions!")
+    @GetMapping("/done-table/scroll")
+    public ResponseEntity<CursorPageResponse<DoneJobTableInfoDto>> scrollDoneJobs(@Valid DoneJobSearchCriteria criteria) {
+        if (criteria == null) {
+            criteria = new DoneJobSearchCriteria();
+        }
+        CursorPageResponse<DoneJobTableInfoDto> response = jobService.scrollDoneJobsTable(criteria);
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(
+            summary = "Scroll through not done jobs",
+            description = "Fetches the next slice of filtered not done jobs after the given cursor. Sorting is taken from the cursor once scrolling has started."
+    )
+    @ApiResponse(responseCode = "200", description = "Not done jobs retrieved successfully")
+    @ApiResponse(responseCode = "409", description = "Cursor is invalid or doesn't match the requested sorting")
+    @ApiResponse(responseCode = "403", description = "User doesn't have correct permissions!")
+    @GetMapping("/not-done-table/scroll")
+    public ResponseEntity<CursorPageResponse<NotDoneJobTableInfoDto>> scrollNotDoneJobs(@Valid NotDoneJobSearchCriteria criteria) {
+        if (criteria == null) {
+            criteria = new NotDoneJobSearchCriteria();
+        }
+        CursorPageResponse<NotDoneJobTableInfoDto> response = jobService.scrollNotDoneJobsTable(criteria);
         return ResponseEntity.ok(response);
     }
 }
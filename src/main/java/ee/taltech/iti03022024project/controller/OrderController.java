@@ -1,20 +1,25 @@
 package ee.taltech.iti03022024project.controller;
 
 import ee.taltech.iti03022024project.dto.OrderDto;
+import ee.taltech.iti03022024project.dto.OrderImportResultDto;
 import ee.taltech.iti03022024project.dto.OrderNameIdDto;
 import ee.taltech.iti03022024project.dto.PageResponse;
 import ee.taltech.iti03022024project.dto.query.OrdersTableInfoDto;
 import ee.taltech.iti03022024project.dto.searchcriteria.OrderSearchCriteria;
+import ee.taltech.iti03022024project.dto.searchcriteria.StreamFormat;
 import ee.taltech.iti03022024project.service.OrderService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.util.List;
 
 @RequiredArgsConstructor
@@ -39,6 +44,22 @@ public class OrderController {
         return ResponseEntity.ok(createdOrder);
     }
 
+    @Operation(
+            summary = "Import orders from CSV",
+            description = "Streams a CSV file with a header row into orders. Every row names its customer in exactly one of the "
+                    + "customerId and customerName columns, pickupDate and dropOffDate are required, weight, width, height, "
+                    + "length and orderDetails are optional. Invalid rows are skipped and reported."
+    )
+    @ApiResponse(responseCode = "200", description = "File imported, rejected rows are reported in the result")
+    @ApiResponse(responseCode = "409", description = "File is empty or its header is invalid")
+    @ApiResponse(responseCode = "403", description = "User doesn't have correct permissions!")
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'USER')")
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE})
+    public ResponseEntity<OrderImportResultDto> importOrders(InputStream csv) {
+        OrderImportResultDto result = orderService.importOrders(csv);
+        return ResponseEntity.ok(result);
+    }
+
     @Operation(
             summary = "Get all orders",
             description = "Fetches all orders and returns a list of order DTOs."
@@ -53,6 +74,21 @@ public class OrderController {
         return ResponseEntity.ok(orders);
     }
 
+    @Operation(
+            summary = "Stream all orders",
+            description = "Streams all orders as one JSON array or as NDJSON while they are read from the database."
+    )
+    @ApiResponse(responseCode = "200", description = "Orders streamed successfully")
+    @ApiResponse(responseCode = "403", description = "User doesn't have correct permissions!")
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'USER')")
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamAllOrders(@RequestParam(defaultValue = "JSON") StreamFormat format) {
+        StreamingResponseBody body = outputStream -> orderService.streamAllOrders(format, outputStream);
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .body(body);
+    }
+
     @Operation(
             summary = "Get an order by ID",
             description = "Retrieves an order by its ID and returns the corresponding order DTO."
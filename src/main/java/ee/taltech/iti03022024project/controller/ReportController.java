@@ -0,0 +1,130 @@
+package ee.taltech.iti03022024project.controller;
+
+import ee.taltech.iti03022024project.dto.report.ReportDto;
+import ee.taltech.iti03022024project.dto.searchcriteria.DoneJobSearchCriteria;
+import ee.taltech.iti03022024project.dto.searchcriteria.ExportFormat;
+import ee.taltech.iti03022024project.dto.searchcriteria.OrderSearchCriteria;
+import ee.taltech.iti03022024project.service.ReportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/api/reports")
+@Tag(name = "Reports", description = "APIs for generating large reports in the background")
+public class ReportController {
+
+    private final ReportService reportService;
+
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+    // Tomcat sends a file named in these request attributes with sendfile after the request has been handled
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Operation(
+            summary = "Request a done jobs report",
+            description = "Queues a report of every done job matching the search criteria, ignoring paging. "
+                    + "Returns at once with the report ID, poll the report until it is DONE and download its file."
+    )
+    @ApiResponse(responseCode = "202", description = "Report queued")
+    @ApiResponse(responseCode = "429", description = "Too many reports are waiting to be generated")
+    @ApiResponse(responseCode = "403", description = "User doesn't have correct permissions!")
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'USER')")
+    @PostMapping("/done-jobs")
+    public ResponseEntity<ReportDto> createDoneJobsReport(@Valid @RequestBody(required = false) DoneJobSearchCriteria criteria,
+                                                          @RequestParam(defaultValue = "CSV") ExportFormat format) {
+        DoneJobSearchCriteria searchCriteria = criteria != null ? criteria : new DoneJobSearchCriteria();
+        return accepted(reportService.submitDoneJobsReport(searchCriteria, format));
+    }
+
+    @Operation(
+            summary = "Request an orders report",
+            description = "Queues a report of every order matching the search criteria, ignoring paging. "
+                    + "Returns at once with the report ID, poll the report until it is DONE and download its file."
+    )
+    @ApiResponse(responseCode = "202", description = "Report queued")
+    @ApiResponse(responseCode = "429", description = "Too many reports are waiting to be generated")
+    @ApiResponse(responseCode = "403", description = "User doesn't have correct permissions!")
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'USER')")
+    @PostMapping("/orders")
+    public ResponseEntity<ReportDto> createOrdersReport(@Valid @RequestBody(required = false) OrderSearchCriteria criteria,
+                                                        @RequestParam(defaultValue = "CSV") ExportFormat format) {
+        OrderSearchCriteria searchCriteria = criteria != null ? criteria : new OrderSearchCriteria();
+        return accepted(reportService.submitOrdersReport(searchCriteria, format));
+    }
+
+    @Operation(
+            summary = "Get the status of a report",
+            description = "Returns the status of a report and, once it is done, the number of rows written."
+    )
+    @ApiResponse(responseCode = "200", description = "Report status retrieved successfully")
+    @ApiResponse(responseCode = "404", description = "Report with this ID does not exist or has expired")
+    @ApiResponse(responseCode = "403", description = "User doesn't have correct permissions!")
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'USER')")
+    @GetMapping("/{id}")
+    public ResponseEntity<ReportDto> getReport(@PathVariable UUID id) {
+        return ResponseEntity.ok(reportService.getReport(id));
+    }
+
+    @Operation(
+            summary = "Download a report",
+            description = "Sends the file of a done report. The file is handed to the server's sendfile support "
+                    + "when it has one, so it is copied to the connection without passing through the application."
+    )
+    @ApiResponse(responseCode = "200", description = "Report file sent")
+    @ApiResponse(responseCode = "404", description = "Report with this ID does not exist or has expired")
+    @ApiResponse(responseCode = "409", description = "Report is not done")
+    @ApiResponse(responseCode = "403", description = "User doesn't have correct permissions!")
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'USER')")
+    @GetMapping("/{id}/file")
+    public void downloadReport(@PathVariable UUID id, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ReportService.ReportFile file = reportService.getReportFile(id);
+        try (FileChannel channel = FileChannel.open(file.path())) {
+            long size = channel.size();
+            response.setContentType((file.format() == ExportFormat.CSV ? TEXT_CSV : MediaType.APPLICATION_NDJSON).toString());
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                    .filename(file.fileName())
+                    .build()
+                    .toString());
+            response.setContentLengthLong(size);
+
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                request.setAttribute(SENDFILE_FILENAME, file.path().toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START, 0L);
+                request.setAttribute(SENDFILE_END, size);
+            } else {
+                WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+                for (long position = 0; position < size; ) {
+                    position += channel.transferTo(position, size - position, target);
+                }
+            }
+        }
+    }
+
+    private static ResponseEntity<ReportDto> accepted(ReportDto report) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/reports/" + report.getReportId()))
+                .body(report);
+    }
+}
@@ -0,0 +1,39 @@
+package ee.taltech.iti03022024project.controller;
+
+import ee.taltech.iti03022024project.dto.SearchHitDto;
+import ee.taltech.iti03022024project.service.SearchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/api/search")
+@Tag(name = "Search", description = "API for searching across customers, orders, vehicles, employees and jobs")
+public class SearchController {
+
+    private final SearchService searchService;
+
+    @Operation(
+            summary = "Full text search",
+            description = "Searches customers, orders, vehicles, employees and jobs at once and returns typed hits, best matches first."
+    )
+    @ApiResponse(responseCode = "200", description = "Search hits retrieved successfully")
+    @ApiResponse(responseCode = "409", description = "Search term is empty or limit is out of range")
+    @ApiResponse(responseCode = "403", description = "User doesn't have correct permissions!")
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'USER')")
+    @GetMapping
+    public ResponseEntity<List<SearchHitDto>> search(@RequestParam("q") String term,
+                                                     @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(searchService.search(term, limit));
+    }
+}
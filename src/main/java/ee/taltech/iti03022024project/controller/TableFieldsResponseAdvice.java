@@ -0,0 +1,78 @@
+package ee.taltech.iti03022024project.controller;
+
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import ee.taltech.iti03022024project.dto.CursorPageResponse;
+import ee.taltech.iti03022024project.dto.PageResponse;
+import ee.taltech.iti03022024project.dto.searchcriteria.TableSearchCriteria;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Writes only the properties named by the fields parameter of a table search. The services have already checked the
+ * names against the table's columns and read the other columns as null.
+ */
+@RestControllerAdvice
+public class TableFieldsResponseAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+
+    private static final String FIELDS_PARAMETER = "fields";
+
+    @Override
+    protected void beforeBodyWriteInternal(MappingJacksonValue bodyContainer, MediaType contentType, MethodParameter returnType,
+                                           ServerHttpRequest request, ServerHttpResponse response) {
+        Object body = bodyContainer.getValue();
+        if (!(body instanceof PageResponse<?> || body instanceof CursorPageResponse<?>)
+                || !(request instanceof ServletServerHttpRequest servletRequest)) {
+            return;
+        }
+        String[] values = servletRequest.getServletRequest().getParameterValues(FIELDS_PARAMETER);
+        if (values == null) {
+            return;
+        }
+
+        // Split the same way as the criteria binding, which accepts repeated and comma separated values
+        Set<String> fields = new HashSet<>();
+        for (String value : values) {
+            for (String field : value.split(",")) {
+                if (!field.isBlank()) {
+                    fields.add(field.trim());
+                }
+            }
+        }
+        if (!fields.isEmpty()) {
+            bodyContainer.setFilters(new SimpleFilterProvider().addFilter(TableSearchCriteria.FIELDS_FILTER, new FieldsFilter(fields)));
+        }
+    }
+
+    private static class FieldsFilter extends SimpleBeanPropertyFilter {
+
+        private final Set<String> fields;
+
+        FieldsFilter(Set<String> fields) {
+            this.fields = fields;
+        }
+
+        // Lombok names the getter of a boolean isX field isX(), which Jackson writes as x, so the getter's name counts too
+        @Override
+        protected boolean include(PropertyWriter writer) {
+            return fields.contains(writer.getName())
+                    || (writer.getMember() != null && fields.contains(writer.getMember().getName()));
+        }
+
+        @Override
+        protected boolean include(BeanPropertyWriter writer) {
+            return include((PropertyWriter) writer);
+        }
+    }
+}
@@ -4,7 +4,10 @@ import ee.taltech.iti03022024project.dto.PageResponse;
 import ee.taltech.iti03022024project.dto.UpdateVehicleRequestDto;
 import ee.taltech.iti03022024project.dto.VehicleDto;
 import ee.taltech.iti03022024project.dto.query.VehicleTableInfoDto;
+import ee.taltech.iti03022024project.dto.searchcriteria.StreamFormat;
 import ee.taltech.iti03022024project.dto.searchcriteria.VehicleSearchCriteria;
+import ee.taltech.iti03022024project.entity.VehicleEntity;
+import ee.taltech.iti03022024project.service.TableVersions;
 import ee.taltech.iti03022024project.service.VehicleService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -13,9 +16,13 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -26,6 +33,7 @@ import java.util.List;
 public class VehicleController {
 
     private final VehicleService vehicleService;
+    private final TableVersions tableVersions;
     private static final Logger log = LoggerFactory.getLogger(VehicleController.class);
 
     @Operation(
@@ -55,6 +63,21 @@ public class VehicleController {
         return ResponseEntity.ok(vehicleService.getAllVehicles());
     }
 
+    @Operation(
+            summary = "Stream all vehicles",
+            description = "Streams all vehicles as one JSON array or as NDJSON while they are read from the database."
+    )
+    @ApiResponse(responseCode = "200", description = "Vehicles streamed successfully")
+    @ApiResponse(responseCode = "403", description = "User doesn't have correct permissions!")
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'USER', 'DRIVER')")
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamAllVehicles(@RequestParam(defaultValue = "JSON") StreamFormat format) {
+        StreamingResponseBody body = outputStream -> vehicleService.streamAllVehicles(format, outputStream);
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .body(body);
+    }
+
     @Operation(
             summary = "Get a vehicle by ID",
             description = "Retrieves a vehicle by its ID and returns the corresponding vehicle DTO."
@@ -92,21 +115,41 @@ public class VehicleController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @Operation(
+            summary = "Update many vehicles",
+            description = "Applies the given fields to every listed vehicle, fields left out are not changed. Returns the updated vehicles."
+    )
+    @ApiResponse(responseCode = "200", description = "Vehicles updated successfully")
+    @ApiResponse(responseCode = "404", description = "A vehicle with one of the IDs does not exist")
+    @ApiResponse(responseCode = "403", description = "User doesn't have correct permissions!")
+    @ApiResponse(responseCode = "409", description = "Invalid input or registration plate already exists")
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'USER')")
+    @PatchMapping("/batch")
+    public ResponseEntity<List<VehicleDto>> updateVehicles(@RequestBody List<VehicleDto> vehicleDtos) {
+        return ResponseEntity.ok(vehicleService.updateVehicles(vehicleDtos));
+    }
+
     @Operation(
             summary = "Search for vehicles in table view",
             description = "Search vehicles by criteria, sort, and return a paginated table view."
     )
     @ApiResponse(responseCode = "200", description = "Vehicles retrieved successfully")
+    @ApiResponse(responseCode = "304", description = "Vehicles haven't changed since the response with the ETag given in If-None-Match")
     @ApiResponse(responseCode = "403", description = "User doesn't have correct permissions!")
     @ApiResponse(responseCode = "404", description = "There are no vehicles")
     @PreAuthorize("hasAnyAuthority('ADMIN', 'USER', 'DRIVER')")
     @GetMapping("/table")
-    public ResponseEntity<PageResponse<VehicleTableInfoDto>> searchVehicles(@Valid VehicleSearchCriteria criteria) {
+    public ResponseEntity<PageResponse<VehicleTableInfoDto>> searchVehicles(@Valid VehicleSearchCriteria criteria, WebRequest request) {
         if (criteria == null) {
             criteria = new VehicleSearchCriteria();
         }
+        // Polled by the dashboards, an unchanged table is answered with 304 before anything is read
+        String etag = tableVersions.etag(criteria, request.getHeader(HttpHeaders.ACCEPT), VehicleEntity.class);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
         PageResponse<VehicleTableInfoDto> response = vehicleService.searchVehicleTable(criteria);
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).eTag(etag).body(response);
     }
 
 }
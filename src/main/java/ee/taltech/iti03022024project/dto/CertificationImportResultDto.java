@@ -0,0 +1,30 @@
+package ee.taltech.iti03022024project.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Schema(description = "Data Transfer Object for the outcome of a bulk certification import")
+public class CertificationImportResultDto {
+    @Schema(description = "Number of certifications added for employees that didn't have one of the type", example = "120")
+    private Long created;
+
+    @Schema(description = "Number of existing certifications given a later expiry date", example = "3870")
+    private Long renewed;
+
+    @Schema(description = "Number of certifications left as they were because they already expire as late or later", example = "8")
+    private Long unchanged;
+
+    @Schema(description = "Number of certifications left out because they were invalid", example = "2")
+    private Long rejected;
+
+    @Schema(description = "Reasons of the first rejected certifications, with their position in the request",
+            example = "[\"Certification 17: Employee with ID 99 does not exist.\"]")
+    private List<String> errors;
+}
@@ -0,0 +1,21 @@
+package ee.taltech.iti03022024project.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Schema(description = "Data Transfer Object for the result of one job in a batch create")
+public class JobBatchResultDto {
+    @Schema(description = "Position of the job in the request", example = "0")
+    private Integer index;
+
+    @Schema(description = "ID of the created job, null when the job was not created", example = "15")
+    private Integer jobId;
+
+    @Schema(description = "Reason the job was not created, null when it was", example = "Vehicle with ID 5 does not exist.")
+    private String error;
+}
@@ -0,0 +1,24 @@
+package ee.taltech.iti03022024project.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Schema(description = "Data Transfer Object for the outcome of a CSV order import")
+public class OrderImportResultDto {
+    @Schema(description = "Number of rows saved as orders", example = "4998")
+    private Long accepted;
+
+    @Schema(description = "Number of rows left out because they were invalid", example = "2")
+    private Long rejected;
+
+    @Schema(description = "Reasons of the first rejected rows, with their line numbers",
+            example = "[\"Line 17: Customer Initech does not exist.\"]")
+    private List<String> errors;
+}
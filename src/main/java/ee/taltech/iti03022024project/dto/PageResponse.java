@@ -1,7 +1,9 @@
 package ee.taltech.iti03022024project.dto;
 
+import ee.taltech.iti03022024project.dto.searchcriteria.CountMode;
 import lombok.Data;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 
@@ -11,11 +13,38 @@ public class PageResponse<T> {
     private long totalElements;
     private int totalPages;
     private int currentPage;
+    private boolean hasNext;
+    private CountMode countMode;
 
     public PageResponse(Page<T> page) {
         this.content = page.getContent();
         this.totalElements = page.getTotalElements();
         this.totalPages = page.getTotalPages();
         this.currentPage = page.getNumber();
+        this.hasNext = page.hasNext();
+        this.countMode = CountMode.EXACT;
+    }
+
+    // Without a count the totals are unknown and reported as -1
+    public PageResponse(Slice<T> slice) {
+        this.content = slice.getContent();
+        this.totalElements = -1;
+        this.totalPages = -1;
+        this.currentPage = slice.getNumber();
+        this.hasNext = slice.hasNext();
+        this.countMode = CountMode.NONE;
+    }
+
+    public PageResponse(Slice<T> slice, long estimatedTotal) {
+        // The estimate can lag behind, but never report less than what has been seen already
+        long seen = slice.getPageable().isPaged()
+                ? slice.getPageable().getOffset() + slice.getNumberOfElements() + (slice.hasNext() ? 1 : 0)
+                : slice.getNumberOfElements();
+        this.content = slice.getContent();
+        this.totalElements = Math.max(estimatedTotal, seen);
+        this.totalPages = slice.getSize() == 0 ? 1 : (int) Math.ceil((double) this.totalElements / slice.getSize());
+        this.currentPage = slice.getNumber();
+        this.hasNext = slice.hasNext();
+        this.countMode = CountMode.ESTIMATE;
     }
 }
@@ -0,0 +1,24 @@
+package ee.taltech.iti03022024project.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Schema(description = "Data Transfer Object for one hit of the full text search")
+public class SearchHitDto {
+    @Schema(description = "Type of the found record", example = "CUSTOMER", allowableValues = {"CUSTOMER", "ORDER", "VEHICLE", "EMPLOYEE", "JOB"})
+    private String type;
+
+    @Schema(description = "ID of the found record in its own table", example = "3")
+    private Integer id;
+
+    @Schema(description = "Short label of the found record", example = "Globex Ltd.")
+    private String title;
+
+    @Schema(description = "Relevance of the hit, higher is better", example = "0.6079271")
+    private Float rank;
+}
@@ -0,0 +1,13 @@
+package ee.taltech.iti03022024project.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class VehiclePlateDto {
+    private Integer vehicleId;
+    private String registrationPlate;
+}
@@ -1,5 +1,7 @@
 package ee.taltech.iti03022024project.dto.query;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import ee.taltech.iti03022024project.dto.searchcriteria.TableSearchCriteria;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -7,6 +9,7 @@ import lombok.Data;
 import java.time.LocalDateTime;
 
 @Data
+@JsonFilter(TableSearchCriteria.FIELDS_FILTER)
 @AllArgsConstructor
 @Schema(description = "Data Transfer Object representing customer information with address, contact details, and last order date")
 public class CustomerTableInfoDto {
@@ -1,11 +1,14 @@
 package ee.taltech.iti03022024project.dto.query;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import ee.taltech.iti03022024project.dto.searchcriteria.TableSearchCriteria;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import java.time.LocalDateTime;
 
 @Data
+@JsonFilter(TableSearchCriteria.FIELDS_FILTER)
 @AllArgsConstructor
 @Schema(description = "Data Transfer Object representing a completed job's information, including vehicle, order, customer, and job completion details")
 public class DoneJobTableInfoDto {
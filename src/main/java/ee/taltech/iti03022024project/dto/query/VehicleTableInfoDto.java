@@ -1,9 +1,12 @@
 package ee.taltech.iti03022024project.dto.query;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import ee.taltech.iti03022024project.dto.searchcriteria.TableSearchCriteria;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Data;
 
 @Data
+@JsonFilter(TableSearchCriteria.FIELDS_FILTER)
 @Schema(description = "Data Transfer Object representing vehicle information")
 public class VehicleTableInfoDto {
     @Schema(description = "Unique identifier for the vehicle", example = "123")
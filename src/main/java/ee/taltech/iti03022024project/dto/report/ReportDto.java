@@ -0,0 +1,40 @@
+package ee.taltech.iti03022024project.dto.report;
+
+import ee.taltech.iti03022024project.dto.searchcriteria.ExportFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Schema(description = "Data Transfer Object for the status of a report")
+public class ReportDto {
+    @Schema(description = "Report ID, used to poll the status and download the file", example = "3f2b8c1e-7d4a-4f7e-9a51-2c6d0b8e4a10")
+    private UUID reportId;
+
+    @Schema(description = "Table the report is built from", example = "DONE_JOBS")
+    private ReportType type;
+
+    @Schema(description = "File format of the report", example = "CSV")
+    private ExportFormat format;
+
+    @Schema(description = "Status of the report", example = "DONE")
+    private ReportStatus status;
+
+    @Schema(description = "Number of rows written, null until the report is done", example = "125000")
+    private Long rows;
+
+    @Schema(description = "Reason the report failed, null unless it did", example = "Report generation failed.")
+    private String error;
+
+    @Schema(description = "Time the report was requested", example = "2024-12-01T08:00:00Z")
+    private Instant createdAt;
+
+    @Schema(description = "Time the report was done or failed", example = "2024-12-01T08:01:30Z")
+    private Instant finishedAt;
+}
@@ -0,0 +1,11 @@
+package ee.taltech.iti03022024project.dto.report;
+
+/**
+ * QUEUED reports wait for a free generation slot. Only DONE reports have a file to download.
+ */
+public enum ReportStatus {
+    QUEUED,
+    RUNNING,
+    DONE,
+    FAILED
+}
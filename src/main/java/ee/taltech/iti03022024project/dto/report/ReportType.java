@@ -0,0 +1,9 @@
+package ee.taltech.iti03022024project.dto.report;
+
+/**
+ * Table a report is built from, with the criteria of that table's search.
+ */
+public enum ReportType {
+    DONE_JOBS,
+    ORDERS
+}
@@ -0,0 +1,11 @@
+package ee.taltech.iti03022024project.dto.searchcriteria;
+
+/**
+ * How a table search reports the total number of matching rows.
+ * EXACT runs a count query, NONE only reports if a next page exists and ESTIMATE returns an approximate total.
+ */
+public enum CountMode {
+    EXACT,
+    NONE,
+    ESTIMATE
+}
@@ -5,11 +5,15 @@ import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.PositiveOrZero;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 
 @Data
-public class CustomerSearchCriteria {
+@EqualsAndHashCode(callSuper = false)
+@ToString(callSuper = true)
+public class CustomerSearchCriteria extends TableSearchCriteria {
 
     @PositiveOrZero
     private Integer customerId;
@@ -38,10 +42,4 @@ public class CustomerSearchCriteria {
 
     private LocalDateTime lastOrderStartDate;
     private LocalDateTime lastOrderEndDate;
-
-    // Pagination and sorting
-    private Integer page;
-    private Integer size;
-    private String sortBy;
-    private String sortDirection;
 }
@@ -3,11 +3,15 @@ package ee.taltech.iti03022024project.dto.searchcriteria;
 import jakarta.validation.constraints.PositiveOrZero;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 
 @Data
-public class DoneJobSearchCriteria {
+@EqualsAndHashCode(callSuper = false)
+@ToString(callSuper = true)
+public class DoneJobSearchCriteria extends TableSearchCriteria {
 
     @PositiveOrZero
     private Integer jobId;
@@ -41,9 +45,8 @@ public class DoneJobSearchCriteria {
     private LocalDateTime dropOffStartDate;
     private LocalDateTime dropOffEndDate;
 
-    // Pagination and sorting
-    private Integer page;
-    private Integer size;
-    private String sortBy;
-    private String sortDirection;
+    // Keyset pagination, token returned as nextCursor by the previous slice
+    @EqualsAndHashCode.Exclude
+    @Size(max = 500)
+    private String cursor;
 }
@@ -3,11 +3,15 @@ package ee.taltech.iti03022024project.dto.searchcriteria;
 import jakarta.validation.constraints.PositiveOrZero;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 
 @Data
-public class EmployeeSearchCriteria {
+@EqualsAndHashCode(callSuper = false)
+@ToString(callSuper = true)
+public class EmployeeSearchCriteria extends TableSearchCriteria {
 
     @PositiveOrZero
     private Integer employeeId;
@@ -23,10 +27,4 @@ public class EmployeeSearchCriteria {
 
     private LocalDateTime lastJobStartDate;
     private LocalDateTime lastJobEndDate;
-
-    // Pagination
-    private Integer page;
-    private Integer size;
-    private String sortBy;
-    private String sortDirection;
 }
@@ -0,0 +1,9 @@
+package ee.taltech.iti03022024project.dto.searchcriteria;
+
+/**
+ * File format of a table export. CSV starts with a header row, NDJSON writes one JSON object per line.
+ */
+public enum ExportFormat {
+    CSV,
+    NDJSON
+}
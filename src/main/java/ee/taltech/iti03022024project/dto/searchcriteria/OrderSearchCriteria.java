@@ -3,11 +3,15 @@ package ee.taltech.iti03022024project.dto.searchcriteria;
 import jakarta.validation.constraints.PositiveOrZero;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 
 @Data
-public class OrderSearchCriteria {
+@EqualsAndHashCode(callSuper = false)
+@ToString(callSuper = true)
+public class OrderSearchCriteria extends TableSearchCriteria {
 
     @PositiveOrZero
     private Integer orderId;
@@ -43,10 +47,4 @@ public class OrderSearchCriteria {
 
     @PositiveOrZero
     private Integer maxHeight;
-
-    // Pagination and sorting
-    private Integer page;
-    private Integer size;
-    private String sortBy;
-    private String sortDirection;
 }
@@ -0,0 +1,21 @@
+package ee.taltech.iti03022024project.dto.searchcriteria;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Format of a streamed list. JSON writes one array, NDJSON writes one JSON object per line.
+ */
+public enum StreamFormat {
+    JSON(MediaType.APPLICATION_JSON),
+    NDJSON(MediaType.APPLICATION_NDJSON);
+
+    private final MediaType mediaType;
+
+    StreamFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+}
@@ -0,0 +1,30 @@
+package ee.taltech.iti03022024project.dto.searchcriteria;
+
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Pagination, sorting and field selection shared by the table searches. Subclasses leave these fields out of equals,
+ * so two criteria are equal when they filter the same rows.
+ */
+@Data
+public abstract class TableSearchCriteria {
+
+    // Jackson filter of the table DTOs, applied to table responses by TableFieldsResponseAdvice
+    public static final String FIELDS_FILTER = "tableFields";
+
+    // Pagination and sorting
+    private Integer page;
+    private Integer size;
+    private String sortBy;
+    private String sortDirection;
+
+    // Defaults to EXACT
+    private CountMode countMode;
+
+    // Field names of the table DTO to read and return, all of them when empty
+    @Size(max = 20)
+    private List<String> fields;
+}
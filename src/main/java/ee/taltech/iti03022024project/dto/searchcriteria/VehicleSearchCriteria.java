@@ -5,9 +5,13 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PositiveOrZero;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 @Data
-public class VehicleSearchCriteria {
+@EqualsAndHashCode(callSuper = false)
+@ToString(callSuper = true)
+public class VehicleSearchCriteria extends TableSearchCriteria {
 
     @PositiveOrZero
     private Integer vehicleId;
@@ -32,10 +36,4 @@ public class VehicleSearchCriteria {
 
     @Size(min = 1, max = 10)
     private String registrationPlate;
-
-    //pagination and sorting
-    private Integer page;
-    private Integer size;
-    private String sortBy;
-    private String sortDirection;
 }
@@ -14,7 +14,8 @@ import java.time.LocalDate;
 @Table(name = "certification")
 public class CertificationEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "certification_seq")
+    @SequenceGenerator(name = "certification_seq", sequenceName = "certification_seq", allocationSize = 50)
     private Integer certificationId;
 
     @ManyToOne
@@ -5,15 +5,20 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @RequiredArgsConstructor
 @Data
 @AllArgsConstructor
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "certification-type")
 @Table(name = "certification_type")
 public class CertificationTypeEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "certification_type_seq")
+    @SequenceGenerator(name = "certification_type_seq", sequenceName = "certification_type_seq", allocationSize = 50)
     private Integer certificationTypeId;
 
     @Setter
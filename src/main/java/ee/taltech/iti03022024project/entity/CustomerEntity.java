@@ -4,17 +4,23 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RequiredArgsConstructor
 @Data
 @AllArgsConstructor
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "customer")
 @Table(name = "customer")
 public class CustomerEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customer_seq")
+    @SequenceGenerator(name = "customer_seq", sequenceName = "customer_seq", allocationSize = 50)
     private Integer customerId;
 
     @Column(nullable = false, length = 100)
@@ -38,6 +44,10 @@ public class CustomerEntity {
     @Column(name = "vat_no", length = 64)
     private String vatNo;
 
+    // Latest order drop off date, kept current by OrderService
+    @Column(name = "last_order_date", insertable = false, updatable = false)
+    private LocalDateTime lastOrderDate;
+
     @OneToMany(mappedBy = "customer")
     private List<OrderEntity> orders;
 }
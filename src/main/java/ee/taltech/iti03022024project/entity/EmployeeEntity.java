@@ -4,6 +4,8 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RequiredArgsConstructor
@@ -21,12 +23,17 @@ public class EmployeeEntity {
     }
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "employee_seq")
+    @SequenceGenerator(name = "employee_seq", sequenceName = "employee_seq", allocationSize = 50)
     private Integer employeeId;
     private String name;
     private Integer permissionId;
     private String password;
 
+    // Latest job drop off date, kept current by JobService
+    @Column(name = "last_job_date", insertable = false, updatable = false)
+    private LocalDateTime lastJobDate;
+
     @OneToMany(mappedBy = "employee")
     private List<CertificationEntity> certifications;
 
@@ -14,7 +14,8 @@ import java.time.LocalDateTime;
 public class FuelConsumptionEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "fuel_consumption_seq")
+    @SequenceGenerator(name = "fuel_consumption_seq", sequenceName = "fuel_consumption_seq", allocationSize = 50)
     private Integer fuelConsumptionId;
 
     @OneToOne
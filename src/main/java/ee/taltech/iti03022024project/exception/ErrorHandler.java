@@ -50,4 +50,10 @@ public class ErrorHandler {
         log.error("Entered Values don't fit in criteria!");
         return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
     }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<Object> handleTooManyRequestsException(TooManyRequestsException e) {
+        log.error("Request rejected, too many requests are waiting!");
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.TOO_MANY_REQUESTS);
+    }
 }
@@ -0,0 +1,7 @@
+package ee.taltech.iti03022024project.exception;
+
+public class TooManyRequestsException extends RuntimeException {
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+}
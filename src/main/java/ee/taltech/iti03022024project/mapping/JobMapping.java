@@ -4,13 +4,12 @@ import ee.taltech.iti03022024project.dto.JobDto;
 import ee.taltech.iti03022024project.dto.query.DoneJobTableInfoDto;
 import ee.taltech.iti03022024project.dto.query.NotDoneJobTableInfoDto;
 import ee.taltech.iti03022024project.entity.JobEntity;
+import jakarta.persistence.Tuple;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.ReportingPolicy;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
@@ -39,9 +38,19 @@ public interface JobMapping {
 
     List<DoneJobTableInfoDto> jobListToDoneJobDtoList(List<JobEntity> jobEntities);
 
-    default Page<DoneJobTableInfoDto> jobPageToDoneJobDtoPage(Page<JobEntity> jobEntities, Pageable pageable) {
-        List<DoneJobTableInfoDto> dtos = jobListToDoneJobDtoList(jobEntities.getContent());
-        return new PageImpl<>(dtos, pageable, jobEntities.getTotalElements());
+    default DoneJobTableInfoDto tupleToDoneJobDto(Tuple tuple) {
+        return new DoneJobTableInfoDto(
+                tuple.get("jobId", Integer.class),
+                tuple.get("vehicleId", Integer.class),
+                tuple.get("registrationPlate", String.class),
+                tuple.get("fuelUsed", Double.class),
+                tuple.get("distanceDriven", Double.class),
+                tuple.get("orderId", Integer.class),
+                tuple.get("customerName", String.class),
+                tuple.get("pickupDate", LocalDateTime.class),
+                tuple.get("dropOffDate", LocalDateTime.class),
+                Boolean.TRUE.equals(tuple.get("isComplete", Boolean.class))
+        );
     }
 
     @Mapping(source = "vehicle.vehicleId", target = "vehicleId")
@@ -54,8 +63,16 @@ public interface JobMapping {
 
     List<NotDoneJobTableInfoDto> jobListToNotDoneJobDtoList(List<JobEntity> jobEntities);
 
-    default Page<NotDoneJobTableInfoDto> jobPageToNotDoneJobDtoPage(Page<JobEntity> jobEntities, Pageable pageable) {
-        List<NotDoneJobTableInfoDto> dtos = jobListToNotDoneJobDtoList(jobEntities.getContent());
-        return new PageImpl<>(dtos, pageable, jobEntities.getTotalElements());
+    default NotDoneJobTableInfoDto tupleToNotDoneJobDto(Tuple tuple) {
+        return new NotDoneJobTableInfoDto(
+                tuple.get("jobId", Integer.class),
+                tuple.get("vehicleId", Integer.class),
+                tuple.get("registrationPlate", String.class),
+                tuple.get("orderId", Integer.class),
+                tuple.get("customerName", String.class),
+                tuple.get("pickupDate", LocalDateTime.class),
+                tuple.get("dropOffDate", LocalDateTime.class),
+                Boolean.TRUE.equals(tuple.get("isComplete", Boolean.class))
+        );
     }
 }
@@ -3,6 +3,7 @@ package ee.taltech.iti03022024project.mapping;
 import ee.taltech.iti03022024project.dto.OrderDto;
 import ee.taltech.iti03022024project.dto.query.OrdersTableInfoDto;
 import ee.taltech.iti03022024project.entity.OrderEntity;
+import jakarta.persistence.Tuple;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.ReportingPolicy;
@@ -10,7 +11,9 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
 
 @Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
 public interface OrderMapping {
@@ -33,4 +36,19 @@ public interface OrderMapping {
         List<OrdersTableInfoDto> dtos = orderTableListToDtoTableList(orderEntities.getContent());
         return new PageImpl<>(dtos, pageable, orderEntities.getTotalElements());
     }
+
+    // The table DTO has primitive sizes, missing ones are shown as 0 like in the entity mapping
+    default OrdersTableInfoDto tupleToTableInfoDto(Tuple tuple) {
+        return new OrdersTableInfoDto(
+                tuple.get("orderId", Integer.class),
+                tuple.get("customerName", String.class),
+                tuple.get("pickupDate", LocalDateTime.class),
+                tuple.get("dropOffDate", LocalDateTime.class),
+                Objects.requireNonNullElse(tuple.get("weight", Integer.class), 0),
+                Objects.requireNonNullElse(tuple.get("width", Integer.class), 0),
+                Objects.requireNonNullElse(tuple.get("height", Integer.class), 0),
+                Objects.requireNonNullElse(tuple.get("length", Integer.class), 0),
+                tuple.get("orderDetails", String.class)
+        );
+    }
 }
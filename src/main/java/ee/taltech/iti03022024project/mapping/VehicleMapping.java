@@ -3,6 +3,7 @@ package ee.taltech.iti03022024project.mapping;
 import ee.taltech.iti03022024project.dto.VehicleDto;
 import ee.taltech.iti03022024project.dto.query.VehicleTableInfoDto;
 import ee.taltech.iti03022024project.entity.VehicleEntity;
+import jakarta.persistence.Tuple;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.ReportingPolicy;
@@ -33,4 +34,15 @@ public interface VehicleMapping {
         List<VehicleTableInfoDto> dtos = vehicleListToTableInfoDtoList(vehicleEntities.getContent());
         return new PageImpl<>(dtos, pageable, vehicleEntities.getTotalElements());
     }
+
+    default VehicleTableInfoDto tupleToTableInfoDto(Tuple tuple) {
+        VehicleTableInfoDto dto = new VehicleTableInfoDto();
+        dto.setVehicleId(tuple.get("vehicleId", Integer.class));
+        dto.setVehicleType(tuple.get("vehicleType", Character.class));
+        dto.setIsInUse(tuple.get("isInUse", Boolean.class));
+        dto.setMaxLoad(tuple.get("maxLoad", Integer.class));
+        dto.setCurrentFuel(tuple.get("currentFuel", Integer.class));
+        dto.setRegistrationPlate(tuple.get("registrationPlate", String.class));
+        return dto;
+    }
 }
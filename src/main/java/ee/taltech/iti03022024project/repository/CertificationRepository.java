@@ -1,12 +1,28 @@
 package ee.taltech.iti03022024project.repository;
 
+import ee.taltech.iti03022024project.dto.CertificationDto;
 import ee.taltech.iti03022024project.entity.CertificationEntity;
 import ee.taltech.iti03022024project.entity.CertificationTypeEntity;
 import ee.taltech.iti03022024project.entity.EmployeeEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.stream.Stream;
+
 @Repository
 public interface CertificationRepository extends JpaRepository<CertificationEntity, Integer> {
     boolean existsByEmployeeAndCertificationType(EmployeeEntity employee, CertificationTypeEntity certificationType);
+
+    // Read through a server side cursor 500 rows at a time, so the stream has to be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+    SELECT new ee.taltech.iti03022024project.dto.CertificationDto(c.certificationId, c.employee.employeeId, c.certificationType.certificationTypeId,
+            c.issuedDate, c.expiryDate)
+        FROM CertificationEntity c
+""")
+    Stream<CertificationDto> streamAll();
 }
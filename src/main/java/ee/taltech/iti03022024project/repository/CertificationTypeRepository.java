@@ -2,10 +2,17 @@ package ee.taltech.iti03022024project.repository;
 
 import ee.taltech.iti03022024project.entity.CertificationTypeEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Set;
+
 @Repository
-public interface CertificationTypeRepository extends JpaRepository<CertificationTypeEntity, Integer>, JpaSpecificationExecutor<CertificationTypeEntity> {
+public interface CertificationTypeRepository extends JpaRepository<CertificationTypeEntity, Integer> {
     boolean existsByCertificationNameIgnoreCase(String certificationName);
+
+    @Query("SELECT t.certificationTypeId FROM CertificationTypeEntity t WHERE t.certificationTypeId IN :certificationTypeIds")
+    Set<Integer> findExistingIds(@Param("certificationTypeIds") Collection<Integer> certificationTypeIds);
 }
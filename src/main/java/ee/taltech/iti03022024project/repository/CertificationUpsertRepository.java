@@ -0,0 +1,72 @@
+package ee.taltech.iti03022024project.repository;
+
+import ee.taltech.iti03022024project.dto.CertificationDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+@Repository
+public class CertificationUpsertRepository {
+
+    private static final String FIND_EXISTING = """
+            SELECT c.certification_id, c.employee_id, c.certification_type_id, c.issued_date, c.expiry_date
+            FROM certification c
+            JOIN unnest(?, ?) AS pair(employee_id, certification_type_id)
+                ON c.employee_id = pair.employee_id AND c.certification_type_id = pair.certification_type_id""";
+
+    // A renewal never moves the expiry date back, so a replayed or older file can't shorten a certification
+    private static final String UPSERT = """
+            INSERT INTO certification (certification_id, employee_id, certification_type_id, issued_date, expiry_date)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (employee_id, certification_type_id) DO UPDATE
+                SET issued_date = EXCLUDED.issued_date, expiry_date = EXCLUDED.expiry_date
+                WHERE certification.expiry_date < EXCLUDED.expiry_date""";
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PooledIdRepository pooledIdRepository;
+
+    /**
+     * Existing certifications for the employee and certification type pairs of the given certifications,
+     * found with one join against the pairs passed as two arrays.
+     */
+    public List<CertificationDto> findExisting(Collection<CertificationDto> certifications) {
+        Integer[] employeeIds = certifications.stream().map(CertificationDto::getEmployeeId).toArray(Integer[]::new);
+        Integer[] certificationTypeIds = certifications.stream().map(CertificationDto::getCertificationTypeId).toArray(Integer[]::new);
+        return jdbcTemplate.query(FIND_EXISTING,
+                ps -> {
+                    ps.setArray(1, ps.getConnection().createArrayOf("integer", employeeIds));
+                    ps.setArray(2, ps.getConnection().createArrayOf("integer", certificationTypeIds));
+                },
+                (rs, rowNum) -> new CertificationDto(rs.getInt("certification_id"), rs.getInt("employee_id"),
+                        rs.getInt("certification_type_id"), rs.getDate("issued_date").toLocalDate(),
+                        rs.getDate("expiry_date").toLocalDate()));
+    }
+
+    /**
+     * Inserts new certifications and renews existing ones of the same employee and type, in JDBC batches of
+     * {@value #BATCH_SIZE} statements. The pairs must be unique within the list. IDs of new rows are taken from
+     * certification_seq in pooled blocks, the one given to a renewed row goes unused.
+     */
+    public void upsert(List<CertificationDto> certifications) {
+        int[] certificationIds = pooledIdRepository.nextIds("certification_seq", certifications.size());
+        Map<CertificationDto, Integer> idsByCertification = new IdentityHashMap<>();
+        for (int i = 0; i < certifications.size(); i++) {
+            idsByCertification.put(certifications.get(i), certificationIds[i]);
+        }
+        jdbcTemplate.batchUpdate(UPSERT, certifications, BATCH_SIZE, (ps, certification) -> {
+            ps.setInt(1, idsByCertification.get(certification));
+            ps.setInt(2, certification.getEmployeeId());
+            ps.setInt(3, certification.getCertificationTypeId());
+            ps.setDate(4, Date.valueOf(certification.getIssuedDate()));
+            ps.setDate(5, Date.valueOf(certification.getExpiryDate()));
+        });
+    }
+}
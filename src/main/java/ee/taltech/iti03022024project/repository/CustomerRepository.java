@@ -1,12 +1,55 @@
 package ee.taltech.iti03022024project.repository;
 
+import ee.taltech.iti03022024project.dto.CustomerDto;
+import ee.taltech.iti03022024project.dto.CustomerNameIdDto;
 import ee.taltech.iti03022024project.entity.CustomerEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Repository
 public interface CustomerRepository extends JpaRepository<CustomerEntity, Integer>, JpaSpecificationExecutor<CustomerEntity> {
     boolean existsByNameIgnoreCase(String name);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+    UPDATE CustomerEntity c
+        SET c.lastOrderDate = (
+            SELECT MAX(o.dropOffDate)
+            FROM OrderEntity o
+            WHERE o.customer.customerId = c.customerId
+        )
+        WHERE c.customerId IN :customerIds
+""")
+    void refreshLastOrderDate(@Param("customerIds") Collection<Integer> customerIds);
+
+    @Query("SELECT c.customerId FROM CustomerEntity c WHERE c.customerId IN :customerIds")
+    Set<Integer> findExistingIds(@Param("customerIds") Collection<Integer> customerIds);
+
+    @Query("""
+    SELECT new ee.taltech.iti03022024project.dto.CustomerNameIdDto(c.customerId, c.name)
+        FROM CustomerEntity c
+        WHERE LOWER(c.name) IN :names
+""")
+    List<CustomerNameIdDto> findByLowerCaseNames(@Param("names") Collection<String> names);
+
+    // Read through a server side cursor 500 rows at a time, so the stream has to be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+    SELECT new ee.taltech.iti03022024project.dto.CustomerDto(c.customerId, c.name, c.address, c.cityCounty, c.zip,
+            c.email, c.phoneNumber, c.vatNo)
+        FROM CustomerEntity c
+""")
+    Stream<CustomerDto> streamAll();
 }
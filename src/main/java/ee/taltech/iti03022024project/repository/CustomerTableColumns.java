@@ -0,0 +1,25 @@
+package ee.taltech.iti03022024project.repository;
+
+import ee.taltech.iti03022024project.entity.CustomerEntity;
+
+import java.time.LocalDateTime;
+
+/**
+ * Columns of the customer table, aliased with the field names of its table DTO. All of them are stored on the
+ * customer row, the last order date is kept current by OrderService.
+ */
+public class CustomerTableColumns {
+
+    public static final TableColumns<CustomerEntity> CUSTOMER = new TableColumns<CustomerEntity>()
+            .add("customerId", Integer.class, root -> root.get("customerId"))
+            .add("customerName", String.class, root -> root.get("name"))
+            .add("address", String.class, root -> root.get("address"))
+            .add("cityCounty", String.class, root -> root.get("cityCounty"))
+            .add("zip", String.class, root -> root.get("zip"))
+            .add("email", String.class, root -> root.get("email"))
+            .add("phoneNumber", String.class, root -> root.get("phoneNumber"))
+            .add("vatNo", String.class, root -> root.get("vatNo"))
+            .add("lastOrderDate", LocalDateTime.class, root -> root.get("lastOrderDate"));
+
+    private CustomerTableColumns() {}
+}
@@ -3,12 +3,32 @@ package ee.taltech.iti03022024project.repository;
 import ee.taltech.iti03022024project.entity.EmployeeEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface EmployeeRepository extends JpaRepository<EmployeeEntity, Integer>, JpaSpecificationExecutor<EmployeeEntity> {
     boolean existsByNameIgnoreCase(String name);
     Optional<EmployeeEntity> getByNameIgnoreCase(String name);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+    UPDATE EmployeeEntity e
+        SET e.lastJobDate = (
+            SELECT MAX(j.dropOffDate)
+            FROM JobEntity j
+            WHERE j.employee.employeeId = e.employeeId
+        )
+        WHERE e.employeeId IN :employeeIds
+""")
+    void refreshLastJobDate(@Param("employeeIds") Collection<Integer> employeeIds);
+
+    @Query("SELECT e.employeeId FROM EmployeeEntity e WHERE e.employeeId IN :employeeIds")
+    Set<Integer> findExistingIds(@Param("employeeIds") Collection<Integer> employeeIds);
 }
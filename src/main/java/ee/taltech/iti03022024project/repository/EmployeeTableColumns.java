@@ -0,0 +1,22 @@
+package ee.taltech.iti03022024project.repository;
+
+import ee.taltech.iti03022024project.entity.EmployeeEntity;
+import ee.taltech.iti03022024project.repository.specifications.EmployeeSpecifications;
+
+import java.time.LocalDateTime;
+
+/**
+ * Columns of the employee table, aliased with the field names of its table DTO. The certification names are
+ * aggregated, so the query has to be grouped by employee ID.
+ */
+public class EmployeeTableColumns {
+
+    public static final TableColumns<EmployeeEntity> EMPLOYEE = new TableColumns<EmployeeEntity>()
+            .add("employeeId", Integer.class, root -> root.get("employeeId"))
+            .add("employeeName", String.class, root -> root.get("name"))
+            .add("permissionDescription", String.class, EmployeeSpecifications::permissionDescription)
+            .add("certificationNames", String.class, EmployeeSpecifications::certificationNames)
+            .add("lastJobDate", LocalDateTime.class, root -> root.get("lastJobDate"));
+
+    private EmployeeTableColumns() {}
+}
@@ -1,10 +1,25 @@
 package ee.taltech.iti03022024project.repository;
 
+import ee.taltech.iti03022024project.dto.JobDto;
 import ee.taltech.iti03022024project.entity.JobEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.stream.Stream;
+
 @Repository
 public interface JobRepository extends JpaRepository<JobEntity, Integer>, JpaSpecificationExecutor<JobEntity> {
+    // Read through a server side cursor 500 rows at a time, so the stream has to be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+    SELECT new ee.taltech.iti03022024project.dto.JobDto(j.jobId, j.vehicle.vehicleId, j.employee.employeeId, j.order.orderId,
+            j.pickupDate, j.dropOffDate, j.isComplete)
+        FROM JobEntity j
+""")
+    Stream<JobDto> streamAll();
 }
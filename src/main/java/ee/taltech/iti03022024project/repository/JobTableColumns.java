@@ -0,0 +1,63 @@
+package ee.taltech.iti03022024project.repository;
+
+import ee.taltech.iti03022024project.entity.JobEntity;
+import ee.taltech.iti03022024project.repository.specifications.SpecificationJoins;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Root;
+
+import java.time.LocalDateTime;
+
+/**
+ * Columns of the done and not done job tables, aliased with the field names of their table DTOs.
+ */
+public class JobTableColumns {
+    private static final String JOB_ID = "jobId";
+    private static final String VEHICLE_ID = "vehicleId";
+    private static final String REGISTRATION_PLATE = "registrationPlate";
+    private static final String ORDER_ID = "orderId";
+    private static final String CUSTOMER_NAME = "customerName";
+    private static final String PICKUP_DATE = "pickupDate";
+    private static final String DROP_OFF_DATE = "dropOffDate";
+    private static final String IS_COMPLETE = "isComplete";
+
+    public static final TableColumns<JobEntity> DONE_JOB = new TableColumns<JobEntity>()
+            .add(JOB_ID, Integer.class, root -> root.get(JOB_ID))
+            .add(VEHICLE_ID, Integer.class, root -> vehicle(root).get(VEHICLE_ID))
+            .add(REGISTRATION_PLATE, String.class, root -> vehicle(root).get(REGISTRATION_PLATE))
+            .add("fuelUsed", Double.class, root -> fuelConsumption(root).get("fuelUsed"))
+            .add("distanceDriven", Double.class, root -> fuelConsumption(root).get("distanceDriven"))
+            .add(ORDER_ID, Integer.class, root -> order(root).get(ORDER_ID))
+            .add(CUSTOMER_NAME, String.class, root -> customer(root).get("name"))
+            .add(PICKUP_DATE, LocalDateTime.class, root -> root.get(PICKUP_DATE))
+            .add(DROP_OFF_DATE, LocalDateTime.class, root -> root.get(DROP_OFF_DATE))
+            .add(IS_COMPLETE, Boolean.class, root -> root.get(IS_COMPLETE));
+
+    // Not done jobs show the planned dates of the order
+    public static final TableColumns<JobEntity> NOT_DONE_JOB = new TableColumns<JobEntity>()
+            .add(JOB_ID, Integer.class, root -> root.get(JOB_ID))
+            .add(VEHICLE_ID, Integer.class, root -> vehicle(root).get(VEHICLE_ID))
+            .add(REGISTRATION_PLATE, String.class, root -> vehicle(root).get(REGISTRATION_PLATE))
+            .add(ORDER_ID, Integer.class, root -> order(root).get(ORDER_ID))
+            .add(CUSTOMER_NAME, String.class, root -> customer(root).get("name"))
+            .add(PICKUP_DATE, LocalDateTime.class, root -> order(root).get(PICKUP_DATE))
+            .add(DROP_OFF_DATE, LocalDateTime.class, root -> order(root).get(DROP_OFF_DATE))
+            .add(IS_COMPLETE, Boolean.class, root -> root.get(IS_COMPLETE));
+
+    private JobTableColumns() {}
+
+    private static From<?, ?> vehicle(Root<JobEntity> root) {
+        return SpecificationJoins.leftJoin(root, "vehicle");
+    }
+
+    private static From<?, ?> fuelConsumption(Root<JobEntity> root) {
+        return SpecificationJoins.leftJoin(root, "fuelConsumption");
+    }
+
+    private static From<?, ?> order(Root<JobEntity> root) {
+        return SpecificationJoins.leftJoin(root, "order");
+    }
+
+    private static From<?, ?> customer(Root<JobEntity> root) {
+        return SpecificationJoins.leftJoin(order(root), "customer");
+    }
+}
@@ -0,0 +1,84 @@
+package ee.taltech.iti03022024project.repository;
+
+import ee.taltech.iti03022024project.dto.OrderDto;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.List;
+
+@RequiredArgsConstructor
+@Repository
+public class OrderCopyRepository {
+
+    private static final String COPY_ORDERS = """
+            COPY orders (order_id, customer_id, pickup_date, drop_off_date, weight, width, height, length, order_details)
+            FROM STDIN WITH (FORMAT csv)""";
+    private static final int FLUSH_SIZE = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PooledIdRepository pooledIdRepository;
+
+    /**
+     * Writes the orders into the orders table with one COPY on the connection of the current transaction. The
+     * connection can't run other statements until the COPY ends, so the orders must be read in full beforehand.
+     * Order IDs are taken from orders_seq in pooled blocks.
+     */
+    public long copyOrders(List<OrderDto> orders) {
+        if (orders.isEmpty()) {
+            return 0;
+        }
+        int[] orderIds = pooledIdRepository.nextIds("orders_seq", orders.size());
+        Long copied = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_ORDERS);
+            try {
+                StringBuilder buffer = new StringBuilder();
+                for (int i = 0; i < orders.size(); i++) {
+                    appendRow(buffer, orderIds[i], orders.get(i));
+                    if (buffer.length() >= FLUSH_SIZE) {
+                        write(copyIn, buffer);
+                    }
+                }
+                write(copyIn, buffer);
+                return copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        });
+        return copied != null ? copied : 0;
+    }
+
+    private static void write(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+        if (buffer.isEmpty()) return;
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+
+    // In COPY csv format an unquoted empty field is NULL, a quoted one is an empty string
+    private static void appendRow(StringBuilder buffer, int orderId, OrderDto order) {
+        buffer.append(orderId).append(',')
+                .append(order.getCustomerId()).append(',')
+                .append(order.getPickupDate()).append(',')
+                .append(order.getDropOffDate()).append(',');
+        appendNullable(buffer, order.getWeight()).append(',');
+        appendNullable(buffer, order.getWidth()).append(',');
+        appendNullable(buffer, order.getHeight()).append(',');
+        appendNullable(buffer, order.getLength()).append(',');
+        if (order.getOrderDetails() != null) {
+            buffer.append('"').append(order.getOrderDetails().replace("\"", "\"\"")).append('"');
+        }
+        buffer.append('\n');
+    }
+
+    private static StringBuilder appendNullable(StringBuilder buffer, Integer value) {
+        return value != null ? buffer.append(value) : buffer;
+    }
+}
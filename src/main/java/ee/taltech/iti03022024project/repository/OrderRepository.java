@@ -1,12 +1,20 @@
 package ee.taltech.iti03022024project.repository;
 
+import ee.taltech.iti03022024project.dto.OrderDto;
 import ee.taltech.iti03022024project.dto.OrderNameIdDto;
 import ee.taltech.iti03022024project.entity.OrderEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends JpaRepository<OrderEntity, Integer>, JpaSpecificationExecutor<OrderEntity> {
@@ -22,4 +30,16 @@ public interface OrderRepository extends JpaRepository<OrderEntity, Integer>, Jp
         WHERE j.order.orderId IS NULL
 """)
     List<OrderNameIdDto> getOrdersWithoutJob();
+
+    @Query("SELECT o.orderId FROM OrderEntity o WHERE o.orderId IN :orderIds")
+    Set<Integer> findExistingIds(@Param("orderIds") Collection<Integer> orderIds);
+
+    // Read through a server side cursor 500 rows at a time, so the stream has to be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+    SELECT new ee.taltech.iti03022024project.dto.OrderDto(o.orderId, o.customer.customerId, o.pickupDate, o.dropOffDate,
+            o.weight, o.width, o.height, o.length, o.orderDetails)
+        FROM OrderEntity o
+""")
+    Stream<OrderDto> streamAll();
 }
@@ -0,0 +1,25 @@
+package ee.taltech.iti03022024project.repository;
+
+import ee.taltech.iti03022024project.entity.OrderEntity;
+import ee.taltech.iti03022024project.repository.specifications.SpecificationJoins;
+
+import java.time.LocalDateTime;
+
+/**
+ * Columns of the orders table, aliased with the field names of its table DTO.
+ */
+public class OrderTableColumns {
+
+    public static final TableColumns<OrderEntity> ORDER = new TableColumns<OrderEntity>()
+            .add("orderId", Integer.class, root -> root.get("orderId"))
+            .add("customerName", String.class, root -> SpecificationJoins.leftJoin(root, "customer").get("name"))
+            .add("pickupDate", LocalDateTime.class, root -> root.get("pickupDate"))
+            .add("dropOffDate", LocalDateTime.class, root -> root.get("dropOffDate"))
+            .add("weight", Integer.class, root -> root.get("weight"))
+            .add("width", Integer.class, root -> root.get("width"))
+            .add("height", Integer.class, root -> root.get("height"))
+            .add("length", Integer.class, root -> root.get("length"))
+            .add("orderDetails", String.class, root -> root.get("orderDetails"));
+
+    private OrderTableColumns() {}
+}
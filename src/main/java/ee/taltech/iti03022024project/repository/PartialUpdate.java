@@ -0,0 +1,106 @@
+package ee.taltech.iti03022024project.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * An update of one row that sets only the columns given a value, run by {@link PartialUpdateRepository} as a single
+ * UPDATE ... RETURNING statement. Null values are left out, so a DTO with only the changed fields can be passed
+ * through as is.
+ * <p>
+ * The returned columns are read from the aliases {@code updated} for the row after the update and {@code previous}
+ * for the row before it. Constraint violations are turned into the exceptions registered for the constraint names.
+ * Table and column names are written into the statement and must never come from user input. Rows of an entity
+ * held in the second-level cache must name it with {@link #cachedAs(Class)}, the statement bypasses Hibernate.
+ */
+public class PartialUpdate {
+
+    private final String table;
+    private final String idColumn;
+    private final Object id;
+    private final Map<String, Object> changes = new LinkedHashMap<>();
+    private final Map<String, Supplier<? extends RuntimeException>> constraintErrors = new HashMap<>();
+    private String returning = "updated.*";
+    private Class<?> cachedEntity;
+
+    private PartialUpdate(String table, String idColumn, Object id) {
+        this.table = table;
+        this.idColumn = idColumn;
+        this.id = id;
+    }
+
+    public static PartialUpdate of(String table, String idColumn, Object id) {
+        return new PartialUpdate(table, idColumn, id);
+    }
+
+    public PartialUpdate set(String column, Object value) {
+        if (value != null) {
+            changes.put(column, value);
+        }
+        return this;
+    }
+
+    public PartialUpdate returning(String columns) {
+        this.returning = columns;
+        return this;
+    }
+
+    public PartialUpdate cachedAs(Class<?> entityClass) {
+        this.cachedEntity = entityClass;
+        return this;
+    }
+
+    public PartialUpdate onConstraint(String constraint, Supplier<? extends RuntimeException> error) {
+        constraintErrors.put(constraint, error);
+        return this;
+    }
+
+    public boolean hasChanges() {
+        return !changes.isEmpty();
+    }
+
+    public Map<String, Object> getChanges() {
+        return changes;
+    }
+
+    Class<?> getCachedEntity() {
+        return cachedEntity;
+    }
+
+    Object getId() {
+        return id;
+    }
+
+    // The previous row is locked before it is joined, so a concurrent update can't slip in between
+    String toSql() {
+        if (changes.isEmpty()) {
+            return "SELECT " + returning + " FROM " + table + " AS updated"
+                    + " JOIN " + table + " AS previous ON previous." + idColumn + " = updated." + idColumn
+                    + " WHERE updated." + idColumn + " = :id";
+        }
+        StringBuilder sql = new StringBuilder("UPDATE ").append(table).append(" AS updated SET ");
+        String separator = "";
+        for (String column : changes.keySet()) {
+            sql.append(separator).append(column).append(" = :").append(column);
+            separator = ", ";
+        }
+        return sql.append(" FROM (SELECT * FROM ").append(table).append(" WHERE ").append(idColumn)
+                .append(" = :id FOR UPDATE) AS previous")
+                .append(" WHERE updated.").append(idColumn).append(" = previous.").append(idColumn)
+                .append(" RETURNING ").append(returning)
+                .toString();
+    }
+
+    MapSqlParameterSource parameters() {
+        return new MapSqlParameterSource(changes).addValue("id", id);
+    }
+
+    public RuntimeException errorFor(String constraint) {
+        Supplier<? extends RuntimeException> error = constraintErrors.get(constraint);
+        return error != null ? error.get() : null;
+    }
+}
@@ -0,0 +1,67 @@
+package ee.taltech.iti03022024project.repository;
+
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.ServerErrorMessage;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+@Repository
+public class PartialUpdateRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Runs the update in one round trip and maps the returned row. Uniqueness and references are checked by the
+     * database's constraints instead of queries beforehand, a violated constraint is rethrown as the exception
+     * registered for it. An update without changes only reads the row.
+     *
+     * @return the mapped row, or empty if no row has the ID
+     */
+    public <T> Optional<T> update(PartialUpdate update, RowMapper<T> rowMapper) {
+        List<T> rows;
+        try {
+            rows = jdbcTemplate.query(update.toSql(), update.parameters(), rowMapper);
+        } catch (DataIntegrityViolationException e) {
+            RuntimeException error = update.errorFor(violatedConstraint(e));
+            throw error != null ? error : e;
+        }
+        if (update.getCachedEntity() != null && update.hasChanges() && !rows.isEmpty()) {
+            evict(update.getCachedEntity(), update.getId());
+        }
+        return rows.stream().findFirst();
+    }
+
+    // Evicted again when the transaction ends, another one could have cached the old row before this one committed
+    private void evict(Class<?> entityClass, Object id) {
+        Cache cache = entityManagerFactory.getCache();
+        cache.evict(entityClass, id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.evict(entityClass, id);
+                }
+            });
+        }
+    }
+
+    private static String violatedConstraint(DataIntegrityViolationException e) {
+        if (e.getMostSpecificCause() instanceof PSQLException psqlException) {
+            ServerErrorMessage message = psqlException.getServerErrorMessage();
+            return message != null ? message.getConstraint() : null;
+        }
+        return null;
+    }
+}
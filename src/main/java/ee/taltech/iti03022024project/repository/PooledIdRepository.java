@@ -0,0 +1,37 @@
+package ee.taltech.iti03022024project.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+@Repository
+public class PooledIdRepository {
+
+    // The allocationSize of the entities' sequence generators and the increment of their sequences
+    static final int ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * IDs for rows inserted past Hibernate, taken from the sequence in blocks of {@value #ALLOCATION_SIZE} the same
+     * way as its pooled-lo optimizer does: every value the sequence returns starts a block of its own. The column
+     * defaults call the sequence once per row and would throw away the rest of each block. The sequence name is
+     * written into the statement and must never come from user input.
+     */
+    public int[] nextIds(String sequence, int count) {
+        int[] ids = new int[count];
+        if (count == 0) {
+            return ids;
+        }
+        int blocks = (count + ALLOCATION_SIZE - 1) / ALLOCATION_SIZE;
+        List<Long> starts = jdbcTemplate.queryForList("SELECT nextval('" + sequence + "') FROM generate_series(1, ?)",
+                Long.class, blocks);
+        for (int i = 0; i < count; i++) {
+            ids[i] = Math.toIntExact(starts.get(i / ALLOCATION_SIZE) + i % ALLOCATION_SIZE);
+        }
+        return ids;
+    }
+}
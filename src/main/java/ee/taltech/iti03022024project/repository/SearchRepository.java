@@ -0,0 +1,125 @@
+package ee.taltech.iti03022024project.repository;
+
+import ee.taltech.iti03022024project.dto.SearchHitDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+@Repository
+public class SearchRepository {
+
+    // Orders and jobs reached from each customer, vehicle, order and employee hit
+    static final int RELATED_PER_HIT = 10;
+
+    // Orders and jobs are also found through the customer, vehicle and employee they belong to. Every table's
+    // matches are read through its own GIN index and only the best :limit of them are kept. Orders and jobs are then
+    // reached from those top hits alone, the :related latest of each through the foreign key indexes, so a term
+    // matching a busy customer or driver ranks a bounded number of rows instead of their whole history
+    static final String SEARCH_QUERY = """
+            WITH q AS NOT MATERIALIZED (SELECT websearch_to_tsquery('simple', :term) AS query),
+            customer_hits AS (
+                SELECT c.customer_id, c.name, ts_rank(c.search_vector, q.query) AS rank
+                FROM customer c, q
+                WHERE c.search_vector @@ q.query
+                ORDER BY rank DESC, c.customer_id
+                LIMIT :limit
+            ),
+            vehicle_hits AS (
+                SELECT v.vehicle_id, v.registration_plate, ts_rank(v.search_vector, q.query) AS rank
+                FROM vehicle v, q
+                WHERE v.search_vector @@ q.query
+                ORDER BY rank DESC, v.vehicle_id
+                LIMIT :limit
+            ),
+            employee_hits AS (
+                SELECT e.employee_id, e.name, ts_rank(e.search_vector, q.query) AS rank
+                FROM employee e, q
+                WHERE e.search_vector @@ q.query
+                ORDER BY rank DESC, e.employee_id
+                LIMIT :limit
+            ),
+            order_hits AS (
+                SELECT o.order_id, c.name, ts_rank(o.search_vector || c.search_vector, q.query) AS rank
+                FROM (
+                    (SELECT o.order_id
+                     FROM orders o, q
+                     WHERE o.search_vector @@ q.query
+                     ORDER BY ts_rank(o.search_vector, q.query) DESC, o.order_id
+                     LIMIT :limit)
+                    UNION
+                    SELECT related.order_id
+                    FROM customer_hits h
+                    CROSS JOIN LATERAL (SELECT order_id FROM orders WHERE customer_id = h.customer_id
+                                        ORDER BY drop_off_date DESC LIMIT :related) related
+                ) candidates
+                JOIN orders o ON o.order_id = candidates.order_id
+                JOIN customer c ON c.customer_id = o.customer_id, q
+                ORDER BY rank DESC, o.order_id
+                LIMIT :limit
+            ),
+            job_hits AS (
+                SELECT j.job_id, v.registration_plate || ' / ' || c.name AS title,
+                       ts_rank(v.search_vector || o.search_vector || c.search_vector || e.search_vector, q.query) AS rank
+                FROM (
+                    SELECT related.job_id
+                    FROM vehicle_hits h
+                    CROSS JOIN LATERAL (SELECT job_id FROM job WHERE vehicle_id = h.vehicle_id
+                                        ORDER BY drop_off_date DESC LIMIT :related) related
+                    UNION
+                    SELECT related.job_id
+                    FROM order_hits h
+                    CROSS JOIN LATERAL (SELECT job_id FROM job WHERE order_id = h.order_id
+                                        ORDER BY drop_off_date DESC LIMIT :related) related
+                    UNION
+                    SELECT related.job_id
+                    FROM employee_hits h
+                    CROSS JOIN LATERAL (SELECT job_id FROM job WHERE employee_id = h.employee_id
+                                        ORDER BY drop_off_date DESC LIMIT :related) related
+                ) candidates
+                JOIN job j ON j.job_id = candidates.job_id
+                JOIN vehicle v ON v.vehicle_id = j.vehicle_id
+                JOIN orders o ON o.order_id = j.order_id
+                JOIN customer c ON c.customer_id = o.customer_id
+                JOIN employee e ON e.employee_id = j.employee_id, q
+                ORDER BY rank DESC, j.job_id
+                LIMIT :limit
+            )
+            SELECT type, id, title, rank
+            FROM (
+                SELECT 'CUSTOMER' AS type, customer_id AS id, name AS title, rank FROM customer_hits
+                UNION ALL
+                SELECT 'ORDER', order_id, name, rank FROM order_hits
+                UNION ALL
+                SELECT 'VEHICLE', vehicle_id, registration_plate, rank FROM vehicle_hits
+                UNION ALL
+                SELECT 'EMPLOYEE', employee_id, name, rank FROM employee_hits
+                UNION ALL
+                SELECT 'JOB', job_id, title, rank FROM job_hits
+            ) hits
+            ORDER BY rank DESC, type, id
+            LIMIT :limit
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Searches customers, orders, vehicles, employees and jobs with one statement, best matches first. Orders and
+     * jobs found through a customer, vehicle, order or employee are its {@value #RELATED_PER_HIT} latest ones.
+     */
+    public List<SearchHitDto> search(String term, int limit) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("term", term)
+                .addValue("limit", limit)
+                .addValue("related", RELATED_PER_HIT);
+        return jdbcTemplate.query(SEARCH_QUERY, parameters, (rs, rowNum) -> new SearchHitDto(
+                rs.getString("type"),
+                rs.getInt("id"),
+                rs.getString("title"),
+                rs.getFloat("rank")
+        ));
+    }
+}
@@ -0,0 +1,76 @@
+package ee.taltech.iti03022024project.repository;
+
+import ee.taltech.iti03022024project.exception.WrongValueException;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * The columns of a table search, keyed and aliased with the field names of its table DTO. A column adds the joins
+ * it reads from only when it is selected, so a search for some of the fields doesn't join the tables of the others.
+ * Columns that aren't selected are read as null literals, the tuples keep every alias and map the same way.
+ */
+public class TableColumns<T> {
+
+    private record Column<T>(Class<?> type, BiFunction<Root<T>, CriteriaBuilder, Expression<?>> expression) {}
+
+    private final Map<String, Column<T>> columns = new LinkedHashMap<>();
+
+    public TableColumns<T> add(String field, Class<?> type, Function<Root<T>, Expression<?>> expression) {
+        return add(field, type, (root, cb) -> expression.apply(root));
+    }
+
+    public TableColumns<T> add(String field, Class<?> type, BiFunction<Root<T>, CriteriaBuilder, Expression<?>> expression) {
+        columns.put(field, new Column<>(type, expression));
+        return this;
+    }
+
+    public Set<String> fields() {
+        return Collections.unmodifiableSet(columns.keySet());
+    }
+
+    /**
+     * Checks the requested fields against the columns.
+     *
+     * @return the requested fields, or all of them when none are requested
+     */
+    public Set<String> resolve(Collection<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return fields();
+        }
+        Set<String> resolved = new LinkedHashSet<>();
+        for (String field : fields) {
+            if (!columns.containsKey(field)) {
+                throw new WrongValueException("Unknown field " + field + ", expected some of " + String.join(", ", columns.keySet()) + ".");
+            }
+            resolved.add(field);
+        }
+        return resolved;
+    }
+
+    public BiFunction<Root<T>, CriteriaBuilder, List<Selection<?>>> select(Set<String> fields) {
+        return (root, cb) -> {
+            List<Selection<?>> selections = new ArrayList<>(columns.size());
+            columns.forEach((field, column) -> selections.add(fields.contains(field)
+                    ? column.expression().apply(root, cb).alias(field)
+                    : cb.nullLiteral(column.type()).alias(field)));
+            return selections;
+        };
+    }
+
+    public BiFunction<Root<T>, CriteriaBuilder, List<Selection<?>>> selectAll() {
+        return select(columns.keySet());
+    }
+}
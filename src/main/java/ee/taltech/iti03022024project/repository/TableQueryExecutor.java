@@ -0,0 +1,153 @@
+package ee.taltech.iti03022024project.repository;
+
+import ee.taltech.iti03022024project.repository.specifications.SpecificationJoins;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+
+@Repository
+public class TableQueryExecutor {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Runs only the page query of a specification search, without the count query that
+     * {@code findAll(spec, pageable)} adds. One extra row is read to know whether a next slice exists.
+     * Orderings applied by the specification itself are kept when the pageable is unsorted.
+     */
+    public <T> Slice<T> findSlice(Class<T> domainClass, Specification<T> spec, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(domainClass);
+        Root<T> root = query.from(domainClass);
+        query.select(root);
+
+        applySpecification(spec, root, query, cb);
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+        }
+
+        return readSlice(entityManager.createQuery(query), pageable);
+    }
+
+    /**
+     * Same as {@link #findSlice}, but selects only the given columns instead of whole entities, so the slice
+     * is read with one statement. Sort properties are resolved over the left joins of the selected columns.
+     */
+    public <T> Slice<Tuple> findTupleSlice(Class<T> domainClass, Specification<T> spec,
+                                           BiFunction<Root<T>, CriteriaBuilder, List<Selection<?>>> columns, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(domainClass);
+        query.multiselect(columns.apply(root, cb));
+
+        applySpecification(spec, root, query, cb);
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(toOrders(pageable.getSort(), root, cb));
+        }
+
+        return readSlice(entityManager.createQuery(query), pageable);
+    }
+
+    /**
+     * Same as {@link #findTupleSlice}, but streams every matching row through a forward-only cursor that reads
+     * {@code fetchSize} rows per round trip. The stream must be consumed and closed inside a transaction, the
+     * PostgreSQL driver reads the whole result at once in auto-commit mode.
+     */
+    public <T> Stream<Tuple> streamTuples(Class<T> domainClass, Specification<T> spec,
+                                          BiFunction<Root<T>, CriteriaBuilder, List<Selection<?>>> columns, Sort sort, int fetchSize) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(domainClass);
+        query.multiselect(columns.apply(root, cb));
+
+        applySpecification(spec, root, query, cb);
+        if (sort.isSorted()) {
+            query.orderBy(toOrders(sort, root, cb));
+        }
+
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    /**
+     * Same as {@link #findTupleSlice}, for tables that aggregate over a to-many association. Rows are grouped by
+     * the given id attribute, so the columns may use aggregate functions over the joins they create.
+     */
+    public <T> Slice<Tuple> findGroupedTupleSlice(Class<T> domainClass, Specification<T> spec,
+                                                  BiFunction<Root<T>, CriteriaBuilder, List<Selection<?>>> columns,
+                                                  String groupBy, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(domainClass);
+        query.multiselect(columns.apply(root, cb));
+        query.groupBy(root.get(groupBy));
+
+        applySpecification(spec, root, query, cb);
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(toOrders(pageable.getSort(), root, cb));
+        }
+
+        return readSlice(entityManager.createQuery(query), pageable);
+    }
+
+    private static <T> void applySpecification(Specification<T> spec, Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+    }
+
+    private static List<Order> toOrders(Sort sort, Root<?> root, CriteriaBuilder cb) {
+        List<Order> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            String[] properties = order.getProperty().split("\\.");
+            From<?, ?> from = root;
+            for (int i = 0; i < properties.length - 1; i++) {
+                from = SpecificationJoins.leftJoin(from, properties[i]);
+            }
+            Expression<?> path = from.get(properties[properties.length - 1]);
+            orders.add(order.isAscending() ? cb.asc(path) : cb.desc(path));
+        }
+        return orders;
+    }
+
+    private static <R> Slice<R> readSlice(TypedQuery<R> typedQuery, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(typedQuery.getResultList(), pageable, false);
+        }
+
+        typedQuery.setFirstResult((int) pageable.getOffset());
+        typedQuery.setMaxResults(pageable.getPageSize() + 1);
+        List<R> content = typedQuery.getResultList();
+
+        boolean hasNext = content.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+}
@@ -1,12 +1,77 @@
 package ee.taltech.iti03022024project.repository;
 
+import ee.taltech.iti03022024project.dto.VehicleDto;
+import ee.taltech.iti03022024project.dto.VehiclePlateDto;
 import ee.taltech.iti03022024project.entity.VehicleEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
 @Repository
 public interface VehicleRepository extends JpaRepository<VehicleEntity, Integer>, JpaSpecificationExecutor<VehicleEntity> {
     boolean existsByRegistrationPlate(String registrationPlate);
+
+    @Query("""
+    SELECT new ee.taltech.iti03022024project.dto.VehiclePlateDto(v.vehicleId, v.registrationPlate)
+        FROM VehicleEntity v
+""")
+    List<VehiclePlateDto> findAllPlates();
+
+    @Query("SELECT v.vehicleId FROM VehicleEntity v WHERE v.vehicleId IN :vehicleIds")
+    Set<Integer> findExistingIds(@Param("vehicleIds") Collection<Integer> vehicleIds);
+
+    @Query("""
+    SELECT new ee.taltech.iti03022024project.dto.VehiclePlateDto(v.vehicleId, v.registrationPlate)
+        FROM VehicleEntity v
+        WHERE v.registrationPlate IN :registrationPlates
+""")
+    List<VehiclePlateDto> findPlatesIn(@Param("registrationPlates") Collection<String> registrationPlates);
+
+    // Null values leave the column unchanged
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+    UPDATE VehicleEntity v
+        SET v.vehicleType = COALESCE(:vehicleType, v.vehicleType),
+            v.isInUse = COALESCE(:isInUse, v.isInUse),
+            v.maxLoad = COALESCE(:maxLoad, v.maxLoad),
+            v.currentFuel = COALESCE(:currentFuel, v.currentFuel),
+            v.registrationPlate = COALESCE(:registrationPlate, v.registrationPlate)
+        WHERE v.vehicleId IN :vehicleIds
+""")
+    int updateAll(@Param("vehicleIds") Collection<Integer> vehicleIds,
+                  @Param("vehicleType") Character vehicleType,
+                  @Param("isInUse") Boolean isInUse,
+                  @Param("maxLoad") Integer maxLoad,
+                  @Param("currentFuel") Integer currentFuel,
+                  @Param("registrationPlate") String registrationPlate);
+
+    @Query("""
+    SELECT new ee.taltech.iti03022024project.dto.VehicleDto(v.vehicleId, v.vehicleType, v.isInUse, v.maxLoad,
+            v.currentFuel, v.registrationPlate)
+        FROM VehicleEntity v
+        WHERE v.vehicleId IN :vehicleIds
+        ORDER BY v.vehicleId
+""")
+    List<VehicleDto> findDtosByIds(@Param("vehicleIds") Collection<Integer> vehicleIds);
+
+    // Read through a server side cursor 500 rows at a time, so the stream has to be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+    SELECT new ee.taltech.iti03022024project.dto.VehicleDto(v.vehicleId, v.vehicleType, v.isInUse, v.maxLoad,
+            v.currentFuel, v.registrationPlate)
+        FROM VehicleEntity v
+""")
+    Stream<VehicleDto> streamAll();
 }
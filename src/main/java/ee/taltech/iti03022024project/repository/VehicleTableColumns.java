@@ -0,0 +1,20 @@
+package ee.taltech.iti03022024project.repository;
+
+import ee.taltech.iti03022024project.entity.VehicleEntity;
+
+/**
+ * Columns of the vehicle table, aliased with the field names of its table DTO. All of them are stored on the
+ * vehicle row.
+ */
+public class VehicleTableColumns {
+
+    public static final TableColumns<VehicleEntity> VEHICLE = new TableColumns<VehicleEntity>()
+            .add("vehicleId", Integer.class, root -> root.get("vehicleId"))
+            .add("vehicleType", Character.class, root -> root.get("vehicleType"))
+            .add("isInUse", Boolean.class, root -> root.get("isInUse"))
+            .add("maxLoad", Integer.class, root -> root.get("maxLoad"))
+            .add("currentFuel", Integer.class, root -> root.get("currentFuel"))
+            .add("registrationPlate", String.class, root -> root.get("registrationPlate"));
+
+    private VehicleTableColumns() {}
+}
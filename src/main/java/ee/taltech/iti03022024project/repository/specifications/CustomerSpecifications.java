@@ -1,9 +1,6 @@
 package ee.taltech.iti03022024project.repository.specifications;
 
 import ee.taltech.iti03022024project.entity.CustomerEntity;
-import ee.taltech.iti03022024project.entity.OrderEntity;
-import jakarta.persistence.criteria.Root;
-import jakarta.persistence.criteria.Subquery;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 
@@ -14,6 +11,7 @@ public class CustomerSpecifications {
     private CustomerSpecifications() {}
 
     private static final String CUSTOMER_ID = "customerId";
+    private static final String LAST_ORDER_DATE = "lastOrderDate";
 
     public static Specification<CustomerEntity> customerId(Integer customerId) {
         return (root, query, cb) -> customerId == null ? null : cb.equal(root.get(CUSTOMER_ID), customerId);
@@ -61,19 +59,12 @@ public class CustomerSpecifications {
 
     public static Specification<CustomerEntity> lastOrderDateBetween(LocalDateTime start, LocalDateTime end) {
         return (root, query, cb) -> {
-            assert query != null;
-            Subquery<LocalDateTime> subquery = query.subquery(LocalDateTime.class);
-            Root<OrderEntity> orderRoot = subquery.from(OrderEntity.class);
-
-            subquery.select(cb.greatest(orderRoot.<LocalDateTime>get("dropOffDate")))
-                    .where(cb.equal(orderRoot.get("customer").get(CUSTOMER_ID), root.get(CUSTOMER_ID)));
-
             if (start != null && end != null) {
-                return cb.between(subquery, start, end);
+                return cb.between(root.get(LAST_ORDER_DATE), start, end);
             } else if (start != null) {
-                return cb.greaterThanOrEqualTo(subquery, start);
+                return cb.greaterThanOrEqualTo(root.get(LAST_ORDER_DATE), start);
             } else if (end != null) {
-                return cb.lessThanOrEqualTo(subquery, end);
+                return cb.lessThanOrEqualTo(root.get(LAST_ORDER_DATE), end);
             } else {
                 return null;
             }
@@ -83,16 +74,10 @@ public class CustomerSpecifications {
     public static Specification<CustomerEntity> sortByLastOrderDate(Sort.Direction direction) {
         return (root, query, cb) -> {
             assert query != null;
-            Subquery<LocalDateTime> subquery = query.subquery(LocalDateTime.class);
-            Root<OrderEntity> orderRoot = subquery.from(OrderEntity.class);
-
-            subquery.select(cb.greatest(orderRoot.<LocalDateTime>get("dropOffDate")))
-                    .where(cb.equal(orderRoot.get("customer").get(CUSTOMER_ID), root.get(CUSTOMER_ID)));
-
             if (direction == Sort.Direction.DESC) {
-                query.orderBy(cb.desc(subquery));
+                query.orderBy(cb.desc(root.get(LAST_ORDER_DATE)));
             } else {
-                query.orderBy(cb.asc(subquery));
+                query.orderBy(cb.asc(root.get(LAST_ORDER_DATE)));
             }
 
             return null;
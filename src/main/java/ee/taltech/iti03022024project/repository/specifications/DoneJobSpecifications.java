@@ -4,6 +4,7 @@ import ee.taltech.iti03022024project.entity.JobEntity;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 
 public class DoneJobSpecifications {
     private static final String PICKUP_DATE = "pickupDate";
@@ -25,10 +26,15 @@ public class DoneJobSpecifications {
     public static Specification<JobEntity> registrationPlateLike(String registrationPlate) {
         return (root, query, cb) -> {
             if (registrationPlate == null || registrationPlate.isEmpty()) return null;
-            return cb.like(cb.lower(root.get("vehicle").get("registrationPlate")), "%" + registrationPlate.toLowerCase() + "%");
+            return cb.like(cb.lower(SpecificationJoins.leftJoin(root, "vehicle").get("registrationPlate")), "%" + registrationPlate.toLowerCase() + "%");
         };
     }
 
+    // Plate filter resolved by RegistrationPlateIndex
+    public static Specification<JobEntity> vehicleIdIn(Collection<Integer> vehicleIds) {
+        return (root, query, cb) -> vehicleIds.isEmpty() ? cb.disjunction() : root.get("vehicle").get("vehicleId").in(vehicleIds);
+    }
+
     public static Specification<JobEntity> orderId(Integer orderId) {
         return (root, query, cb) -> orderId == null ? null : cb.equal(root.get("order").get("orderId"), orderId);
     }
@@ -36,7 +42,7 @@ public class DoneJobSpecifications {
     public static Specification<JobEntity> customerNameLike(String customerName) {
         return (root, query, cb) -> {
             if (customerName == null || customerName.isEmpty()) return null;
-            return cb.like(cb.lower(root.get("order").get("customer").get("name")), "%" + customerName.toLowerCase() + "%");
+            return cb.like(cb.lower(SpecificationJoins.leftJoin(SpecificationJoins.leftJoin(root, "order"), "customer").get("name")), "%" + customerName.toLowerCase() + "%");
         };
     }
 
@@ -70,11 +76,11 @@ public class DoneJobSpecifications {
         return (root, query, cb) -> {
             if (minFuelUsed == null && maxFuelUsed == null) return null;
             if (minFuelUsed != null && maxFuelUsed != null) {
-                return cb.between(root.join(FUEL_CONSUMPTION).get(FUEL_USED), minFuelUsed, maxFuelUsed);
+                return cb.between(SpecificationJoins.leftJoin(root, FUEL_CONSUMPTION).get(FUEL_USED), minFuelUsed, maxFuelUsed);
             } else if (minFuelUsed != null) {
-                return cb.greaterThanOrEqualTo(root.join(FUEL_CONSUMPTION).get(FUEL_USED), minFuelUsed);
+                return cb.greaterThanOrEqualTo(SpecificationJoins.leftJoin(root, FUEL_CONSUMPTION).get(FUEL_USED), minFuelUsed);
             } else {
-                return cb.lessThanOrEqualTo(root.join(FUEL_CONSUMPTION).get(FUEL_USED), maxFuelUsed);
+                return cb.lessThanOrEqualTo(SpecificationJoins.leftJoin(root, FUEL_CONSUMPTION).get(FUEL_USED), maxFuelUsed);
             }
         };
     }
@@ -83,11 +89,11 @@ public class DoneJobSpecifications {
         return (root, query, cb) -> {
             if (minDistanceDriven == null && maxDistanceDriven == null) return null;
             if (minDistanceDriven != null && maxDistanceDriven != null) {
-                return cb.between(root.join(FUEL_CONSUMPTION).get(DISTANCE_DRIVEN), minDistanceDriven, maxDistanceDriven);
+                return cb.between(SpecificationJoins.leftJoin(root, FUEL_CONSUMPTION).get(DISTANCE_DRIVEN), minDistanceDriven, maxDistanceDriven);
             } else if (minDistanceDriven != null) {
-                return cb.greaterThanOrEqualTo(root.join(FUEL_CONSUMPTION).get(DISTANCE_DRIVEN), minDistanceDriven);
+                return cb.greaterThanOrEqualTo(SpecificationJoins.leftJoin(root, FUEL_CONSUMPTION).get(DISTANCE_DRIVEN), minDistanceDriven);
             } else {
-                return cb.lessThanOrEqualTo(root.join(FUEL_CONSUMPTION).get(DISTANCE_DRIVEN), maxDistanceDriven);
+                return cb.lessThanOrEqualTo(SpecificationJoins.leftJoin(root, FUEL_CONSUMPTION).get(DISTANCE_DRIVEN), maxDistanceDriven);
             }
         };
     }
@@ -1,7 +1,9 @@
 package ee.taltech.iti03022024project.repository.specifications;
 
 import ee.taltech.iti03022024project.entity.*;
+import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.From;
 import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.Root;
 import jakarta.persistence.criteria.Subquery;
@@ -12,8 +14,10 @@ import java.time.LocalDateTime;
 
 public class EmployeeSpecifications {
 
-    private static final String DESCRIPTION = "description";
+    private static final String CERTIFICATION_TYPE = "certificationType";
+    private static final String CERTIFICATION_NAME = "certificationName";
     private static final String EMPLOYEE = "employee";
+    private static final String LAST_JOB_DATE = "lastJobDate";
 
     private EmployeeSpecifications() {}
 
@@ -31,19 +35,17 @@ public class EmployeeSpecifications {
     public static Specification<EmployeeEntity> permissionDescription(String permissionDescription) {
         return (root, query, cb) -> {
             if (permissionDescription == null || permissionDescription.isEmpty()) return null;
-            return cb.like(cb.lower(root.join("permission").get(DESCRIPTION)), "%" + permissionDescription.toLowerCase() + "%");
+            return cb.like(cb.lower(permissionDescription(root, cb)), "%" + permissionDescription.toLowerCase() + "%");
         };
     }
 
     public static Specification<EmployeeEntity> sortByPermissionDescription(Sort.Direction direction) {
         return (root, query, cb) -> {
-            var permissionJoin = root.join("permission");
-
             assert query != null;
             if (direction == Sort.Direction.DESC) {
-                query.orderBy(cb.desc(permissionJoin.get(DESCRIPTION)));
+                query.orderBy(cb.desc(permissionDescription(root, cb)));
             } else {
-                query.orderBy(cb.asc(permissionJoin.get(DESCRIPTION)));
+                query.orderBy(cb.asc(permissionDescription(root, cb)));
             }
             return null;
         };
@@ -53,52 +55,56 @@ public class EmployeeSpecifications {
         return (root, query, cb) -> {
             if (certificationNames == null || certificationNames.isEmpty()) return null;
 
-            Join<EmployeeEntity, CertificationEntity> certificationJoin = root.join("certifications");
-            Join<CertificationEntity, CertificationTypeEntity> certificationTypeJoin = certificationJoin.join("certificationType");
+            assert query != null;
+            Subquery<Integer> subquery = query.subquery(Integer.class);
+            Root<CertificationEntity> certificationRoot = subquery.from(CertificationEntity.class);
+            Join<CertificationEntity, CertificationTypeEntity> certificationTypeJoin = certificationRoot.join(CERTIFICATION_TYPE);
 
-            return cb.like(cb.lower(certificationTypeJoin.get("certificationName")), "%" + certificationNames.toLowerCase() + "%");
+            subquery.select(certificationRoot.get("certificationId"))
+                    .where(cb.equal(certificationRoot.get(EMPLOYEE), root),
+                            cb.like(cb.lower(certificationTypeJoin.get(CERTIFICATION_NAME)), "%" + certificationNames.toLowerCase() + "%"));
+            return cb.exists(subquery);
         };
     }
 
+    /**
+     * Orders by the aggregated certification names, only usable in the grouped employee table query.
+     */
     public static Specification<EmployeeEntity> sortByCertificationNames(Sort.Direction direction) {
         return (root, query, cb) -> {
             assert query != null;
-            Subquery<String> subquery = query.subquery(String.class);
-            Root<CertificationEntity> certificationRoot = subquery.from(CertificationEntity.class);
-
-            Expression<String> concatenatedCertifications = cb.function(
-                    "STRING_AGG", String.class,
-                    certificationRoot.join("certificationType").get("certificationName"),
-                    cb.literal(", ")
-            );
-
-            subquery.select(concatenatedCertifications)
-                    .where(cb.equal(certificationRoot.get(EMPLOYEE), root));
-
             if (direction == Sort.Direction.DESC) {
-                query.orderBy(cb.desc(subquery));
+                query.orderBy(cb.desc(certificationNames(root, cb)));
             } else {
-                query.orderBy(cb.asc(subquery));
+                query.orderBy(cb.asc(certificationNames(root, cb)));
             }
             return null;
         };
     }
 
-    public static Specification<EmployeeEntity> lastJobDateBetween(LocalDateTime startDate, LocalDateTime endDate) {
-        return (root, query, cb) -> {
-            assert query != null;
-            Subquery<LocalDateTime> subquery = query.subquery(LocalDateTime.class);
-            Root<JobEntity> jobRoot = subquery.from(JobEntity.class);
+    // Description of the permission shown in the employee table
+    public static Expression<String> permissionDescription(Root<EmployeeEntity> root, CriteriaBuilder cb) {
+        return cb.<Integer, String>selectCase(root.<Integer>get("permissionId"))
+                .when(1, "ADMIN")
+                .when(2, "USER")
+                .when(3, "DRIVER")
+                .otherwise("UNKNOWN");
+    }
 
-            subquery.select(cb.greatest(jobRoot.<LocalDateTime>get("dropOffDate")))
-                    .where(cb.equal(jobRoot.get(EMPLOYEE), root));
+    // Comma separated certification names of the employee, rows have to be grouped by employee
+    public static Expression<String> certificationNames(Root<EmployeeEntity> root, CriteriaBuilder cb) {
+        From<?, ?> certificationTypeJoin = SpecificationJoins.leftJoin(SpecificationJoins.leftJoin(root, "certifications"), CERTIFICATION_TYPE);
+        return cb.function("STRING_AGG", String.class, certificationTypeJoin.get(CERTIFICATION_NAME), cb.literal(", "));
+    }
 
+    public static Specification<EmployeeEntity> lastJobDateBetween(LocalDateTime startDate, LocalDateTime endDate) {
+        return (root, query, cb) -> {
             if (startDate != null && endDate != null) {
-                return cb.between(subquery, startDate, endDate);
+                return cb.between(root.get(LAST_JOB_DATE), startDate, endDate);
             } else if (startDate != null) {
-                return cb.greaterThanOrEqualTo(subquery, startDate);
+                return cb.greaterThanOrEqualTo(root.get(LAST_JOB_DATE), startDate);
             } else if (endDate != null) {
-                return cb.lessThanOrEqualTo(subquery, endDate);
+                return cb.lessThanOrEqualTo(root.get(LAST_JOB_DATE), endDate);
             } else {
                 return null;
             }
@@ -108,16 +114,10 @@ public class EmployeeSpecifications {
     public static Specification<EmployeeEntity> sortByLastJobDate(Sort.Direction direction) {
         return (root, query, cb) -> {
             assert query != null;
-            Subquery<LocalDateTime> subquery = query.subquery(LocalDateTime.class);
-            Root<JobEntity> jobRoot = subquery.from(JobEntity.class);
-
-            subquery.select(cb.greatest(jobRoot.<LocalDateTime>get("dropOffDate")))
-                    .where(cb.equal(jobRoot.get(EMPLOYEE), root));
-
             if (direction == Sort.Direction.DESC) {
-                query.orderBy(cb.desc(subquery));
+                query.orderBy(cb.desc(root.get(LAST_JOB_DATE)));
             } else {
-                query.orderBy(cb.asc(subquery));
+                query.orderBy(cb.asc(root.get(LAST_JOB_DATE)));
             }
             return null;
         };
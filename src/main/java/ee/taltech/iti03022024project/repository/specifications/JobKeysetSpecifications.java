@@ -0,0 +1,106 @@
+package ee.taltech.iti03022024project.repository.specifications;
+
+import ee.taltech.iti03022024project.entity.JobEntity;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Set;
+import java.util.function.Function;
+
+public class JobKeysetSpecifications {
+    private static final String JOB_ID = "jobId";
+    private static final String VEHICLE = "vehicle";
+    private static final String ORDER = "order";
+    private static final String FUEL_CONSUMPTION = "fuelConsumption";
+    private static final String PICKUP_DATE = "pickupDate";
+    private static final String DROP_OFF_DATE = "dropOffDate";
+
+    // Sort keys backed by NOT NULL columns, these don't need the null branches in the seek predicate
+    private static final Set<String> NOT_NULL_KEYS = Set.of(JOB_ID, "vehicleId", "orderId");
+
+    private JobKeysetSpecifications() {}
+
+    public static boolean supportsDoneJobSort(String sortBy) {
+        return doneJobSortKey(sortBy) != null;
+    }
+
+    public static boolean supportsNotDoneJobSort(String sortBy) {
+        return notDoneJobSortKey(sortBy) != null;
+    }
+
+    /**
+     * Orders done jobs by the given table column and job ID, and continues after the last row of the previous slice.
+     * A null lastJobId means the first slice.
+     */
+    public static Specification<JobEntity> doneJobSeek(String sortBy, Sort.Direction direction, Object lastValue, Integer lastJobId) {
+        return seek(doneJobSortKey(sortBy), !NOT_NULL_KEYS.contains(sortBy), direction, lastValue, lastJobId);
+    }
+
+    /**
+     * Orders not done jobs by the given table column and job ID, and continues after the last row of the previous slice.
+     * A null lastJobId means the first slice.
+     */
+    public static Specification<JobEntity> notDoneJobSeek(String sortBy, Sort.Direction direction, Object lastValue, Integer lastJobId) {
+        return seek(notDoneJobSortKey(sortBy), !NOT_NULL_KEYS.contains(sortBy), direction, lastValue, lastJobId);
+    }
+
+    private static Function<Root<JobEntity>, Expression<?>> doneJobSortKey(String sortBy) {
+        return switch (sortBy) {
+            case JOB_ID -> root -> root.get(JOB_ID);
+            case "vehicleId" -> root -> root.get(VEHICLE).get("vehicleId");
+            case "registrationPlate" -> root -> SpecificationJoins.leftJoin(root, VEHICLE).get("registrationPlate");
+            case "fuelUsed" -> root -> SpecificationJoins.leftJoin(root, FUEL_CONSUMPTION).get("fuelUsed");
+            case "distanceDriven" -> root -> SpecificationJoins.leftJoin(root, FUEL_CONSUMPTION).get("distanceDriven");
+            case "orderId" -> root -> root.get(ORDER).get("orderId");
+            case "customerName" -> root -> SpecificationJoins.leftJoin(SpecificationJoins.leftJoin(root, ORDER), "customer").get("name");
+            case PICKUP_DATE -> root -> root.get(PICKUP_DATE);
+            case DROP_OFF_DATE -> root -> root.get(DROP_OFF_DATE);
+            default -> null;
+        };
+    }
+
+    private static Function<Root<JobEntity>, Expression<?>> notDoneJobSortKey(String sortBy) {
+        return switch (sortBy) {
+            case JOB_ID -> root -> root.get(JOB_ID);
+            case "vehicleId" -> root -> root.get(VEHICLE).get("vehicleId");
+            case "registrationPlate" -> root -> SpecificationJoins.leftJoin(root, VEHICLE).get("registrationPlate");
+            case "orderId" -> root -> root.get(ORDER).get("orderId");
+            case "customerName" -> root -> SpecificationJoins.leftJoin(SpecificationJoins.leftJoin(root, ORDER), "customer").get("name");
+            case PICKUP_DATE -> root -> SpecificationJoins.leftJoin(root, ORDER).get(PICKUP_DATE);
+            case DROP_OFF_DATE -> root -> SpecificationJoins.leftJoin(root, ORDER).get(DROP_OFF_DATE);
+            default -> null;
+        };
+    }
+
+    // Postgres puts nulls last when ascending and first when descending, the seek predicate follows the same order
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Specification<JobEntity> seek(Function<Root<JobEntity>, Expression<?>> sortKey, boolean nullable,
+                                                 Sort.Direction direction, Object lastValue, Integer lastJobId) {
+        return (root, query, cb) -> {
+            Expression key = sortKey.apply(root);
+            Path<Integer> jobId = root.get(JOB_ID);
+            boolean ascending = direction.isAscending();
+            query.orderBy(ascending ? cb.asc(key) : cb.desc(key), ascending ? cb.asc(jobId) : cb.desc(jobId));
+
+            if (lastJobId == null) return null;
+
+            Predicate afterJobId = ascending ? cb.greaterThan(jobId, lastJobId) : cb.lessThan(jobId, lastJobId);
+            if (lastValue == null) {
+                Predicate sameKey = cb.and(cb.isNull(key), afterJobId);
+                return ascending ? sameKey : cb.or(sameKey, cb.isNotNull(key));
+            }
+
+            Comparable value = (Comparable) lastValue;
+            Predicate afterKey = ascending ? cb.greaterThan(key, value) : cb.lessThan(key, value);
+            Predicate sameKey = cb.and(cb.equal(key, value), afterJobId);
+            if (ascending && nullable) {
+                return cb.or(afterKey, sameKey, cb.isNull(key));
+            }
+            return cb.or(afterKey, sameKey);
+        };
+    }
+}
@@ -4,6 +4,7 @@ import ee.taltech.iti03022024project.entity.JobEntity;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 
 public class NotDoneJobSpecifications {
 
@@ -24,10 +25,15 @@ public class NotDoneJobSpecifications {
     public static Specification<JobEntity> registrationPlateLike(String registrationPlate) {
         return (root, query, cb) -> {
             if (registrationPlate == null || registrationPlate.isEmpty()) return null;
-            return cb.like(cb.lower(root.get("vehicle").get("registrationPlate")), "%" + registrationPlate.toLowerCase() + "%");
+            return cb.like(cb.lower(SpecificationJoins.leftJoin(root, "vehicle").get("registrationPlate")), "%" + registrationPlate.toLowerCase() + "%");
         };
     }
 
+    // Plate filter resolved by RegistrationPlateIndex
+    public static Specification<JobEntity> vehicleIdIn(Collection<Integer> vehicleIds) {
+        return (root, query, cb) -> vehicleIds.isEmpty() ? cb.disjunction() : root.get("vehicle").get("vehicleId").in(vehicleIds);
+    }
+
     public static Specification<JobEntity> orderId(Integer orderId) {
         return (root, query, cb) -> orderId == null ? null : cb.equal(root.get(ORDER).get("orderId"), orderId);
     }
@@ -35,7 +41,7 @@ public class NotDoneJobSpecifications {
     public static Specification<JobEntity> customerNameLike(String customerName) {
         return (root, query, cb) -> {
             if (customerName == null || customerName.isEmpty()) return null;
-            return cb.like(cb.lower(root.get(ORDER).get("customer").get("name")), "%" + customerName.toLowerCase() + "%");
+            return cb.like(cb.lower(SpecificationJoins.leftJoin(SpecificationJoins.leftJoin(root, ORDER), "customer").get("name")), "%" + customerName.toLowerCase() + "%");
         };
     }
 
@@ -43,11 +49,11 @@ public class NotDoneJobSpecifications {
         return (root, query, cb) -> {
             if (start == null && end == null) return null;
             if (start != null && end != null) {
-                return cb.between(root.get(ORDER).get(PICK_UP_DATE), start, end);
+                return cb.between(SpecificationJoins.leftJoin(root, ORDER).get(PICK_UP_DATE), start, end);
             } else if (start != null) {
-                return cb.greaterThanOrEqualTo(root.get(ORDER).get(PICK_UP_DATE), start);
+                return cb.greaterThanOrEqualTo(SpecificationJoins.leftJoin(root, ORDER).get(PICK_UP_DATE), start);
             } else {
-                return cb.lessThanOrEqualTo(root.get(ORDER).get(PICK_UP_DATE), end);
+                return cb.lessThanOrEqualTo(SpecificationJoins.leftJoin(root, ORDER).get(PICK_UP_DATE), end);
             }
         };
     }
@@ -56,11 +62,11 @@ public class NotDoneJobSpecifications {
         return (root, query, cb) -> {
             if (start == null && end == null) return null;
             if (start != null && end != null) {
-                return cb.between(root.get(ORDER).get(DROP_OFF_DATE), start, end);
+                return cb.between(SpecificationJoins.leftJoin(root, ORDER).get(DROP_OFF_DATE), start, end);
             } else if (start != null) {
-                return cb.greaterThanOrEqualTo(root.get(ORDER).get(DROP_OFF_DATE), start);
+                return cb.greaterThanOrEqualTo(SpecificationJoins.leftJoin(root, ORDER).get(DROP_OFF_DATE), start);
             } else {
-                return cb.lessThanOrEqualTo(root.get(ORDER).get(DROP_OFF_DATE), end);
+                return cb.lessThanOrEqualTo(SpecificationJoins.leftJoin(root, ORDER).get(DROP_OFF_DATE), end);
             }
         };
     }
@@ -0,0 +1,24 @@
+package ee.taltech.iti03022024project.repository.specifications;
+
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+
+public class SpecificationJoins {
+
+    private SpecificationJoins() {}
+
+    /**
+     * Returns the left join of the attribute when the query already has one, otherwise adds it.
+     * Filters, sorting and selected columns share one join per association this way.
+     */
+    @SuppressWarnings("unchecked")
+    public static <X, Y> Join<X, Y> leftJoin(From<?, X> from, String attribute) {
+        for (Join<X, ?> join : from.getJoins()) {
+            if (join.getJoinType() == JoinType.LEFT && join.getAttribute().getName().equals(attribute)) {
+                return (Join<X, Y>) join;
+            }
+        }
+        return from.join(attribute, JoinType.LEFT);
+    }
+}
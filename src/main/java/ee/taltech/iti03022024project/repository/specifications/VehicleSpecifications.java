@@ -5,6 +5,8 @@ import jakarta.persistence.criteria.Expression;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.util.Collection;
+
 public class VehicleSpecifications {
 
     private static final String VEHICLE_TYPE = "vehicleType";
@@ -57,4 +59,9 @@ public class VehicleSpecifications {
             return cb.like(cb.lower(root.get(REGISTRATION_PLATE)), "%" + registrationPlate.toLowerCase() + "%");
         };
     }
+
+    // Plate filter resolved by RegistrationPlateIndex
+    public static Specification<VehicleEntity> vehicleIdIn(Collection<Integer> vehicleIds) {
+        return (root, query, cb) -> vehicleIds.isEmpty() ? cb.disjunction() : root.get("vehicleId").in(vehicleIds);
+    }
 }
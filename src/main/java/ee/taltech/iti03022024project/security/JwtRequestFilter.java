@@ -1,12 +1,12 @@
 package ee.taltech.iti03022024project.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -17,14 +17,33 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import javax.crypto.SecretKey;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Authenticates requests by their bearer token. A session sends the same token with every call, so the verified
+ * authentication is kept by the token's SHA-256 hash until the token expires, and only the first request of a token
+ * pays for the signature check and the claims parsing.
+ */
 @Component
-@RequiredArgsConstructor
 public class JwtRequestFilter extends OncePerRequestFilter {
 
-    private final SecretKey key;
+    private static final long MAX_AGE_MILLIS = 10 * 60 * 1000L;
+    private static final int MAX_ENTRIES = 10_000;
+
+    private final JwtParser parser;
+    private final Map<String, CachedAuthentication> authentications = new ConcurrentHashMap<>();
+
+    public JwtRequestFilter(SecretKey key) {
+        this.parser = Jwts.parser().verifyWith(key).build();
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -32,9 +51,8 @@ public class JwtRequestFilter extends OncePerRequestFilter {
                                     FilterChain chain) throws ServletException, IOException {
         Optional<String> token = getToken(request);
         if (token.isPresent()) {
-            Claims tokenBody = parseToken(token.get());
             SecurityContext context = SecurityContextHolder.getContext();
-            context.setAuthentication(buildAuthToken(tokenBody));
+            context.setAuthentication(authenticate(token.get()));
         }
 
         chain.doFilter(request, response);
@@ -46,12 +64,36 @@ public class JwtRequestFilter extends OncePerRequestFilter {
                 .map(header -> header.substring(7)); // "Bearer " is 7 chars
     }
 
+    private Authentication authenticate(String token) {
+        long now = System.currentTimeMillis();
+        String key = hash(token);
+        CachedAuthentication cached = authentications.get(key);
+        if (cached != null && cached.expiresAt > now) {
+            return cached.authentication;
+        }
+
+        // Invalid tokens throw here and are never cached
+        Claims tokenBody = parseToken(token);
+        Authentication authentication = buildAuthToken(tokenBody);
+
+        if (authentications.size() >= MAX_ENTRIES) {
+            authentications.values().removeIf(entry -> entry.expiresAt <= now);
+            if (authentications.size() >= MAX_ENTRIES) {
+                authentications.clear();
+            }
+        }
+        // Kept for a while at most, so the entries of long-lived tokens that are no longer used get evicted too
+        Date expiration = tokenBody.getExpiration();
+        long expiresAt = now + MAX_AGE_MILLIS;
+        if (expiration != null) {
+            expiresAt = Math.min(expiresAt, expiration.getTime());
+        }
+        authentications.put(key, new CachedAuthentication(authentication, expiresAt));
+        return authentication;
+    }
+
     private Claims parseToken(String token) {
-        return Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
     }
 
     private Authentication buildAuthToken(Claims tokenBody) {
@@ -71,4 +113,25 @@ public class JwtRequestFilter extends OncePerRequestFilter {
             default -> "USER";
         };
     }
+
+    // The tokens themselves are bearer credentials, only their hashes are kept
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class CachedAuthentication {
+        private final Authentication authentication;
+        private final long expiresAt;
+
+        private CachedAuthentication(Authentication authentication, long expiresAt) {
+            this.authentication = authentication;
+            this.expiresAt = expiresAt;
+        }
+    }
 }
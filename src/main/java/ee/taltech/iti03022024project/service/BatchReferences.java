@@ -0,0 +1,27 @@
+package ee.taltech.iti03022024project.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Reference checks of the batch endpoints, which look up every referenced row of a batch with one query.
+ */
+final class BatchReferences {
+
+    private BatchReferences() {}
+
+    // The referenced IDs of the items that exist, missing items and references are skipped
+    static <T> Set<Integer> existingIds(List<T> items, Function<T, Integer> reference,
+                                        Function<Collection<Integer>, Set<Integer>> findExistingIds) {
+        Set<Integer> ids = items.stream()
+                .filter(Objects::nonNull)
+                .map(reference)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        return ids.isEmpty() ? Set.of() : findExistingIds.apply(ids);
+    }
+}
@@ -1,22 +1,35 @@
 package ee.taltech.iti03022024project.service;
 
 import ee.taltech.iti03022024project.dto.CertificationDto;
+import ee.taltech.iti03022024project.dto.CertificationImportResultDto;
+import ee.taltech.iti03022024project.dto.searchcriteria.StreamFormat;
 import ee.taltech.iti03022024project.entity.CertificationEntity;
 import ee.taltech.iti03022024project.entity.CertificationTypeEntity;
 import ee.taltech.iti03022024project.entity.EmployeeEntity;
 import ee.taltech.iti03022024project.exception.AlreadyExistsException;
 import ee.taltech.iti03022024project.exception.NotFoundException;
+import ee.taltech.iti03022024project.exception.WrongValueException;
 import ee.taltech.iti03022024project.mapping.CertificationMapping;
 import ee.taltech.iti03022024project.repository.CertificationRepository;
 import ee.taltech.iti03022024project.repository.CertificationTypeRepository;
+import ee.taltech.iti03022024project.repository.CertificationUpsertRepository;
 import ee.taltech.iti03022024project.repository.EmployeeRepository;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
-
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @RequiredArgsConstructor
 @Service
@@ -26,9 +39,14 @@ public class CertificationService {
     private final CertificationTypeRepository certificationTypeRepository;
     private final EmployeeRepository employeeRepository;
     private final CertificationMapping certificationMapping;
+    private final JsonStreamWriter jsonStreamWriter;
+    private final CertificationUpsertRepository certificationUpsertRepository;
+    private final TableVersions tableVersions;
 
     private static final Logger log = LoggerFactory.getLogger(CertificationService.class);
     private static final String DOES_NOT_EXIST = " does not exist.";
+    private static final int MAX_BATCH_SIZE = 10_000;
+    private static final int MAX_REPORTED_ERRORS = 100;
 
     public CertificationDto createCertification(CertificationDto certificationDto) {
         log.info("Creating certification for employee with ID: {}", certificationDto.getEmployeeId());
@@ -45,11 +63,77 @@ public class CertificationService {
 
         CertificationEntity certificationEntity = certificationMapping.certificationToEntity(certificationDto);
         CertificationEntity savedCertification = certificationRepository.save(certificationEntity);
+        tableVersions.changed(CertificationEntity.class);
 
         log.info("Certification created successfully for employee with ID: {}", certificationDto.getEmployeeId());
         return certificationMapping.certificationToDto(savedCertification);
     }
 
+    /**
+     * Adds or renews many certifications at once. Employees and certification types are checked with one query
+     * each and the existing certifications of all pairs are read with one join, then new and renewed rows are
+     * written with batched upserts. Invalid certifications are left out and reported, the rest are still saved.
+     * When a pair is in the request more than once, the certification that expires last is used.
+     */
+    @Transactional
+    public CertificationImportResultDto importCertifications(List<CertificationDto> certificationDtos) {
+        if (certificationDtos == null || certificationDtos.isEmpty() || certificationDtos.size() > MAX_BATCH_SIZE) {
+            throw new WrongValueException("A certification batch must contain 1 to " + MAX_BATCH_SIZE + " certifications.");
+        }
+
+        Set<Integer> employeeIds = BatchReferences.existingIds(certificationDtos, CertificationDto::getEmployeeId,
+                employeeRepository::findExistingIds);
+        Set<Integer> certificationTypeIds = BatchReferences.existingIds(certificationDtos, CertificationDto::getCertificationTypeId,
+                certificationTypeRepository::findExistingIds);
+
+        List<String> errors = new ArrayList<>();
+        long rejected = 0;
+        Map<List<Integer>, CertificationDto> latestByPair = new LinkedHashMap<>();
+        for (int i = 0; i < certificationDtos.size(); i++) {
+            CertificationDto certificationDto = certificationDtos.get(i);
+            String error = invalidCertification(certificationDto, employeeIds, certificationTypeIds);
+            if (error != null) {
+                rejected++;
+                if (errors.size() < MAX_REPORTED_ERRORS) {
+                    errors.add("Certification " + i + ": " + error);
+                }
+                continue;
+            }
+            latestByPair.merge(pair(certificationDto), certificationDto,
+                    (kept, other) -> other.getExpiryDate().isAfter(kept.getExpiryDate()) ? other : kept);
+        }
+
+        Map<List<Integer>, LocalDate> existingExpiryDates = new HashMap<>();
+        if (!latestByPair.isEmpty()) {
+            for (CertificationDto existing : certificationUpsertRepository.findExisting(latestByPair.values())) {
+                existingExpiryDates.put(pair(existing), existing.getExpiryDate());
+            }
+        }
+
+        List<CertificationDto> changed = new ArrayList<>();
+        long created = 0;
+        long renewed = 0;
+        for (CertificationDto certificationDto : latestByPair.values()) {
+            LocalDate existingExpiryDate = existingExpiryDates.get(pair(certificationDto));
+            if (existingExpiryDate == null) {
+                created++;
+            } else if (existingExpiryDate.isBefore(certificationDto.getExpiryDate())) {
+                renewed++;
+            } else {
+                continue;
+            }
+            changed.add(certificationDto);
+        }
+        if (!changed.isEmpty()) {
+            certificationUpsertRepository.upsert(changed);
+            tableVersions.changed(CertificationEntity.class);
+        }
+
+        long unchanged = certificationDtos.size() - rejected - created - renewed;
+        log.info("Imported certifications: {} created, {} renewed, {} unchanged, {} rejected.", created, renewed, unchanged, rejected);
+        return new CertificationImportResultDto(created, renewed, unchanged, rejected, errors);
+    }
+
     public List<CertificationDto> getAllCertifications() {
         log.info("Fetching all certifications.");
 
@@ -59,6 +143,13 @@ public class CertificationService {
         return certificationMapping.certificationListToDtoList(certifications);
     }
 
+    @Transactional(readOnly = true)
+    public long streamAllCertifications(StreamFormat format, OutputStream outputStream) throws IOException {
+        long count = jsonStreamWriter.write(certificationRepository.streamAll(), format, outputStream);
+        log.info("Streamed {} certifications.", count);
+        return count;
+    }
+
     public Optional<CertificationDto> getCertificationById(Integer id) {
         log.info("Fetching certification with ID: {}", id);
 
@@ -78,6 +169,11 @@ public class CertificationService {
         if (certificationDto.getCertificationTypeId() != null) {
             CertificationTypeEntity certificationType = certificationTypeRepository.findById(certificationDto.getCertificationTypeId())
                     .orElseThrow(() -> new NotFoundException("Certification type with ID " + certificationDto.getCertificationTypeId() + DOES_NOT_EXIST));
+            // An employee has one certification per type
+            if (!certificationType.getCertificationTypeId().equals(certificationEntity.getCertificationType().getCertificationTypeId())
+                    && certificationRepository.existsByEmployeeAndCertificationType(certificationEntity.getEmployee(), certificationType)) {
+                throw new AlreadyExistsException("Certification for this employee with the same type already exists.");
+            }
             certificationEntity.setCertificationType(certificationType);
         }
 
@@ -90,8 +186,26 @@ public class CertificationService {
         }
 
         CertificationEntity updatedCertification = certificationRepository.save(certificationEntity);
+        tableVersions.changed(CertificationEntity.class);
 
         log.info("Certification with ID {} updated successfully.", certificationDto.getCertificationId());
         return Optional.of(certificationMapping.certificationToDto(updatedCertification));
     }
+
+    private static List<Integer> pair(CertificationDto certificationDto) {
+        return List.of(certificationDto.getEmployeeId(), certificationDto.getCertificationTypeId());
+    }
+
+    private static String invalidCertification(CertificationDto certificationDto, Set<Integer> employeeIds, Set<Integer> certificationTypeIds) {
+        if (certificationDto == null) return "Certification is missing.";
+        if (certificationDto.getEmployeeId() == null) return "Employee ID is required.";
+        if (certificationDto.getCertificationTypeId() == null) return "Certification type ID is required.";
+        if (certificationDto.getIssuedDate() == null || certificationDto.getExpiryDate() == null) return "Issued and expiry dates are required.";
+        if (certificationDto.getExpiryDate().isBefore(certificationDto.getIssuedDate())) return "Expiry date is before issued date.";
+        if (!employeeIds.contains(certificationDto.getEmployeeId())) return "Employee with ID " + certificationDto.getEmployeeId() + DOES_NOT_EXIST;
+        if (!certificationTypeIds.contains(certificationDto.getCertificationTypeId())) {
+            return "Certification type with ID " + certificationDto.getCertificationTypeId() + DOES_NOT_EXIST;
+        }
+        return null;
+    }
 }
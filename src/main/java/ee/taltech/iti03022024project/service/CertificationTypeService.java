@@ -6,19 +6,20 @@ import ee.taltech.iti03022024project.dto.searchcriteria.CertificationTypeSearchC
 import ee.taltech.iti03022024project.entity.CertificationTypeEntity;
 import ee.taltech.iti03022024project.exception.AlreadyExistsException;
 import ee.taltech.iti03022024project.exception.NotFoundException;
+import ee.taltech.iti03022024project.exception.WrongValueException;
 import ee.taltech.iti03022024project.mapping.CertificationTypeMapping;
 import ee.taltech.iti03022024project.repository.CertificationTypeRepository;
-import ee.taltech.iti03022024project.repository.specifications.CertificationTypeSpecifications;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,6 +29,8 @@ public class CertificationTypeService {
 
     private final CertificationTypeRepository certificationTypeRepository;
     private final CertificationTypeMapping certificationTypeMapping;
+    private final ReferenceDataCache referenceDataCache;
+    private final TableVersions tableVersions;
 
     private static final Logger log = LoggerFactory.getLogger(CertificationTypeService.class);
 
@@ -40,6 +43,8 @@ public class CertificationTypeService {
 
         CertificationTypeEntity certificationTypeEntity = new CertificationTypeEntity(null, certificationTypeDto.getCertificationName());
         CertificationTypeEntity savedCertificationTypeEntity = certificationTypeRepository.save(certificationTypeEntity);
+        referenceDataCache.putCertificationType(savedCertificationTypeEntity.getCertificationTypeId(), savedCertificationTypeEntity.getCertificationName());
+        tableVersions.changed(CertificationTypeEntity.class);
 
         log.info("Certification type created successfully with name: {}", certificationTypeDto.getCertificationName());
         return certificationTypeMapping.certificationTypeToDto(savedCertificationTypeEntity);
@@ -48,7 +53,9 @@ public class CertificationTypeService {
     public List<CertificationTypeDto> getAllCertificationTypes() {
         log.info("Fetching all certification types.");
 
-        List<CertificationTypeDto> certificationTypeDtos = certificationTypeMapping.certificationTypeListToDtoList(certificationTypeRepository.findAll());
+        List<CertificationTypeDto> certificationTypeDtos = referenceDataCache.certificationTypes().entrySet().stream()
+                .map(certificationType -> new CertificationTypeDto(certificationType.getKey(), certificationType.getValue()))
+                .toList();
 
         log.info("Fetched {} certification types.", certificationTypeDtos.size());
         return certificationTypeDtos;
@@ -57,13 +64,13 @@ public class CertificationTypeService {
     public Optional<CertificationTypeDto> getCertificationTypeById(Integer id) {
         log.info("Fetching certification type with ID: {}", id);
 
-        Optional<CertificationTypeEntity> certificationTypeEntity = certificationTypeRepository.findById(id);
-        if (certificationTypeEntity.isEmpty()) {
+        String certificationName = referenceDataCache.certificationTypes().get(id);
+        if (certificationName == null) {
             throw new NotFoundException("CertificationType with ID " + id + " not found.");
         }
 
         log.info("Fetched certification type with ID: {}", id);
-        return certificationTypeEntity.map(certificationTypeMapping::certificationTypeToDto);
+        return Optional.of(new CertificationTypeDto(id, certificationName));
     }
 
     public Optional<CertificationTypeDto> updateCertificationType(CertificationTypeDto certificationTypeDto) {
@@ -85,11 +92,16 @@ public class CertificationTypeService {
 
 
         CertificationTypeEntity updatedCertificationType = certificationTypeRepository.save(certificationTypeEntity);
+        referenceDataCache.putCertificationType(updatedCertificationType.getCertificationTypeId(), updatedCertificationType.getCertificationName());
+        tableVersions.changed(CertificationTypeEntity.class);
 
         log.info("Certification type with ID {} updated successfully.", certificationTypeDto.getCertificationTypeId());
         return Optional.of(certificationTypeMapping.certificationTypeToDto(updatedCertificationType));
     }
 
+    /**
+     * Filters, sorts and pages the cached certification types, the same way the specifications did in the database.
+     */
     public PageResponse<CertificationTypeDto> searchCertificationTypes(CertificationTypeSearchCriteria criteria) {
         log.info("Searching certification types with criteria: {}", criteria);
 
@@ -101,16 +113,28 @@ public class CertificationTypeService {
         Sort sort = Sort.by(Sort.Direction.valueOf(direction), sortBy);
         Pageable pageable = PageRequest.of(pageNumber, pageSize, sort);
 
-        Specification<CertificationTypeEntity> spec = Specification
-                .where(CertificationTypeSpecifications.certificationTypeId(criteria.getCertificationTypeId()))
-                .and(CertificationTypeSpecifications.certificationNameLike(criteria.getCertificationName()));
-
-        Page<CertificationTypeEntity> certificationTypePage = certificationTypeRepository.findAll(spec, pageable);
+        Comparator<CertificationTypeDto> comparator = switch (sortBy) {
+            case "certificationTypeId" -> Comparator.comparing(CertificationTypeDto::getCertificationTypeId);
+            case "certificationName" -> Comparator.comparing(CertificationTypeDto::getCertificationName, String.CASE_INSENSITIVE_ORDER)
+                    .thenComparing(CertificationTypeDto::getCertificationTypeId);
+            default -> throw new WrongValueException("Certification types can't be sorted by " + sortBy + ".");
+        };
+        if (sort.getOrderFor(sortBy).isDescending()) {
+            comparator = comparator.reversed();
+        }
 
-        Page<CertificationTypeDto> dtoPage = certificationTypePage.map(certificationType -> new CertificationTypeDto(
-                certificationType.getCertificationTypeId(),
-                certificationType.getCertificationName()
-        ));
+        String nameFragment = criteria.getCertificationName() != null ? criteria.getCertificationName().toLowerCase() : "";
+        List<CertificationTypeDto> matches = referenceDataCache.certificationTypes().entrySet().stream()
+                .filter(certificationType -> criteria.getCertificationTypeId() == null
+                        || criteria.getCertificationTypeId().equals(certificationType.getKey()))
+                .filter(certificationType -> certificationType.getValue().toLowerCase().contains(nameFragment))
+                .map(certificationType -> new CertificationTypeDto(certificationType.getKey(), certificationType.getValue()))
+                .sorted(comparator)
+                .toList();
+
+        int from = (int) Math.min(pageable.getOffset(), matches.size());
+        int to = Math.min(from + pageSize, matches.size());
+        Page<CertificationTypeDto> dtoPage = new PageImpl<>(matches.subList(from, to), pageable, matches.size());
 
         log.info("Search completed. Found {} certification types.", dtoPage.getTotalElements());
         return new PageResponse<>(dtoPage);
@@ -0,0 +1,69 @@
+package ee.taltech.iti03022024project.service;
+
+import ee.taltech.iti03022024project.dto.searchcriteria.TableSearchCriteria;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Approximate row counts for table searches. Unfiltered searches read the planner statistics of the table,
+ * filtered ones reuse an exact count of the same filters for a few seconds.
+ */
+@RequiredArgsConstructor
+@Component
+public class CountEstimator {
+
+    private static final long TTL_MILLIS = 30_000;
+    private static final int MAX_ENTRIES = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<List<Object>, CachedCount> counts = new ConcurrentHashMap<>();
+
+    private static final Logger log = LoggerFactory.getLogger(CountEstimator.class);
+
+    public long estimate(String table, TableSearchCriteria criteria, boolean unfiltered, LongSupplier exactCount) {
+        if (unfiltered) {
+            Long reltuples = jdbcTemplate.queryForObject(
+                    "SELECT reltuples::bigint FROM pg_class WHERE oid = to_regclass(?)", Long.class, table);
+            // -1 means the table has not been analyzed yet
+            if (reltuples != null && reltuples >= 0) {
+                return reltuples;
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        List<Object> key = List.of(table, criteria);
+        CachedCount cached = counts.get(key);
+        if (cached != null && cached.expiresAt > now) {
+            return cached.count;
+        }
+
+        if (counts.size() >= MAX_ENTRIES) {
+            counts.values().removeIf(entry -> entry.expiresAt <= now);
+            if (counts.size() >= MAX_ENTRIES) {
+                counts.clear();
+            }
+        }
+        long count = exactCount.getAsLong();
+        counts.put(key, new CachedCount(count, now + TTL_MILLIS));
+        log.debug("Cached count {} for {} with criteria {}", count, table, criteria);
+        return count;
+    }
+
+    private static class CachedCount {
+        private final long count;
+        private final long expiresAt;
+
+        private CachedCount(long count, long expiresAt) {
+            this.count = count;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package ee.taltech.iti03022024project.service;
+
+/**
+ * Values of the CSV exports, written as RFC 4180 describes.
+ */
+final class CsvValues {
+
+    private CsvValues() {}
+
+    // Empty for null, quoted when the value contains a separator, quote or line break
+    static String of(Object value) {
+        if (value == null) return "";
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -3,25 +3,38 @@ package ee.taltech.iti03022024project.service;
 import ee.taltech.iti03022024project.dto.CustomerDto;
 import ee.taltech.iti03022024project.dto.PageResponse;
 import ee.taltech.iti03022024project.dto.query.CustomerTableInfoDto;
+import ee.taltech.iti03022024project.dto.searchcriteria.CountMode;
 import ee.taltech.iti03022024project.dto.searchcriteria.CustomerSearchCriteria;
+import ee.taltech.iti03022024project.dto.searchcriteria.StreamFormat;
 import ee.taltech.iti03022024project.entity.CustomerEntity;
 import ee.taltech.iti03022024project.exception.AlreadyExistsException;
 import ee.taltech.iti03022024project.exception.NotFoundException;
 import ee.taltech.iti03022024project.mapping.CustomerMapping;
 import ee.taltech.iti03022024project.repository.CustomerRepository;
+import ee.taltech.iti03022024project.repository.CustomerTableColumns;
+import ee.taltech.iti03022024project.repository.PartialUpdate;
+import ee.taltech.iti03022024project.repository.PartialUpdateRepository;
+import ee.taltech.iti03022024project.repository.TableQueryExecutor;
 import ee.taltech.iti03022024project.repository.specifications.CustomerSpecifications;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @RequiredArgsConstructor
 @Service
@@ -29,6 +42,18 @@ public class CustomerService {
 
     private final CustomerRepository customerRepository;
     private final CustomerMapping customerMapping;
+    private final TableQueryExecutor tableQueryExecutor;
+    private final CountEstimator countEstimator;
+    private final JsonStreamWriter jsonStreamWriter;
+    private final PartialUpdateRepository partialUpdateRepository;
+    private final TableResultCache tableResultCache;
+    private final TableVersions tableVersions;
+
+    private static final String CUSTOMER_NAME_CONSTRAINT = "uq_customer_name_lower";
+    private static final String CUSTOMER_COLUMNS =
+            "updated.customer_id, updated.name, updated.address, updated.city_county, updated.zip, updated.email, "
+                    + "updated.phone_number, updated.vat_no";
+    private static final RowMapper<CustomerDto> CUSTOMER_ROW_MAPPER = BeanPropertyRowMapper.newInstance(CustomerDto.class);
 
     private static final Logger log = LoggerFactory.getLogger(CustomerService.class);
 
@@ -40,6 +65,7 @@ public class CustomerService {
         }
         CustomerEntity customerEntity = customerMapping.customerToEntity(customerDto);
         CustomerEntity savedCustomer = customerRepository.save(customerEntity);
+        tableVersions.changed(CustomerEntity.class);
 
         log.info("Customer created successfully with name: {}", customerDto.getName());
         return customerMapping.customerToDto(savedCustomer);
@@ -55,6 +81,13 @@ public class CustomerService {
         return customerDtos;
     }
 
+    @Transactional(readOnly = true)
+    public long streamAllCustomers(StreamFormat format, OutputStream outputStream) throws IOException {
+        long count = jsonStreamWriter.write(customerRepository.streamAll(), format, outputStream);
+        log.info("Streamed {} customers.", count);
+        return count;
+    }
+
     public Optional<CustomerDto> getCustomerById(Integer id) {
         log.info("Fetching customer with ID: {}", id);
 
@@ -68,44 +101,32 @@ public class CustomerService {
     public Optional<CustomerDto> updateCustomer(CustomerDto customerDto) {
         log.info("Attempting to update customer with ID: {}", customerDto.getCustomerId());
 
-        CustomerEntity customerEntity = customerRepository.findById(customerDto.getCustomerId())
+        PartialUpdate update = PartialUpdate.of("customer", "customer_id", customerDto.getCustomerId())
+                .set("name", customerDto.getName())
+                .set("address", customerDto.getAddress())
+                .set("city_county", customerDto.getCityCounty())
+                .set("zip", customerDto.getZip())
+                .set("email", customerDto.getEmail())
+                .set("phone_number", customerDto.getPhoneNumber())
+                .set("vat_no", customerDto.getVatNo())
+                .returning(CUSTOMER_COLUMNS)
+                .cachedAs(CustomerEntity.class)
+                .onConstraint(CUSTOMER_NAME_CONSTRAINT,
+                        () -> new AlreadyExistsException("Customer with name " + customerDto.getName() + " already exists."));
+
+        CustomerDto updatedCustomer = partialUpdateRepository.update(update, CUSTOMER_ROW_MAPPER)
                 .orElseThrow(() -> new NotFoundException("Customer with ID " + customerDto.getCustomerId() + " does not exist."));
-
-        Optional<CustomerDto> customerOpt = getCustomerById(customerDto.getCustomerId());
-
-        if (customerDto.getName() != null && customerOpt.isPresent() && !customerDto.getName().equals(customerOpt.get().getName())) {
-            if (!customerRepository.existsByNameIgnoreCase(customerDto.getName())) {
-                customerEntity.setName(customerDto.getName());
-            } else {
-                throw new AlreadyExistsException("Customer with name " + customerDto.getName() + " already exists.");
-            }
-        }
-        if (customerDto.getAddress() != null) {
-            customerEntity.setAddress(customerDto.getAddress());
-        }
-        if (customerDto.getCityCounty() != null) {
-            customerEntity.setCityCounty(customerDto.getCityCounty());
-        }
-        if (customerDto.getZip() != null) {
-            customerEntity.setZip(customerDto.getZip());
-        }
-        if (customerDto.getEmail() != null) {
-            customerEntity.setEmail(customerDto.getEmail());
-        }
-        if (customerDto.getPhoneNumber() != null) {
-            customerEntity.setPhoneNumber(customerDto.getPhoneNumber());
-        }
-        if (customerDto.getVatNo() != null) {
-            customerEntity.setVatNo(customerDto.getVatNo());
-        }
-
-        CustomerEntity updatedCustomer = customerRepository.save(customerEntity);
+        tableVersions.changed(CustomerEntity.class);
 
         log.info("Customer with ID {} updated successfully.", customerDto.getCustomerId());
-        return Optional.of(customerMapping.customerToDto(updatedCustomer));
+        return Optional.of(updatedCustomer);
     }
 
     public PageResponse<CustomerTableInfoDto> searchCustomerTable(CustomerSearchCriteria criteria) {
+        return tableResultCache.get("customer", criteria, () -> readCustomerTable(criteria), CustomerEntity.class);
+    }
+
+    private PageResponse<CustomerTableInfoDto> readCustomerTable(CustomerSearchCriteria criteria) {
         log.info("Searching customers with criteria: {}", criteria);
 
         int page = criteria.getPage() != null ? criteria.getPage() : 0;
@@ -118,7 +139,7 @@ public class CustomerService {
                 ? Sort.Direction.DESC
                 : Sort.Direction.ASC;
 
-        Specification<CustomerEntity> spec = Specification.where(
+        Specification<CustomerEntity> filters = Specification.where(
                 CustomerSpecifications.customerId(criteria.getCustomerId())
                         .and(CustomerSpecifications.customerNameLike(criteria.getCustomerName()))
                         .and(CustomerSpecifications.addressLike(criteria.getAddress()))
@@ -130,6 +151,7 @@ public class CustomerService {
                         .and(CustomerSpecifications.lastOrderDateBetween(criteria.getLastOrderStartDate(), criteria.getLastOrderEndDate()))
         );
 
+        Specification<CustomerEntity> spec = filters;
         Pageable pageable;
         if ("lastOrderDate".equals(criteria.getSortBy())) {
             spec = spec.and(CustomerSpecifications.sortByLastOrderDate(direction));
@@ -138,10 +160,20 @@ public class CustomerService {
             pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
         }
 
-        Page<CustomerEntity> customerEntities = customerRepository.findAll(spec, pageable);
-        Page<CustomerTableInfoDto> customerDtos = customerMapping.customerPageToDtoPage(customerEntities, pageable);
-
-        log.info("Fetched {} customers based on search criteria.", customerDtos.getTotalElements());
-        return new PageResponse<>(customerDtos);
+        Set<String> fields = CustomerTableColumns.CUSTOMER.resolve(criteria.getFields());
+        Slice<CustomerTableInfoDto> slice = tableQueryExecutor.findTupleSlice(CustomerEntity.class, spec,
+                        CustomerTableColumns.CUSTOMER.select(fields), pageable)
+                .map(customerMapping::tupleToTableInfoDto);
+        log.info("Fetched {} customers based on search criteria.", slice.getNumberOfElements());
+
+        CountMode countMode = criteria.getCountMode() != null ? criteria.getCountMode() : CountMode.EXACT;
+        return switch (countMode) {
+            case NONE -> new PageResponse<>(slice);
+            case ESTIMATE -> new PageResponse<>(slice, countEstimator.estimate("customer", criteria,
+                    criteria.equals(new CustomerSearchCriteria()), () -> customerRepository.count(filters)));
+            // Counts only when the slice doesn't already tell where the last page ends
+            case EXACT -> new PageResponse<>(PageableExecutionUtils.getPage(slice.getContent(), pageable,
+                    () -> customerRepository.count(filters)));
+        };
     }
 }
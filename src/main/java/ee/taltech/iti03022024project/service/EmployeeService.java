@@ -6,22 +6,33 @@ import ee.taltech.iti03022024project.dto.employee.EmployeeDto;
 import ee.taltech.iti03022024project.dto.employee.LoginRequestDto;
 import ee.taltech.iti03022024project.dto.employee.LoginResponseDto;
 import ee.taltech.iti03022024project.dto.query.EmployeeTableInfoDto;
+import ee.taltech.iti03022024project.dto.searchcriteria.CountMode;
 import ee.taltech.iti03022024project.dto.searchcriteria.EmployeeSearchCriteria;
+import ee.taltech.iti03022024project.entity.CertificationEntity;
+import ee.taltech.iti03022024project.entity.CertificationTypeEntity;
 import ee.taltech.iti03022024project.entity.EmployeeEntity;
+import ee.taltech.iti03022024project.entity.PermissionEntity;
 import ee.taltech.iti03022024project.exception.*;
 import ee.taltech.iti03022024project.mapping.EmployeeMapping;
 import ee.taltech.iti03022024project.repository.EmployeeRepository;
+import ee.taltech.iti03022024project.repository.EmployeeTableColumns;
+import ee.taltech.iti03022024project.repository.PartialUpdate;
+import ee.taltech.iti03022024project.repository.PartialUpdateRepository;
+import ee.taltech.iti03022024project.repository.TableQueryExecutor;
 import ee.taltech.iti03022024project.repository.specifications.EmployeeSpecifications;
 import ee.taltech.iti03022024project.security.ApplicationConfiguration;
 import io.jsonwebtoken.Jwts;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -36,6 +47,15 @@ public class EmployeeService {
     private final EmployeeMapping employeeMapping;
     private final PasswordEncoder passwordEncoder;
     private final ApplicationConfiguration applicationConfiguration;
+    private final TableQueryExecutor tableQueryExecutor;
+    private final CountEstimator countEstimator;
+    private final PartialUpdateRepository partialUpdateRepository;
+    private final TableResultCache tableResultCache;
+    private final TableVersions tableVersions;
+
+    private static final String EMPLOYEE_NAME_CONSTRAINT = "uq_employee_name_lower";
+    private static final String EMPLOYEE_COLUMNS = "updated.employee_id, updated.name, updated.permission_id";
+    private static final RowMapper<EmployeeDto> EMPLOYEE_ROW_MAPPER = BeanPropertyRowMapper.newInstance(EmployeeDto.class);
 
     private static final Logger log = LoggerFactory.getLogger(EmployeeService.class);
 
@@ -60,6 +80,7 @@ public class EmployeeService {
         EmployeeEntity employeeEntity = new EmployeeEntity(null, createEmployeeDto.getName(),
                 permissionId, hashPassword);
         EmployeeEntity savedEmployeeEntity = employeeRepository.save(employeeEntity);
+        tableVersions.changed(EmployeeEntity.class);
 
         log.info("Employee with name: {} created successfully!", employeeEntity.getName());
         return employeeMapping.employeeToDto(savedEmployeeEntity);
@@ -93,46 +114,34 @@ public class EmployeeService {
     public Optional<EmployeeDto> updateEmployee(Integer id, String name, Integer permissionId, String password) {
         log.info("Attempting to update employee with ID: {}", id);
 
-        // Find the employee by ID
-        Optional<EmployeeEntity> employeeEntityOpt = employeeRepository.findById(id);
-
-        // Throw an exception if the employee is not found
-        EmployeeEntity employeeEntity = employeeEntityOpt
-                .orElseThrow(() -> new NotFoundException("Employee with this ID does not exist"));
-
-        // Update fields if the new values are provided (not null)
-        Optional<EmployeeDto> employeeOpt = getEmployeeById(id);
-
-        if (name != null && !name.isEmpty() && employeeOpt.isPresent() && !Objects.equals(employeeOpt.get().getName(), name)) {
-            if (!employeeRepository.existsByNameIgnoreCase(name)) {
-                employeeEntity.setName(name);
-            } else {
-                throw new AlreadyExistsException("Cannot change name to " + name + " ,because " + name + " already exists!");
-            }
-        }
-
         ValueRange range = ValueRange.of(1, 3);
-        if (permissionId != null) {
-            if (range.isValidIntValue(permissionId)) {
-                employeeEntity.setPermissionId(permissionId);
-            } else {
-                throw new WrongValueException(permissionId + " is not a real PermissionID!");
-            }
+        if (permissionId != null && !range.isValidIntValue(permissionId)) {
+            throw new WrongValueException(permissionId + " is not a real PermissionID!");
         }
 
-        if (password != null && !password.trim().isEmpty()) {
-            String hashPassword = passwordEncoder.encode(password);
-            employeeEntity.setPassword(hashPassword);
-        }
+        // Only the changed columns are written, the name's uniqueness is left to the database
+        PartialUpdate update = PartialUpdate.of("employee", "employee_id", id)
+                .set("name", name != null && !name.isEmpty() ? name : null)
+                .set("permission_id", permissionId)
+                .set("password", password != null && !password.trim().isEmpty() ? passwordEncoder.encode(password) : null)
+                .returning(EMPLOYEE_COLUMNS)
+                .onConstraint(EMPLOYEE_NAME_CONSTRAINT,
+                        () -> new AlreadyExistsException("Cannot change name to " + name + " ,because " + name + " already exists!"));
 
-        // Save the updated employee entity
-        EmployeeEntity updatedEmployee = employeeRepository.save(employeeEntity);
+        EmployeeDto updatedEmployee = partialUpdateRepository.update(update, EMPLOYEE_ROW_MAPPER)
+                .orElseThrow(() -> new NotFoundException("Employee with this ID does not exist"));
+        tableVersions.changed(EmployeeEntity.class);
 
         log.info("Employee with ID: {} updated successfully!", id);
-        return Optional.of(employeeMapping.employeeToDto(updatedEmployee));
+        return Optional.of(updatedEmployee);
     }
 
     public PageResponse<EmployeeTableInfoDto> searchEmployeeTable(EmployeeSearchCriteria criteria) {
+        return tableResultCache.get("employee", criteria, () -> readEmployeeTable(criteria),
+                EmployeeEntity.class, PermissionEntity.class, CertificationEntity.class, CertificationTypeEntity.class);
+    }
+
+    private PageResponse<EmployeeTableInfoDto> readEmployeeTable(EmployeeSearchCriteria criteria) {
         log.info("Searching employees with criteria: {}", criteria);
 
         int page = criteria.getPage() != null ? criteria.getPage() : 0;
@@ -145,7 +154,7 @@ public class EmployeeService {
                 ? Sort.Direction.DESC
                 : Sort.Direction.ASC;
 
-        Specification<EmployeeEntity> spec = Specification.where(
+        Specification<EmployeeEntity> filters = Specification.where(
                 EmployeeSpecifications.employeeId(criteria.getEmployeeId())
                         .and(EmployeeSpecifications.employeeNameLike(criteria.getEmployeeName()))
                         .and(EmployeeSpecifications.permissionDescription(criteria.getPermissionDescription()))
@@ -153,6 +162,7 @@ public class EmployeeService {
                         .and(EmployeeSpecifications.lastJobDateBetween(criteria.getLastJobStartDate(), criteria.getLastJobEndDate()))
         );
 
+        Specification<EmployeeEntity> spec = filters;
         Pageable pageable;
         switch (sortBy) {
             case "lastJobDate" -> {
@@ -170,10 +180,21 @@ public class EmployeeService {
             default -> pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
         }
 
-        Page<EmployeeEntity> employeeEntities = employeeRepository.findAll(spec, pageable);
-        Page<EmployeeTableInfoDto> employeeDtos = employeeMapping.employeePageToTableInfoDtoPage(employeeEntities, pageable);
-        log.info("Fetched {} employees based on search criteria.", employeeDtos.getTotalElements());
-        return new PageResponse<>(employeeDtos);
+        Set<String> fields = EmployeeTableColumns.EMPLOYEE.resolve(criteria.getFields());
+        Slice<EmployeeTableInfoDto> slice = tableQueryExecutor.findGroupedTupleSlice(EmployeeEntity.class, spec,
+                        EmployeeTableColumns.EMPLOYEE.select(fields), "employeeId", pageable)
+                .map(employeeMapping::tupleToTableInfoDto);
+        log.info("Fetched {} employees based on search criteria.", slice.getNumberOfElements());
+
+        CountMode countMode = criteria.getCountMode() != null ? criteria.getCountMode() : CountMode.EXACT;
+        return switch (countMode) {
+            case NONE -> new PageResponse<>(slice);
+            case ESTIMATE -> new PageResponse<>(slice, countEstimator.estimate("employee", criteria,
+                    criteria.equals(new EmployeeSearchCriteria()), () -> employeeRepository.count(filters)));
+            // Counts only when the slice doesn't already tell where the last page ends
+            case EXACT -> new PageResponse<>(PageableExecutionUtils.getPage(slice.getContent(), pageable,
+                    () -> employeeRepository.count(filters)));
+        };
     }
 
     public LoginResponseDto login(LoginRequestDto loginRequestDto) {
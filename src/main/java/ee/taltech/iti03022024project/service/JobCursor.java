@@ -0,0 +1,69 @@
+package ee.taltech.iti03022024project.service;
+
+import ee.taltech.iti03022024project.exception.WrongValueException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a job table: the sort column and direction, plus the sort value and job ID of the last returned row.
+ * Clients get it as an opaque URL-safe token.
+ */
+@Getter
+@AllArgsConstructor
+public class JobCursor {
+
+    private static final String SEPARATOR = "\n";
+    private static final String INVALID_CURSOR = "Invalid cursor.";
+
+    private final String sortBy;
+    private final Sort.Direction direction;
+    private final Object lastValue;
+    private final Integer lastJobId;
+
+    public String encode() {
+        String payload = String.join(SEPARATOR, sortBy, direction.name(), lastJobId.toString(), encodeValue(lastValue));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static JobCursor decode(String token) {
+        try {
+            String payload = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = payload.split(SEPARATOR, 4);
+            if (parts.length != 4) {
+                throw new WrongValueException(INVALID_CURSOR);
+            }
+            return new JobCursor(parts[0], Sort.Direction.valueOf(parts[1]), decodeValue(parts[3]), Integer.valueOf(parts[2]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new WrongValueException(INVALID_CURSOR);
+        }
+    }
+
+    private static String encodeValue(Object value) {
+        if (value == null) return "N";
+        if (value instanceof Integer) return "I" + value;
+        if (value instanceof Double) return "D" + value;
+        if (value instanceof LocalDateTime) return "T" + value;
+        return "S" + value;
+    }
+
+    private static Object decodeValue(String value) {
+        if (value.isEmpty()) {
+            throw new WrongValueException(INVALID_CURSOR);
+        }
+        String raw = value.substring(1);
+        return switch (value.charAt(0)) {
+            case 'N' -> null;
+            case 'I' -> Integer.valueOf(raw);
+            case 'D' -> Double.valueOf(raw);
+            case 'T' -> LocalDateTime.parse(raw);
+            case 'S' -> raw;
+            default -> throw new WrongValueException(INVALID_CURSOR);
+        };
+    }
+}
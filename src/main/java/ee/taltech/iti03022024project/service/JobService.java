@@ -1,35 +1,69 @@
 package ee.taltech.iti03022024project.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.taltech.iti03022024project.dto.CursorPageResponse;
+import ee.taltech.iti03022024project.dto.JobBatchResultDto;
 import ee.taltech.iti03022024project.dto.JobDto;
 import ee.taltech.iti03022024project.dto.PageResponse;
 import ee.taltech.iti03022024project.dto.query.DoneJobTableInfoDto;
 import ee.taltech.iti03022024project.dto.query.NotDoneJobTableInfoDto;
+import ee.taltech.iti03022024project.dto.searchcriteria.CountMode;
 import ee.taltech.iti03022024project.dto.searchcriteria.DoneJobSearchCriteria;
+import ee.taltech.iti03022024project.dto.searchcriteria.ExportFormat;
 import ee.taltech.iti03022024project.dto.searchcriteria.NotDoneJobSearchCriteria;
+import ee.taltech.iti03022024project.dto.searchcriteria.StreamFormat;
+import ee.taltech.iti03022024project.dto.searchcriteria.TableSearchCriteria;
+import ee.taltech.iti03022024project.entity.CustomerEntity;
 import ee.taltech.iti03022024project.entity.EmployeeEntity;
+import ee.taltech.iti03022024project.entity.FuelConsumptionEntity;
 import ee.taltech.iti03022024project.entity.JobEntity;
 import ee.taltech.iti03022024project.entity.OrderEntity;
 import ee.taltech.iti03022024project.entity.VehicleEntity;
 import ee.taltech.iti03022024project.exception.NotFoundException;
+import ee.taltech.iti03022024project.exception.WrongValueException;
 import ee.taltech.iti03022024project.mapping.JobMapping;
 import ee.taltech.iti03022024project.repository.EmployeeRepository;
 import ee.taltech.iti03022024project.repository.JobRepository;
+import ee.taltech.iti03022024project.repository.JobTableColumns;
 import ee.taltech.iti03022024project.repository.OrderRepository;
+import ee.taltech.iti03022024project.repository.PartialUpdate;
+import ee.taltech.iti03022024project.repository.PartialUpdateRepository;
+import ee.taltech.iti03022024project.repository.TableQueryExecutor;
 import ee.taltech.iti03022024project.repository.VehicleRepository;
 import ee.taltech.iti03022024project.repository.specifications.DoneJobSpecifications;
+import ee.taltech.iti03022024project.repository.specifications.JobKeysetSpecifications;
 import ee.taltech.iti03022024project.repository.specifications.NotDoneJobSpecifications;
+import jakarta.persistence.Tuple;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @RequiredArgsConstructor
 @Service
@@ -40,10 +74,30 @@ public class JobService {
     private final EmployeeRepository employeeRepository;
     private final OrderRepository orderRepository;
     private final JobMapping jobMapping;
+    private final TableQueryExecutor tableQueryExecutor;
+    private final CountEstimator countEstimator;
+    private final RegistrationPlateIndex registrationPlateIndex;
+    private final ObjectMapper objectMapper;
+    private final JsonStreamWriter jsonStreamWriter;
+    private final PartialUpdateRepository partialUpdateRepository;
+    private final TableResultCache tableResultCache;
+    private final TableVersions tableVersions;
 
     private static final Logger log = LoggerFactory.getLogger(JobService.class);
     private static final String DOES_NOT_EXIST = " does not exist.";
+    private static final String JOB_COLUMNS =
+            "updated.job_id, updated.vehicle_id, updated.employee_id, updated.order_id, updated.pickup_date, "
+                    + "updated.drop_off_date, updated.is_complete";
+    private static final RowMapper<JobDto> JOB_ROW_MAPPER = BeanPropertyRowMapper.newInstance(JobDto.class);
 
+    record UpdatedJob(JobDto job, int previousEmployeeId) {}
+    private static final String DEFAULT_SORT = "jobId";
+    private static final int MAX_BATCH_SIZE = 10_000;
+    private static final int EXPORT_FETCH_SIZE = 500;
+    private static final String DONE_JOB_CSV_HEADER =
+            "jobId,vehicleId,registrationPlate,fuelUsed,distanceDriven,orderId,customerName,pickupDate,dropOffDate\n";
+
+    @Transactional
     public JobDto createJob(JobDto jobDto) {
         VehicleEntity vehicle = vehicleRepository.findById(jobDto.getVehicleId())
                 .orElseThrow(() -> new NotFoundException("Vehicle with ID " + jobDto.getVehicleId() + DOES_NOT_EXIST));
@@ -62,18 +116,79 @@ public class JobService {
         }
 
         JobEntity savedJob = jobRepository.save(jobEntity);
+        employeeRepository.refreshLastJobDate(List.of(employee.getEmployeeId()));
+        tableVersions.changed(JobEntity.class, EmployeeEntity.class);
 
         log.info("Created job with ID: {}", savedJob.getJobId());
 
         return jobMapping.jobToDto(savedJob);
     }
 
+    /**
+     * Creates many jobs in one transaction. Referenced vehicles, employees and orders are checked with one query
+     * per table, and the jobs are inserted in JDBC batches. Jobs with a missing reference are left out and reported
+     * in their result, the rest are still created.
+     */
+    @Transactional
+    public List<JobBatchResultDto> createJobs(List<JobDto> jobDtos) {
+        if (jobDtos == null || jobDtos.isEmpty() || jobDtos.size() > MAX_BATCH_SIZE) {
+            throw new WrongValueException("A job batch must contain 1 to " + MAX_BATCH_SIZE + " jobs.");
+        }
+
+        Set<Integer> vehicleIds = BatchReferences.existingIds(jobDtos, JobDto::getVehicleId, vehicleRepository::findExistingIds);
+        Set<Integer> employeeIds = BatchReferences.existingIds(jobDtos, JobDto::getEmployeeId, employeeRepository::findExistingIds);
+        Set<Integer> orderIds = BatchReferences.existingIds(jobDtos, JobDto::getOrderId, orderRepository::findExistingIds);
+
+        List<JobBatchResultDto> results = new ArrayList<>(jobDtos.size());
+        List<JobBatchResultDto> createdResults = new ArrayList<>();
+        List<JobEntity> jobs = new ArrayList<>();
+        for (int i = 0; i < jobDtos.size(); i++) {
+            JobDto jobDto = jobDtos.get(i);
+            JobBatchResultDto result = new JobBatchResultDto(i, null, missingReference(jobDto, vehicleIds, employeeIds, orderIds));
+            results.add(result);
+            if (result.getError() != null) continue;
+
+            // Every reference was checked above, so proxies are enough and no entity is loaded
+            JobEntity jobEntity = jobMapping.jobToEntity(jobDto);
+            jobEntity.setVehicle(vehicleRepository.getReferenceById(jobDto.getVehicleId()));
+            jobEntity.setEmployee(employeeRepository.getReferenceById(jobDto.getEmployeeId()));
+            jobEntity.setOrder(orderRepository.getReferenceById(jobDto.getOrderId()));
+            if (jobEntity.getIsComplete() == null) {
+                jobEntity.setIsComplete(false);
+            }
+            jobs.add(jobEntity);
+            createdResults.add(result);
+        }
+
+        if (!jobs.isEmpty()) {
+            jobRepository.saveAll(jobs);
+            for (int i = 0; i < jobs.size(); i++) {
+                createdResults.get(i).setJobId(jobs.get(i).getJobId());
+            }
+            employeeRepository.refreshLastJobDate(jobs.stream()
+                    .map(job -> job.getEmployee().getEmployeeId())
+                    .collect(Collectors.toSet()));
+            tableVersions.changed(JobEntity.class, EmployeeEntity.class);
+        }
+
+        log.info("Created {} of {} jobs in batch.", jobs.size(), jobDtos.size());
+
+        return results;
+    }
+
     public List<JobDto> getAllJobs() {
         List<JobEntity> jobs = jobRepository.findAll();
         log.info("Fetched all jobs, count: {}", jobs.size());
         return jobMapping.jobListToDtoList(jobs);
     }
 
+    @Transactional(readOnly = true)
+    public long streamAllJobs(StreamFormat format, OutputStream outputStream) throws IOException {
+        long count = jsonStreamWriter.write(jobRepository.streamAll(), format, outputStream);
+        log.info("Streamed {} jobs.", count);
+        return count;
+    }
+
     public Optional<JobDto> getJobById(Integer id) {
         JobEntity jobEntity = jobRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Job with ID " + id + DOES_NOT_EXIST));
@@ -83,53 +198,101 @@ public class JobService {
         return Optional.of(jobMapping.jobToDto(jobEntity));
     }
 
+    @Transactional
     public Optional<JobDto> updateJob(Integer id, JobDto jobDto) {
-        JobEntity jobEntity = jobRepository.findById(id)
-                .orElseThrow(() -> new NotFoundException("Job with ID " + id + DOES_NOT_EXIST));
+        PartialUpdate update = PartialUpdate.of("job", "job_id", id)
+                .set("vehicle_id", jobDto.getVehicleId())
+                .set("employee_id", jobDto.getEmployeeId())
+                .set("order_id", jobDto.getOrderId())
+                .set("pickup_date", jobDto.getPickupDate())
+                .set("drop_off_date", jobDto.getDropOffDate())
+                .set("is_complete", jobDto.getIsComplete())
+                .returning(JOB_COLUMNS + ", previous.employee_id AS previous_employee_id")
+                .onConstraint("fk_job_vehicle", () -> new NotFoundException("Vehicle with ID " + jobDto.getVehicleId() + DOES_NOT_EXIST))
+                .onConstraint("fk_job_employee", () -> new NotFoundException("Employee with ID " + jobDto.getEmployeeId() + DOES_NOT_EXIST))
+                .onConstraint("fk_job_order", () -> new NotFoundException("Order with ID " + jobDto.getOrderId() + DOES_NOT_EXIST));
 
-        if (jobDto.getVehicleId() != null) {
-            VehicleEntity vehicle = vehicleRepository.findById(jobDto.getVehicleId())
-                    .orElseThrow(() -> new NotFoundException("Vehicle with ID " + jobDto.getVehicleId() + DOES_NOT_EXIST));
-            jobEntity.setVehicle(vehicle);
-        }
-        if (jobDto.getEmployeeId() != null) {
-            EmployeeEntity employee = employeeRepository.findById(jobDto.getEmployeeId())
-                    .orElseThrow(() -> new NotFoundException("Employee with ID " + jobDto.getEmployeeId() + DOES_NOT_EXIST));
-            jobEntity.setEmployee(employee);
-        }
-        if (jobDto.getOrderId() != null) {
-            OrderEntity order = orderRepository.findById(jobDto.getOrderId())
-                    .orElseThrow(() -> new NotFoundException("Order with ID " + jobDto.getOrderId() + DOES_NOT_EXIST));
-            jobEntity.setOrder(order);
-        }
-        if (jobDto.getPickupDate() != null) {
-            jobEntity.setPickupDate(jobDto.getPickupDate());
-        }
-        if (jobDto.getDropOffDate() != null) {
-            jobEntity.setDropOffDate(jobDto.getDropOffDate());
-        }
-        if (jobDto.getIsComplete() != null) {
-            jobEntity.setIsComplete(jobDto.getIsComplete());
-        }
+        UpdatedJob updated = partialUpdateRepository.update(update, (rs, rowNum) ->
+                        new UpdatedJob(JOB_ROW_MAPPER.mapRow(rs, rowNum), rs.getInt("previous_employee_id")))
+                .orElseThrow(() -> new NotFoundException("Job with ID " + id + DOES_NOT_EXIST));
 
-        JobEntity updatedJob = jobRepository.save(jobEntity);
+        // A job moved to another employee changes the last job date of both employees
+        employeeRepository.refreshLastJobDate(List.of(updated.previousEmployeeId(), updated.job().getEmployeeId()));
+        tableVersions.changed(JobEntity.class, EmployeeEntity.class);
 
         log.info("Updated job with ID: {}", id);
 
-        return Optional.of(jobMapping.jobToDto(updatedJob));
+        return Optional.of(updated.job());
     }
 
     public PageResponse<DoneJobTableInfoDto> searchDoneJobsTable(DoneJobSearchCriteria criteria) {
+        return tableResultCache.get("done-job", criteria, () -> readDoneJobsTable(criteria),
+                JobEntity.class, VehicleEntity.class, FuelConsumptionEntity.class, OrderEntity.class, CustomerEntity.class);
+    }
+
+    private PageResponse<DoneJobTableInfoDto> readDoneJobsTable(DoneJobSearchCriteria criteria) {
         int page = criteria.getPage() != null ? criteria.getPage() : 0;
         int size = criteria.getSize() != null ? criteria.getSize() : 20;
-        String sortBy = criteria.getSortBy() != null ? criteria.getSortBy() : "jobId";
+        Pageable pageable = PageRequest.of(page, size, doneJobSort(criteria));
+
+        Specification<JobEntity> spec = doneJobFilters(criteria);
+
+        Set<String> fields = JobTableColumns.DONE_JOB.resolve(criteria.getFields());
+        Slice<DoneJobTableInfoDto> doneJobDtos = tableQueryExecutor.findTupleSlice(JobEntity.class, spec, JobTableColumns.DONE_JOB.select(fields), pageable)
+                .map(jobMapping::tupleToDoneJobDto);
+        log.info("Fetched {} done jobs based on search criteria.", doneJobDtos.getNumberOfElements());
+        return toPageResponse(doneJobDtos, criteria, spec);
+    }
+
+    /**
+     * Writes every done job matching the criteria to the output stream, ignoring paging. Rows are read through a
+     * database cursor and written one at a time, so memory use stays the same whatever the number of rows.
+     */
+    @Transactional(readOnly = true)
+    public long exportDoneJobs(DoneJobSearchCriteria criteria, ExportFormat format, OutputStream outputStream) throws IOException {
+        Specification<JobEntity> spec = doneJobFilters(criteria);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        if (format == ExportFormat.CSV) {
+            writer.write(DONE_JOB_CSV_HEADER);
+        }
+
+        long rows = 0;
+        try (Stream<Tuple> tuples = tableQueryExecutor.streamTuples(JobEntity.class, spec, JobTableColumns.DONE_JOB.selectAll(),
+                doneJobSort(criteria), EXPORT_FETCH_SIZE)) {
+            Iterator<Tuple> iterator = tuples.iterator();
+            while (iterator.hasNext()) {
+                DoneJobTableInfoDto doneJob = jobMapping.tupleToDoneJobDto(iterator.next());
+                if (format == ExportFormat.CSV) {
+                    writeCsvRow(writer, doneJob);
+                } else {
+                    writer.write(objectMapper.writeValueAsString(doneJob));
+                    writer.write('\n');
+                }
+                rows++;
+            }
+        }
+        writer.flush();
+
+        log.info("Exported {} done jobs as {}.", rows, format);
+        return rows;
+    }
+
+    public PageResponse<NotDoneJobTableInfoDto> searchNotDoneJobsTable(NotDoneJobSearchCriteria criteria) {
+        return tableResultCache.get("not-done-job", criteria, () -> readNotDoneJobsTable(criteria),
+                JobEntity.class, VehicleEntity.class, OrderEntity.class, CustomerEntity.class);
+    }
+
+    private PageResponse<NotDoneJobTableInfoDto> readNotDoneJobsTable(NotDoneJobSearchCriteria criteria) {
+        int page = criteria.getPage() != null ? criteria.getPage() : 0;
+        int size = criteria.getSize() != null ? criteria.getSize() : 20;
+        String sortBy = criteria.getSortBy() != null ? criteria.getSortBy() : DEFAULT_SORT;
         switch (sortBy) {
             case "vehicleId": sortBy = "vehicle.vehicleId"; break;
             case "registrationPlate": sortBy = "vehicle.registrationPlate"; break;
-            case "fuelUsed": sortBy = "fuelConsumption.fuelUsed"; break;
-            case "distanceDriven": sortBy = "fuelConsumption.distanceDriven"; break;
             case "orderId": sortBy = "order.orderId"; break;
             case "customerName": sortBy = "order.customer.name"; break;
+            case "pickupDate": sortBy = "order.pickupDate"; break;
+            case "dropOffDate": sortBy = "order.dropOffDate"; break;
             default: break;
         }
 
@@ -139,59 +302,195 @@ public class JobService {
 
         Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
 
-        Specification<JobEntity> spec = Specification.where(
-                DoneJobSpecifications.isComplete()
-                        .and(DoneJobSpecifications.jobId(criteria.getJobId()))
-                        .and(DoneJobSpecifications.vehicleId(criteria.getVehicleId()))
-                        .and(DoneJobSpecifications.registrationPlateLike(criteria.getRegistrationPlate()))
-                        .and(DoneJobSpecifications.fuelUsedBetween(criteria.getMinFuelUsed(), criteria.getMaxFuelUsed()))
-                        .and(DoneJobSpecifications.distanceDrivenBetween(criteria.getMinDistanceDriven(), criteria.getMaxDistanceDriven()))
-                        .and(DoneJobSpecifications.orderId(criteria.getOrderId()))
-                        .and(DoneJobSpecifications.customerNameLike(criteria.getCustomerName()))
-                        .and(DoneJobSpecifications.pickupDateBetween(criteria.getPickupStartDate(), criteria.getPickupEndDate()))
-                        .and(DoneJobSpecifications.dropOffDateBetween(criteria.getDropOffStartDate(), criteria.getDropOffEndDate()))
-        );
+        Specification<JobEntity> spec = notDoneJobFilters(criteria);
 
-        Page<JobEntity> jobEntities = jobRepository.findAll(spec, pageable);
-        Page<DoneJobTableInfoDto> doneJobDtos = jobMapping.jobPageToDoneJobDtoPage(jobEntities, pageable);
-        log.info("Fetched {} not done jobs based on search criteria.", doneJobDtos.getTotalElements());
-        return new PageResponse<>(doneJobDtos);
+        Set<String> fields = JobTableColumns.NOT_DONE_JOB.resolve(criteria.getFields());
+        Slice<NotDoneJobTableInfoDto> notDoneJobDtos = tableQueryExecutor.findTupleSlice(JobEntity.class, spec, JobTableColumns.NOT_DONE_JOB.select(fields), pageable)
+                .map(jobMapping::tupleToNotDoneJobDto);
+        log.info("Fetched {} not done jobs based on search criteria.", notDoneJobDtos.getNumberOfElements());
+        return toPageResponse(notDoneJobDtos, criteria, spec);
     }
 
-    public PageResponse<NotDoneJobTableInfoDto> searchNotDoneJobsTable(NotDoneJobSearchCriteria criteria) {
-        int page = criteria.getPage() != null ? criteria.getPage() : 0;
+    public CursorPageResponse<DoneJobTableInfoDto> scrollDoneJobsTable(DoneJobSearchCriteria criteria) {
+        int size = criteria.getSize() != null ? criteria.getSize() : 20;
+        JobCursor cursor = resolveCursor(criteria.getCursor(), criteria.getSortBy(), criteria.getSortDirection());
+        if (!JobKeysetSpecifications.supportsDoneJobSort(cursor.getSortBy())) {
+            throw new WrongValueException("Done jobs can't be scrolled by " + cursor.getSortBy() + ".");
+        }
+
+        Specification<JobEntity> spec = doneJobFilters(criteria)
+                .and(JobKeysetSpecifications.doneJobSeek(cursor.getSortBy(), cursor.getDirection(), cursor.getLastValue(), cursor.getLastJobId()));
+
+        Set<String> fields = cursorFields(JobTableColumns.DONE_JOB.resolve(criteria.getFields()), cursor);
+        Slice<DoneJobTableInfoDto> slice = tableQueryExecutor.findTupleSlice(JobEntity.class, spec, JobTableColumns.DONE_JOB.select(fields), PageRequest.of(0, size))
+                .map(jobMapping::tupleToDoneJobDto);
+        List<DoneJobTableInfoDto> doneJobDtos = slice.getContent();
+
+        String nextCursor = null;
+        if (slice.hasNext()) {
+            DoneJobTableInfoDto last = doneJobDtos.get(doneJobDtos.size() - 1);
+            nextCursor = new JobCursor(cursor.getSortBy(), cursor.getDirection(), doneJobSortValue(last, cursor.getSortBy()), last.getJobId()).encode();
+        }
+        log.info("Fetched {} done jobs after cursor, more available: {}", doneJobDtos.size(), slice.hasNext());
+        return new CursorPageResponse<>(doneJobDtos, size, nextCursor);
+    }
+
+    public CursorPageResponse<NotDoneJobTableInfoDto> scrollNotDoneJobsTable(NotDoneJobSearchCriteria criteria) {
         int size = criteria.getSize() != null ? criteria.getSize() : 20;
-        String sortBy = criteria.getSortBy() != null ? criteria.getSortBy() : "jobId";
+        JobCursor cursor = resolveCursor(criteria.getCursor(), criteria.getSortBy(), criteria.getSortDirection());
+        if (!JobKeysetSpecifications.supportsNotDoneJobSort(cursor.getSortBy())) {
+            throw new WrongValueException("Not done jobs can't be scrolled by " + cursor.getSortBy() + ".");
+        }
+
+        Specification<JobEntity> spec = notDoneJobFilters(criteria)
+                .and(JobKeysetSpecifications.notDoneJobSeek(cursor.getSortBy(), cursor.getDirection(), cursor.getLastValue(), cursor.getLastJobId()));
+
+        Set<String> fields = cursorFields(JobTableColumns.NOT_DONE_JOB.resolve(criteria.getFields()), cursor);
+        Slice<NotDoneJobTableInfoDto> slice = tableQueryExecutor.findTupleSlice(JobEntity.class, spec, JobTableColumns.NOT_DONE_JOB.select(fields), PageRequest.of(0, size))
+                .map(jobMapping::tupleToNotDoneJobDto);
+        List<NotDoneJobTableInfoDto> notDoneJobDtos = slice.getContent();
+
+        String nextCursor = null;
+        if (slice.hasNext()) {
+            NotDoneJobTableInfoDto last = notDoneJobDtos.get(notDoneJobDtos.size() - 1);
+            nextCursor = new JobCursor(cursor.getSortBy(), cursor.getDirection(), notDoneJobSortValue(last, cursor.getSortBy()), last.getJobId()).encode();
+        }
+        log.info("Fetched {} not done jobs after cursor, more available: {}", notDoneJobDtos.size(), slice.hasNext());
+        return new CursorPageResponse<>(notDoneJobDtos, size, nextCursor);
+    }
+
+    private <T> PageResponse<T> toPageResponse(Slice<T> slice, TableSearchCriteria criteria, Specification<JobEntity> spec) {
+        CountMode countMode = criteria.getCountMode() != null ? criteria.getCountMode() : CountMode.EXACT;
+        return switch (countMode) {
+            case NONE -> new PageResponse<>(slice);
+            case ESTIMATE -> new PageResponse<>(slice, countEstimator.estimate("job", criteria, false, () -> jobRepository.count(spec)));
+            // Counts only when the slice doesn't already tell where the last page ends
+            case EXACT -> new PageResponse<>(PageableExecutionUtils.getPage(slice.getContent(), slice.getPageable(),
+                    () -> jobRepository.count(spec)));
+        };
+    }
+
+    // The next cursor is built from the last row, so its sort value and ID are read even when they aren't returned
+    private static Set<String> cursorFields(Set<String> fields, JobCursor cursor) {
+        Set<String> cursorFields = new HashSet<>(fields);
+        cursorFields.add(cursor.getSortBy());
+        cursorFields.add("jobId");
+        return cursorFields;
+    }
+
+    private JobCursor resolveCursor(String token, String sortBy, String sortDirection) {
+        if (token == null || token.isEmpty()) {
+            Sort.Direction direction = (sortDirection == null || "desc".equalsIgnoreCase(sortDirection))
+                    ? Sort.Direction.DESC
+                    : Sort.Direction.ASC;
+            return new JobCursor(sortBy != null ? sortBy : DEFAULT_SORT, direction, null, null);
+        }
+
+        // The cursor carries its own sort, a request asking for a different one can't continue from it
+        JobCursor cursor = JobCursor.decode(token);
+        if ((sortBy != null && !sortBy.equals(cursor.getSortBy()))
+                || (sortDirection != null && !sortDirection.equalsIgnoreCase(cursor.getDirection().name()))) {
+            throw new WrongValueException("Cursor was created for a different sort order.");
+        }
+        return cursor;
+    }
+
+    private static Sort doneJobSort(DoneJobSearchCriteria criteria) {
+        String sortBy = criteria.getSortBy() != null ? criteria.getSortBy() : DEFAULT_SORT;
         switch (sortBy) {
             case "vehicleId": sortBy = "vehicle.vehicleId"; break;
             case "registrationPlate": sortBy = "vehicle.registrationPlate"; break;
+            case "fuelUsed": sortBy = "fuelConsumption.fuelUsed"; break;
+            case "distanceDriven": sortBy = "fuelConsumption.distanceDriven"; break;
             case "orderId": sortBy = "order.orderId"; break;
             case "customerName": sortBy = "order.customer.name"; break;
-            case "pickupDate": sortBy = "order.pickupDate"; break;
-            case "dropOffDate": sortBy = "order.dropOffDate"; break;
             default: break;
         }
 
         Sort.Direction direction = (criteria.getSortDirection() == null || "desc".equalsIgnoreCase(criteria.getSortDirection()))
                 ? Sort.Direction.DESC
                 : Sort.Direction.ASC;
+        return Sort.by(direction, sortBy);
+    }
 
-        Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
+    private Specification<JobEntity> doneJobFilters(DoneJobSearchCriteria criteria) {
+        return Specification.where(
+                DoneJobSpecifications.isComplete()
+                        .and(DoneJobSpecifications.jobId(criteria.getJobId()))
+                        .and(DoneJobSpecifications.vehicleId(criteria.getVehicleId()))
+                        .and(registrationPlateFilter(criteria.getRegistrationPlate(), DoneJobSpecifications::vehicleIdIn, DoneJobSpecifications::registrationPlateLike))
+                        .and(DoneJobSpecifications.fuelUsedBetween(criteria.getMinFuelUsed(), criteria.getMaxFuelUsed()))
+                        .and(DoneJobSpecifications.distanceDrivenBetween(criteria.getMinDistanceDriven(), criteria.getMaxDistanceDriven()))
+                        .and(DoneJobSpecifications.orderId(criteria.getOrderId()))
+                        .and(DoneJobSpecifications.customerNameLike(criteria.getCustomerName()))
+                        .and(DoneJobSpecifications.pickupDateBetween(criteria.getPickupStartDate(), criteria.getPickupEndDate()))
+                        .and(DoneJobSpecifications.dropOffDateBetween(criteria.getDropOffStartDate(), criteria.getDropOffEndDate()))
+        );
+    }
 
-        Specification<JobEntity> spec = Specification.where(
+    private Specification<JobEntity> notDoneJobFilters(NotDoneJobSearchCriteria criteria) {
+        return Specification.where(
                 NotDoneJobSpecifications.isComplete()
                 .and(NotDoneJobSpecifications.jobId(criteria.getJobId()))
                 .and(NotDoneJobSpecifications.vehicleId(criteria.getVehicleId()))
-                .and(NotDoneJobSpecifications.registrationPlateLike(criteria.getRegistrationPlate()))
+                .and(registrationPlateFilter(criteria.getRegistrationPlate(), NotDoneJobSpecifications::vehicleIdIn, NotDoneJobSpecifications::registrationPlateLike))
                 .and(NotDoneJobSpecifications.orderId(criteria.getOrderId()))
                 .and(NotDoneJobSpecifications.customerNameLike(criteria.getCustomerName()))
                 .and(NotDoneJobSpecifications.pickupDateBetween(criteria.getPickupStartDate(), criteria.getPickupEndDate()))
                 .and(NotDoneJobSpecifications.dropOffDateBetween(criteria.getDropOffStartDate(), criteria.getDropOffEndDate()))
         );
+    }
+
+    private Specification<JobEntity> registrationPlateFilter(String registrationPlate,
+                                                             Function<Collection<Integer>, Specification<JobEntity>> vehicleIdIn,
+                                                             Function<String, Specification<JobEntity>> registrationPlateLike) {
+        return registrationPlateIndex.findVehicleIds(registrationPlate)
+                .<Specification<JobEntity>>map(vehicleIdIn::apply)
+                .orElseGet(() -> registrationPlateLike.apply(registrationPlate));
+    }
+
+    private static String missingReference(JobDto jobDto, Set<Integer> vehicleIds, Set<Integer> employeeIds, Set<Integer> orderIds) {
+        if (jobDto == null) return "Job is missing.";
+        if (jobDto.getVehicleId() == null) return "Vehicle ID is required.";
+        if (jobDto.getEmployeeId() == null) return "Employee ID is required.";
+        if (jobDto.getOrderId() == null) return "Order ID is required.";
+        if (!vehicleIds.contains(jobDto.getVehicleId())) return "Vehicle with ID " + jobDto.getVehicleId() + DOES_NOT_EXIST;
+        if (!employeeIds.contains(jobDto.getEmployeeId())) return "Employee with ID " + jobDto.getEmployeeId() + DOES_NOT_EXIST;
+        if (!orderIds.contains(jobDto.getOrderId())) return "Order with ID " + jobDto.getOrderId() + DOES_NOT_EXIST;
+        return null;
+    }
+
+    private static void writeCsvRow(Writer writer, DoneJobTableInfoDto doneJob) throws IOException {
+        writer.write(CsvValues.of(doneJob.getJobId()) + ',' + CsvValues.of(doneJob.getVehicleId()) + ','
+                + CsvValues.of(doneJob.getRegistrationPlate()) + ',' + CsvValues.of(doneJob.getFuelUsed()) + ','
+                + CsvValues.of(doneJob.getDistanceDriven()) + ',' + CsvValues.of(doneJob.getOrderId()) + ','
+                + CsvValues.of(doneJob.getCustomerName()) + ',' + CsvValues.of(doneJob.getPickupDate()) + ','
+                + CsvValues.of(doneJob.getDropOffDate()) + '\n');
+    }
+
+    private static Object doneJobSortValue(DoneJobTableInfoDto dto, String sortBy) {
+        return switch (sortBy) {
+            case "vehicleId" -> dto.getVehicleId();
+            case "registrationPlate" -> dto.getRegistrationPlate();
+            case "fuelUsed" -> dto.getFuelUsed();
+            case "distanceDriven" -> dto.getDistanceDriven();
+            case "orderId" -> dto.getOrderId();
+            case "customerName" -> dto.getCustomerName();
+            case "pickupDate" -> dto.getPickupDate();
+            case "dropOffDate" -> dto.getDropOffDate();
+            default -> dto.getJobId();
+        };
+    }
 
-        Page<JobEntity> jobEntities = jobRepository.findAll(spec, pageable);
-        Page<NotDoneJobTableInfoDto> notDoneJobDtos = jobMapping.jobPageToNotDoneJobDtoPage(jobEntities, pageable);
-        log.info("Fetched {} not done jobs based on search criteria.", notDoneJobDtos.getTotalElements());
-        return new PageResponse<>(notDoneJobDtos);
+    private static Object notDoneJobSortValue(NotDoneJobTableInfoDto dto, String sortBy) {
+        return switch (sortBy) {
+            case "vehicleId" -> dto.getVehicleId();
+            case "registrationPlate" -> dto.getRegistrationPlate();
+            case "orderId" -> dto.getOrderId();
+            case "customerName" -> dto.getCustomerName();
+            case "pickupDate" -> dto.getPickupDate();
+            case "dropOffDate" -> dto.getDropOffDate();
+            default -> dto.getJobId();
+        };
     }
 }
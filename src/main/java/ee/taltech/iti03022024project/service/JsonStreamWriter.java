@@ -0,0 +1,61 @@
+package ee.taltech.iti03022024project.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import ee.taltech.iti03022024project.dto.searchcriteria.StreamFormat;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes rows to a response as they are read from a stream, either as the elements of one JSON array or as
+ * newline delimited JSON. The stream is always closed, so a client that disconnects mid-response makes the
+ * next write fail and releases the database cursor behind the stream.
+ */
+@Component
+public class JsonStreamWriter {
+
+    private static final int FLUSH_INTERVAL = 500;
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter arrayElementWriter;
+    private final ObjectWriter lineWriter;
+
+    public JsonStreamWriter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        // Flushing is done every FLUSH_INTERVAL rows instead of after each value
+        this.arrayElementWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.lineWriter = arrayElementWriter.withRootValueSeparator("\n");
+    }
+
+    public <T> long write(Stream<T> rows, StreamFormat format, OutputStream outputStream) throws IOException {
+        long count = 0;
+        try (rows; JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            ObjectWriter writer = format == StreamFormat.NDJSON ? lineWriter : arrayElementWriter;
+            if (format == StreamFormat.JSON) {
+                generator.writeStartArray();
+            }
+
+            Iterator<T> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+                if (++count % FLUSH_INTERVAL == 0) {
+                    generator.flush();
+                }
+            }
+
+            if (format == StreamFormat.JSON) {
+                generator.writeEndArray();
+            } else if (count > 0) {
+                generator.writeRaw('\n');
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,314 @@
+package ee.taltech.iti03022024project.service;
+
+import ee.taltech.iti03022024project.dto.CustomerNameIdDto;
+import ee.taltech.iti03022024project.dto.OrderDto;
+import ee.taltech.iti03022024project.exception.WrongValueException;
+import ee.taltech.iti03022024project.repository.CustomerRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads valid orders from a CSV stream one chunk of lines at a time. The customers of a chunk are resolved with
+ * one query for IDs and one for names, customers seen in earlier chunks are not queried again. Invalid rows are
+ * counted and described instead of returned. The queries run while the orders are read, so they can't be written
+ * with COPY on the same connection until {@link #nextChunk()} has returned them.
+ * <p>
+ * The first line is a header naming the columns: pickupDate, dropOffDate and at least one of customerId and
+ * customerName are required, weight, width, height, length and orderDetails are optional. Every row gives its customer
+ * in exactly one of customerId and customerName, so a customer whose name is a number is still found by name. Quoted
+ * fields may contain commas and doubled quotes, but not line breaks.
+ */
+class OrderCsvReader {
+
+    static final int CHUNK_SIZE = 1000;
+    static final int MAX_REPORTED_ERRORS = 100;
+    private static final int MAX_DETAILS_LENGTH = 1000;
+
+    private static final String CUSTOMER_ID = "customerId";
+    private static final String CUSTOMER_NAME = "customerName";
+    private static final String PICKUP_DATE = "pickupDate";
+    private static final String DROP_OFF_DATE = "dropOffDate";
+    private static final List<String> REQUIRED_COLUMNS = List.of(PICKUP_DATE, DROP_OFF_DATE);
+    private static final List<String> CUSTOMER_COLUMNS = List.of(CUSTOMER_ID, CUSTOMER_NAME);
+    private static final List<String> OPTIONAL_COLUMNS = List.of("weight", "width", "height", "length", "orderDetails");
+
+    private final BufferedReader reader;
+    private final CustomerRepository customerRepository;
+    private final Map<String, Integer> columns = new HashMap<>();
+
+    // Customers looked up so far, names in lower case. Missing customers are remembered as looked up too.
+    private final Map<String, Integer> customerIdsByName = new HashMap<>();
+    private final Set<String> lookedUpNames = new HashSet<>();
+    private final Set<Integer> existingCustomerIds = new HashSet<>();
+    private final Set<Integer> lookedUpCustomerIds = new HashSet<>();
+
+    private final Set<Integer> acceptedCustomerIds = new HashSet<>();
+    private final List<String> errors = new ArrayList<>();
+    private long lineNumber = 1;
+    private long rejected;
+    private boolean endOfInput;
+
+    private record Line(long number, List<String> fields) {}
+
+    OrderCsvReader(BufferedReader reader, CustomerRepository customerRepository) {
+        this.reader = reader;
+        this.customerRepository = customerRepository;
+        readHeader();
+    }
+
+    /**
+     * The valid orders of the next chunk that has any, at most {@value #CHUNK_SIZE}. Empty at the end of the input.
+     */
+    List<OrderDto> nextChunk() {
+        List<OrderDto> chunk = new ArrayList<>();
+        while (chunk.isEmpty() && !endOfInput) {
+            chunk = readChunk();
+        }
+        for (OrderDto order : chunk) {
+            acceptedCustomerIds.add(order.getCustomerId());
+        }
+        return chunk;
+    }
+
+    long getRejected() {
+        return rejected;
+    }
+
+    List<String> getErrors() {
+        return errors;
+    }
+
+    Set<Integer> getAcceptedCustomerIds() {
+        return acceptedCustomerIds;
+    }
+
+    private void readHeader() {
+        String header = readLine();
+        if (header == null) {
+            throw new WrongValueException("CSV file is empty.");
+        }
+        // Spreadsheet programs often start UTF-8 files with a byte order mark
+        List<String> names = parseFields(header.startsWith("\uFEFF") ? header.substring(1) : header);
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i).trim();
+            if (!REQUIRED_COLUMNS.contains(name) && !CUSTOMER_COLUMNS.contains(name) && !OPTIONAL_COLUMNS.contains(name)) {
+                throw new WrongValueException("Unknown CSV column: " + name);
+            }
+            columns.put(name, i);
+        }
+        if (!columns.keySet().containsAll(REQUIRED_COLUMNS) || !(columns.containsKey(CUSTOMER_ID) || columns.containsKey(CUSTOMER_NAME))) {
+            throw new WrongValueException("CSV header must contain the columns " + String.join(", ", REQUIRED_COLUMNS)
+                    + " and " + String.join(" or ", CUSTOMER_COLUMNS) + ".");
+        }
+    }
+
+    private List<OrderDto> readChunk() {
+        List<Line> lines = new ArrayList<>(CHUNK_SIZE);
+        while (lines.size() < CHUNK_SIZE) {
+            String text = readLine();
+            if (text == null) {
+                endOfInput = true;
+                break;
+            }
+            lineNumber++;
+            if (text.isBlank()) continue;
+            try {
+                lines.add(new Line(lineNumber, parseFields(text)));
+            } catch (IllegalArgumentException e) {
+                reject(lineNumber, e.getMessage());
+            }
+        }
+
+        resolveCustomers(lines);
+        List<OrderDto> orders = new ArrayList<>(lines.size());
+        for (Line line : lines) {
+            try {
+                orders.add(toOrder(line.fields()));
+            } catch (IllegalArgumentException e) {
+                reject(line.number(), e.getMessage());
+            }
+        }
+        return orders;
+    }
+
+    private void resolveCustomers(List<Line> lines) {
+        Set<Integer> ids = new HashSet<>();
+        Set<String> names = new HashSet<>();
+        for (Line line : lines) {
+            Integer id = parseCustomerId(field(line.fields(), CUSTOMER_ID));
+            if (id != null && lookedUpCustomerIds.add(id)) {
+                ids.add(id);
+            }
+            String name = field(line.fields(), CUSTOMER_NAME);
+            if (name != null && lookedUpNames.add(name.toLowerCase(Locale.ROOT))) {
+                names.add(name.toLowerCase(Locale.ROOT));
+            }
+        }
+
+        if (!ids.isEmpty()) {
+            existingCustomerIds.addAll(customerRepository.findExistingIds(ids));
+        }
+        if (!names.isEmpty()) {
+            for (CustomerNameIdDto customer : customerRepository.findByLowerCaseNames(names)) {
+                customerIdsByName.put(customer.getName().toLowerCase(Locale.ROOT), customer.getCustomerId());
+            }
+        }
+    }
+
+    private OrderDto toOrder(List<String> fields) {
+        if (fields.size() != columns.size()) {
+            throw new IllegalArgumentException("Expected " + columns.size() + " columns, found " + fields.size() + ".");
+        }
+
+        OrderDto order = new OrderDto();
+        order.setCustomerId(customerId(fields));
+        order.setPickupDate(dateTime(fields, PICKUP_DATE));
+        order.setDropOffDate(dateTime(fields, DROP_OFF_DATE));
+        if (order.getDropOffDate().isBefore(order.getPickupDate())) {
+            throw new IllegalArgumentException("dropOffDate is before pickupDate.");
+        }
+        order.setWeight(wholeNumber(fields, "weight"));
+        order.setWidth(wholeNumber(fields, "width"));
+        order.setHeight(wholeNumber(fields, "height"));
+        order.setLength(wholeNumber(fields, "length"));
+
+        String details = field(fields, "orderDetails");
+        if (details != null && details.length() > MAX_DETAILS_LENGTH) {
+            throw new IllegalArgumentException("orderDetails is longer than " + MAX_DETAILS_LENGTH + " characters.");
+        }
+        order.setOrderDetails(details);
+        return order;
+    }
+
+    private Integer customerId(List<String> fields) {
+        String idValue = field(fields, CUSTOMER_ID);
+        String name = field(fields, CUSTOMER_NAME);
+        if ((idValue == null) == (name == null)) {
+            throw new IllegalArgumentException("Exactly one of " + CUSTOMER_ID + " and " + CUSTOMER_NAME + " is required.");
+        }
+        if (idValue != null) {
+            Integer id = parseCustomerId(idValue);
+            if (id == null) {
+                throw new IllegalArgumentException(CUSTOMER_ID + " is not a whole number: " + idValue);
+            }
+            if (!existingCustomerIds.contains(id)) {
+                throw new IllegalArgumentException("Customer with ID " + id + " does not exist.");
+            }
+            return id;
+        }
+        Integer idByName = customerIdsByName.get(name.toLowerCase(Locale.ROOT));
+        if (idByName == null) {
+            throw new IllegalArgumentException("Customer " + name + " does not exist.");
+        }
+        return idByName;
+    }
+
+    private LocalDateTime dateTime(List<String> fields, String column) {
+        String value = required(fields, column);
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(column + " is not a date and time: " + value);
+        }
+    }
+
+    private Integer wholeNumber(List<String> fields, String column) {
+        String value = field(fields, column);
+        if (value == null) return null;
+        try {
+            int number = Integer.parseInt(value);
+            if (number < 0) {
+                throw new IllegalArgumentException(column + " can't be negative.");
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a whole number: " + value);
+        }
+    }
+
+    private String required(List<String> fields, String column) {
+        String value = field(fields, column);
+        if (value == null) {
+            throw new IllegalArgumentException(column + " is required.");
+        }
+        return value;
+    }
+
+    // Blank values count as missing
+    private String field(List<String> fields, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size()) return null;
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private void reject(long line, String reason) {
+        rejected++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add("Line " + line + ": " + reason);
+        }
+    }
+
+    private String readLine() {
+        try {
+            return reader.readLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Null when the value is missing or not a whole number
+    private static Integer parseCustomerId(String customer) {
+        if (customer == null) return null;
+        for (int i = 0; i < customer.length(); i++) {
+            if (!Character.isDigit(customer.charAt(i))) return null;
+        }
+        try {
+            return Integer.parseInt(customer);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    static List<String> parseFields(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Quoted value is not closed.");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
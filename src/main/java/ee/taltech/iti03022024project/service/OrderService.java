@@ -1,29 +1,54 @@
 package ee.taltech.iti03022024project.service;
 
 import ee.taltech.iti03022024project.dto.OrderDto;
+import ee.taltech.iti03022024project.dto.OrderImportResultDto;
 import ee.taltech.iti03022024project.dto.OrderNameIdDto;
 import ee.taltech.iti03022024project.dto.PageResponse;
 import ee.taltech.iti03022024project.dto.query.OrdersTableInfoDto;
+import ee.taltech.iti03022024project.dto.searchcriteria.CountMode;
+import ee.taltech.iti03022024project.dto.searchcriteria.ExportFormat;
 import ee.taltech.iti03022024project.dto.searchcriteria.OrderSearchCriteria;
+import ee.taltech.iti03022024project.dto.searchcriteria.StreamFormat;
 import ee.taltech.iti03022024project.entity.CustomerEntity;
 import ee.taltech.iti03022024project.entity.OrderEntity;
 import ee.taltech.iti03022024project.exception.NotFoundException;
 import ee.taltech.iti03022024project.mapping.OrderMapping;
 import ee.taltech.iti03022024project.repository.CustomerRepository;
+import ee.taltech.iti03022024project.repository.OrderCopyRepository;
 import ee.taltech.iti03022024project.repository.OrderRepository;
+import ee.taltech.iti03022024project.repository.OrderTableColumns;
+import ee.taltech.iti03022024project.repository.PartialUpdate;
+import ee.taltech.iti03022024project.repository.PartialUpdateRepository;
+import ee.taltech.iti03022024project.repository.TableQueryExecutor;
 import ee.taltech.iti03022024project.repository.specifications.OrderSpecifications;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @RequiredArgsConstructor
 @Service
@@ -32,10 +57,27 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final CustomerRepository customerRepository;
     private final OrderMapping orderMapping;
+    private final TableQueryExecutor tableQueryExecutor;
+    private final CountEstimator countEstimator;
+    private final OrderCopyRepository orderCopyRepository;
+    private final JsonStreamWriter jsonStreamWriter;
+    private final PartialUpdateRepository partialUpdateRepository;
+    private final TableResultCache tableResultCache;
+    private final TableVersions tableVersions;
 
     private static final Logger log = LoggerFactory.getLogger(OrderService.class);
     private static final String DOES_NOT_EXIST = " does not exist.";
+    private static final int EXPORT_FETCH_SIZE = 500;
+    private static final String ORDER_CSV_HEADER =
+            "orderId,customerName,pickupDate,dropOffDate,weight,width,height,length,orderDetails\n";
+    private static final String ORDER_COLUMNS =
+            "updated.order_id, updated.customer_id, updated.pickup_date, updated.drop_off_date, updated.weight, "
+                    + "updated.width, updated.height, updated.length, updated.order_details";
+    private static final RowMapper<OrderDto> ORDER_ROW_MAPPER = BeanPropertyRowMapper.newInstance(OrderDto.class);
 
+    record UpdatedOrder(OrderDto order, int previousCustomerId) {}
+
+    @Transactional
     public OrderDto createOrder(OrderDto orderDto) {
         log.info("Creating order with details: {}", orderDto);
 
@@ -46,16 +88,48 @@ public class OrderService {
         orderEntity.setCustomer(customer);
 
         OrderEntity savedOrder = orderRepository.save(orderEntity);
+        customerRepository.refreshLastOrderDate(List.of(customer.getCustomerId()));
+        tableVersions.changed(OrderEntity.class, CustomerEntity.class);
         log.info("Order with ID {} created successfully.", savedOrder.getOrderId());
         return orderMapping.orderToDto(savedOrder);
     }
 
+    /**
+     * Imports orders from a CSV stream with COPY, in one transaction. Rows are validated and copied one chunk at a
+     * time, so the file is never held in memory. Invalid rows are left out and reported, the rest are imported.
+     */
+    @Transactional
+    public OrderImportResultDto importOrders(InputStream csv) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8));
+        OrderCsvReader orders = new OrderCsvReader(reader, customerRepository);
+
+        long accepted = 0;
+        // Each chunk's customers are looked up before its COPY starts, the connection is busy until the COPY ends
+        for (List<OrderDto> chunk = orders.nextChunk(); !chunk.isEmpty(); chunk = orders.nextChunk()) {
+            accepted += orderCopyRepository.copyOrders(chunk);
+        }
+        if (!orders.getAcceptedCustomerIds().isEmpty()) {
+            customerRepository.refreshLastOrderDate(orders.getAcceptedCustomerIds());
+            tableVersions.changed(OrderEntity.class, CustomerEntity.class);
+        }
+
+        log.info("Imported {} orders from CSV, rejected {} rows.", accepted, orders.getRejected());
+        return new OrderImportResultDto(accepted, orders.getRejected(), orders.getErrors());
+    }
+
     public List<OrderDto> getAllOrders() {
         log.info("Fetching all orders.");
         List<OrderEntity> orders = orderRepository.findAll();
         return orderMapping.orderListToDtoList(orders);
     }
 
+    @Transactional(readOnly = true)
+    public long streamAllOrders(StreamFormat format, OutputStream outputStream) throws IOException {
+        long count = jsonStreamWriter.write(orderRepository.streamAll(), format, outputStream);
+        log.info("Streamed {} orders.", count);
+        return count;
+    }
+
     public Optional<OrderDto> getOrderById(Integer id) {
         log.info("Fetching order with ID: {}", id);
         OrderEntity orderEntity = orderRepository.findById(id)
@@ -63,35 +137,100 @@ public class OrderService {
         return Optional.of(orderMapping.orderToDto(orderEntity));
     }
 
+    @Transactional
     public Optional<OrderDto> updateOrder(Integer id, OrderDto orderDto) {
         log.info("Updating order with ID: {}", id);
 
-        OrderEntity orderEntity = orderRepository.findById(id)
+        PartialUpdate update = PartialUpdate.of("orders", "order_id", id)
+                .set("customer_id", orderDto.getCustomerId())
+                .set("pickup_date", orderDto.getPickupDate())
+                .set("drop_off_date", orderDto.getDropOffDate())
+                .set("weight", orderDto.getWeight())
+                .set("width", orderDto.getWidth())
+                .set("height", orderDto.getHeight())
+                .set("length", orderDto.getLength())
+                .set("order_details", orderDto.getOrderDetails())
+                .returning(ORDER_COLUMNS + ", previous.customer_id AS previous_customer_id")
+                .onConstraint("fk_order_customer",
+                        () -> new NotFoundException("Customer with ID " + orderDto.getCustomerId() + DOES_NOT_EXIST));
+
+        UpdatedOrder updated = partialUpdateRepository.update(update, (rs, rowNum) ->
+                        new UpdatedOrder(ORDER_ROW_MAPPER.mapRow(rs, rowNum), rs.getInt("previous_customer_id")))
                 .orElseThrow(() -> new NotFoundException("Order with ID " + id + DOES_NOT_EXIST));
 
-        if (orderDto.getCustomerId() != null) {
-            CustomerEntity customer = customerRepository.findById(orderDto.getCustomerId())
-                    .orElseThrow(() -> new NotFoundException("Customer with ID " + orderDto.getCustomerId() + DOES_NOT_EXIST));
-            orderEntity.setCustomer(customer);
-        }
-        if (orderDto.getPickupDate() != null) orderEntity.setPickupDate(orderDto.getPickupDate());
-        if (orderDto.getDropOffDate() != null) orderEntity.setDropOffDate(orderDto.getDropOffDate());
-        if (orderDto.getWeight() != null) orderEntity.setWeight(orderDto.getWeight());
-        if (orderDto.getWidth() != null) orderEntity.setWidth(orderDto.getWidth());
-        if (orderDto.getHeight() != null) orderEntity.setHeight(orderDto.getHeight());
-        if (orderDto.getLength() != null) orderEntity.setLength(orderDto.getLength());
-        if (orderDto.getOrderDetails() != null) orderEntity.setOrderDetails(orderDto.getOrderDetails());
-
-        OrderEntity updatedOrder = orderRepository.save(orderEntity);
-        log.info("Order with ID {} updated successfully.", updatedOrder.getOrderId());
-        return Optional.of(orderMapping.orderToDto(updatedOrder));
+        // An order moved to another customer changes the last order date of both customers
+        customerRepository.refreshLastOrderDate(List.of(updated.previousCustomerId(), updated.order().getCustomerId()));
+        tableVersions.changed(OrderEntity.class, CustomerEntity.class);
+        log.info("Order with ID {} updated successfully.", id);
+        return Optional.of(updated.order());
     }
 
     public PageResponse<OrdersTableInfoDto> searchOrdersTable(OrderSearchCriteria criteria) {
+        return tableResultCache.get("orders", criteria, () -> readOrdersTable(criteria),
+                OrderEntity.class, CustomerEntity.class);
+    }
+
+    private PageResponse<OrdersTableInfoDto> readOrdersTable(OrderSearchCriteria criteria) {
         log.info("Searching orders with criteria: {}", criteria);
 
         int page = criteria.getPage() != null ? criteria.getPage() : 0;
         int size = criteria.getSize() != null ? criteria.getSize() : 10;
+        Pageable pageable = PageRequest.of(page, size, orderSort(criteria));
+
+        Specification<OrderEntity> spec = orderFilters(criteria);
+
+        Set<String> fields = OrderTableColumns.ORDER.resolve(criteria.getFields());
+        Slice<OrdersTableInfoDto> slice = tableQueryExecutor.findTupleSlice(OrderEntity.class, spec, OrderTableColumns.ORDER.select(fields), pageable)
+                .map(orderMapping::tupleToTableInfoDto);
+        log.info("Fetched {} orders, more available: {}", slice.getNumberOfElements(), slice.hasNext());
+
+        CountMode countMode = criteria.getCountMode() != null ? criteria.getCountMode() : CountMode.EXACT;
+        return switch (countMode) {
+            case NONE -> new PageResponse<>(slice);
+            case ESTIMATE -> new PageResponse<>(slice, countEstimator.estimate("orders", criteria,
+                    criteria.equals(new OrderSearchCriteria()), () -> orderRepository.count(spec)));
+            // Counts only when the slice doesn't already tell where the last page ends
+            case EXACT -> new PageResponse<>(PageableExecutionUtils.getPage(slice.getContent(), pageable,
+                    () -> orderRepository.count(spec)));
+        };
+    }
+
+    /**
+     * Writes every order matching the criteria to the output stream, ignoring paging. Rows are read through a
+     * database cursor and written one at a time, so memory use stays the same whatever the number of rows.
+     */
+    @Transactional(readOnly = true)
+    public long exportOrders(OrderSearchCriteria criteria, ExportFormat format, OutputStream outputStream) throws IOException {
+        Stream<OrdersTableInfoDto> orders = tableQueryExecutor.streamTuples(OrderEntity.class, orderFilters(criteria),
+                OrderTableColumns.ORDER.selectAll(), orderSort(criteria), EXPORT_FETCH_SIZE).map(orderMapping::tupleToTableInfoDto);
+        if (format == ExportFormat.NDJSON) {
+            long rows = jsonStreamWriter.write(orders, StreamFormat.NDJSON, outputStream);
+            log.info("Exported {} orders as {}.", rows, format);
+            return rows;
+        }
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        writer.write(ORDER_CSV_HEADER);
+        long rows = 0;
+        try (orders) {
+            Iterator<OrdersTableInfoDto> iterator = orders.iterator();
+            while (iterator.hasNext()) {
+                writeCsvRow(writer, iterator.next());
+                rows++;
+            }
+        }
+        writer.flush();
+
+        log.info("Exported {} orders as {}.", rows, format);
+        return rows;
+    }
+
+    public List<OrderNameIdDto> getOrdersWithoutJob() {
+        log.info("Fetched orders that don't have a job associated with them.");
+        return orderRepository.getOrdersWithoutJob();
+    }
+
+    private static Sort orderSort(OrderSearchCriteria criteria) {
         String sortBy = criteria.getSortBy() != null ? criteria.getSortBy() : "orderId";
         if (sortBy.equals("customerName")) {
             sortBy = "customer.name";
@@ -100,10 +239,11 @@ public class OrderService {
         Sort.Direction direction = (criteria.getSortDirection() == null || "desc".equalsIgnoreCase(criteria.getSortDirection()))
                 ? Sort.Direction.DESC
                 : Sort.Direction.ASC;
+        return Sort.by(direction, sortBy);
+    }
 
-        Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
-
-        Specification<OrderEntity> spec = Specification.where(
+    private static Specification<OrderEntity> orderFilters(OrderSearchCriteria criteria) {
+        return Specification.where(
                 OrderSpecifications.orderId(criteria.getOrderId())
                         .and(OrderSpecifications.customerNameLike(criteria.getCustomerName()))
                         .and(OrderSpecifications.pickupDateBetween(criteria.getPickupStartDate(), criteria.getPickupEndDate()))
@@ -113,15 +253,12 @@ public class OrderService {
                         .and(OrderSpecifications.widthBetween(criteria.getMinWidth(), criteria.getMaxWidth()))
                         .and(OrderSpecifications.heightBetween(criteria.getMinHeight(), criteria.getMaxHeight()))
         );
-
-        Page<OrderEntity> orderEntities = orderRepository.findAll(spec, pageable);
-        Page<OrdersTableInfoDto> orderDtos = orderMapping.orderPageToDtoPage(orderEntities, pageable);
-        log.info("Found {} orders matching the criteria.", orderDtos.getTotalElements());
-        return new PageResponse<>(orderDtos);
     }
 
-    public List<OrderNameIdDto> getOrdersWithoutJob() {
-        log.info("Fetched orders that don't have a job associated with them.");
-        return orderRepository.getOrdersWithoutJob();
+    private static void writeCsvRow(Writer writer, OrdersTableInfoDto order) throws IOException {
+        writer.write(CsvValues.of(order.getOrderId()) + ',' + CsvValues.of(order.getCustomerName()) + ','
+                + CsvValues.of(order.getPickupDate()) + ',' + CsvValues.of(order.getDropOffDate()) + ','
+                + order.getWeight() + ',' + order.getWidth() + ',' + order.getHeight() + ',' + order.getLength() + ','
+                + CsvValues.of(order.getOrderDetails()) + '\n');
     }
 }
@@ -12,6 +12,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RequiredArgsConstructor
@@ -20,6 +21,8 @@ public class PermissionService {
 
     private final PermissionRepository permissionRepository;
     private final PermissionMapping permissionMapping;
+    private final ReferenceDataCache referenceDataCache;
+    private final TableVersions tableVersions;
 
     private static final Logger log = LoggerFactory.getLogger(PermissionService.class);
 
@@ -29,6 +32,8 @@ public class PermissionService {
         }
         PermissionEntity permissionEntity = new PermissionEntity(null, permissionDto.getDescription());
         PermissionEntity savedPermissionEntity = permissionRepository.save(permissionEntity);
+        referenceDataCache.putPermission(savedPermissionEntity.getPermissionId(), savedPermissionEntity.getDescription());
+        tableVersions.changed(PermissionEntity.class);
 
         log.info("Created permission with description: {}", permissionDto.getDescription());
 
@@ -36,26 +41,28 @@ public class PermissionService {
     }
 
     public List<PermissionDto> getAllPermissions() {
-        List<PermissionEntity> permissionEntities = permissionRepository.findAll();
+        Map<Integer, String> permissions = referenceDataCache.permissions();
 
-        if (permissionEntities.isEmpty()) {
+        if (permissions.isEmpty()) {
             throw new NotFoundException("There are no permissions!");
         }
 
-        log.info("Fetched all permissions, count: {}", permissionEntities.size());
+        log.info("Fetched all permissions, count: {}", permissions.size());
 
-        return permissionMapping.permissionListToDtoList(permissionEntities);
+        return permissions.values().stream()
+                .map(PermissionDto::new)
+                .toList();
     }
 
     public Optional<PermissionDto> getPermissionById(Integer id) {
-        Optional<PermissionEntity> permissionEntity = permissionRepository.findById(id);
+        String description = referenceDataCache.permissions().get(id);
 
-        if (permissionEntity.isEmpty()) {
+        if (description == null) {
             throw new NotFoundException("Permission with this ID does not exist");
         }
 
         log.info("Fetched permission with ID: {}", id);
 
-        return permissionEntity.map(permissionMapping::permissionToDto);
+        return Optional.of(new PermissionDto(description));
     }
 }
@@ -0,0 +1,97 @@
+package ee.taltech.iti03022024project.service;
+
+import ee.taltech.iti03022024project.entity.CertificationTypeEntity;
+import ee.taltech.iti03022024project.entity.PermissionEntity;
+import ee.taltech.iti03022024project.repository.CertificationTypeRepository;
+import ee.taltech.iti03022024project.repository.PermissionRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Permissions and certification types, the small tables every screen loads, held as one immutable snapshot ordered
+ * by ID. It is read when the application is ready and replaced as a whole when the services write one of the rows,
+ * so readers never wait and never see half an update. Rows written past the services, by another instance or by
+ * hand, are only picked up on the next {@link #reload()}.
+ */
+@RequiredArgsConstructor
+@Component
+public class ReferenceDataCache {
+
+    private final PermissionRepository permissionRepository;
+    private final CertificationTypeRepository certificationTypeRepository;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+    private static final Logger log = LoggerFactory.getLogger(ReferenceDataCache.class);
+
+    private record Snapshot(SortedMap<Integer, String> permissions, SortedMap<Integer, String> certificationTypes) {
+
+        Snapshot withPermission(Integer id, String description) {
+            return new Snapshot(copyWith(permissions, id, description), certificationTypes);
+        }
+
+        Snapshot withCertificationType(Integer id, String name) {
+            return new Snapshot(permissions, copyWith(certificationTypes, id, name));
+        }
+
+        private static SortedMap<Integer, String> copyWith(SortedMap<Integer, String> values, Integer id, String value) {
+            TreeMap<Integer, String> copy = new TreeMap<>(values);
+            copy.put(id, value);
+            return Collections.unmodifiableSortedMap(copy);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        TreeMap<Integer, String> permissions = new TreeMap<>();
+        for (PermissionEntity permission : permissionRepository.findAll()) {
+            permissions.put(permission.getPermissionId(), permission.getDescription());
+        }
+        TreeMap<Integer, String> certificationTypes = new TreeMap<>();
+        for (CertificationTypeEntity certificationType : certificationTypeRepository.findAll()) {
+            certificationTypes.put(certificationType.getCertificationTypeId(), certificationType.getCertificationName());
+        }
+
+        snapshot.set(new Snapshot(Collections.unmodifiableSortedMap(permissions), Collections.unmodifiableSortedMap(certificationTypes)));
+        log.info("Cached {} permissions and {} certification types.", permissions.size(), certificationTypes.size());
+    }
+
+    // Descriptions by permission ID
+    public SortedMap<Integer, String> permissions() {
+        return current().permissions();
+    }
+
+    // Names by certification type ID
+    public SortedMap<Integer, String> certificationTypes() {
+        return current().certificationTypes();
+    }
+
+    public void putPermission(Integer id, String description) {
+        current();
+        snapshot.updateAndGet(previous -> previous.withPermission(id, description));
+    }
+
+    public void putCertificationType(Integer id, String name) {
+        current();
+        snapshot.updateAndGet(previous -> previous.withCertificationType(id, name));
+    }
+
+    // Requests can arrive before the application is ready, the first one loads the snapshot then
+    private Snapshot current() {
+        Snapshot current = snapshot.get();
+        if (current == null) {
+            reload();
+            current = snapshot.get();
+        }
+        return current;
+    }
+}
@@ -0,0 +1,198 @@
+package ee.taltech.iti03022024project.service;
+
+import ee.taltech.iti03022024project.dto.VehiclePlateDto;
+import ee.taltech.iti03022024project.repository.VehicleRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory index of registration plates by their two and three character substrings, used to turn plate substring
+ * filters into vehicle ID filters. It is filled when the application is ready and kept current by VehicleService,
+ * plates written in a transaction are applied once it commits. Vehicles written past the service, by another
+ * instance or by hand, are only picked up on the next {@link #reload()}.
+ * <p>
+ * The ID set of a substring is never changed in place, a write replaces the sets of the substrings it touches with
+ * copies. It adds the vehicle under its new substrings first, then switches its plate and only then removes it from
+ * the substrings it no longer has, so a filter that matches both the old and the new plate always finds it.
+ * <p>
+ * Unlike the LIKE filter it replaces, the index matches the fragment literally. Fragments with the LIKE wildcards
+ * {@code %} and {@code _} or an escape character are left to LIKE, as are single characters, which match too many
+ * plates to be worth an ID list.
+ */
+@RequiredArgsConstructor
+@Component
+public class RegistrationPlateIndex {
+
+    private static final int MIN_GRAM = 2;
+    private static final int MAX_GRAM = 3;
+    // Longer ID lists make a worse predicate than the LIKE they replace
+    static final int MAX_MATCHES = 1000;
+
+    private final VehicleRepository vehicleRepository;
+
+    // Null until the first reload, replaced as a whole by every reload. Written under the lock of this
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+    private static final Logger log = LoggerFactory.getLogger(RegistrationPlateIndex.class);
+
+    // The ID sets are unmodifiable
+    private record Snapshot(Map<Integer, String> platesById, Map<String, Set<Integer>> idsByGram) {}
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reload() {
+        List<VehiclePlateDto> plates = vehicleRepository.findAllPlates();
+        Map<Integer, String> platesById = new ConcurrentHashMap<>();
+        Map<String, Set<Integer>> ids = new HashMap<>();
+        for (VehiclePlateDto plate : plates) {
+            if (plate.getVehicleId() == null || plate.getRegistrationPlate() == null) continue;
+            String registrationPlate = plate.getRegistrationPlate().toLowerCase();
+            platesById.put(plate.getVehicleId(), registrationPlate);
+            for (String gram : grams(registrationPlate)) {
+                ids.computeIfAbsent(gram, key -> new HashSet<>()).add(plate.getVehicleId());
+            }
+        }
+        Map<String, Set<Integer>> idsByGram = new ConcurrentHashMap<>();
+        ids.forEach((gram, vehicleIds) -> idsByGram.put(gram, Set.copyOf(vehicleIds)));
+
+        snapshot.set(new Snapshot(platesById, idsByGram));
+        log.info("Indexed {} registration plates.", plates.size());
+    }
+
+    public void put(Integer vehicleId, String registrationPlate) {
+        putAll(Collections.singletonMap(vehicleId, registrationPlate));
+    }
+
+    /**
+     * Sets the plates of the vehicles, by vehicle ID. Inside a transaction they are applied after it commits, so
+     * a rolled back write never reaches the index.
+     */
+    public void putAll(Map<Integer, String> platesById) {
+        Map<Integer, String> plates = new HashMap<>(platesById);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(plates);
+                }
+            });
+        } else {
+            apply(plates);
+        }
+    }
+
+    /**
+     * IDs of the vehicles whose plate contains the fragment, ignoring case. Empty when the index can't answer:
+     * there is no fragment or a single character, the fragment has LIKE wildcards, the index isn't loaded yet or
+     * too many vehicles match.
+     */
+    public Optional<Set<Integer>> findVehicleIds(String fragment) {
+        Snapshot current = snapshot.get();
+        if (current == null || fragment == null || fragment.length() < MIN_GRAM
+                || fragment.indexOf('%') >= 0 || fragment.indexOf('_') >= 0 || fragment.indexOf('\\') >= 0) {
+            return Optional.empty();
+        }
+
+        String needle = fragment.toLowerCase();
+        Set<Integer> candidates = candidates(current, needle);
+        // The set of a short needle holds exactly its matches
+        if (needle.length() <= MAX_GRAM && candidates.size() > MAX_MATCHES) {
+            return Optional.empty();
+        }
+
+        Set<Integer> matches = new HashSet<>();
+        for (Integer vehicleId : candidates) {
+            String plate = current.platesById().get(vehicleId);
+            if (plate != null && plate.contains(needle)) {
+                matches.add(vehicleId);
+                if (matches.size() > MAX_MATCHES) {
+                    return Optional.empty();
+                }
+            }
+        }
+        return Optional.of(matches);
+    }
+
+    // Before the first reload there is nothing to apply to, the reload reads the committed plates itself
+    private synchronized void apply(Map<Integer, String> plates) {
+        Snapshot current = snapshot.get();
+        if (current == null) {
+            return;
+        }
+        plates.forEach((vehicleId, registrationPlate) -> {
+            if (vehicleId == null || registrationPlate == null) return;
+            String plate = registrationPlate.toLowerCase();
+            String previous = current.platesById().get(vehicleId);
+            Set<String> added = grams(plate);
+            Set<String> removed = previous != null ? grams(previous) : new HashSet<>();
+            Set<String> kept = new HashSet<>(added);
+            kept.retainAll(removed);
+            added.removeAll(kept);
+            removed.removeAll(kept);
+
+            for (String gram : added) {
+                current.idsByGram().compute(gram, (key, ids) -> with(ids, vehicleId));
+            }
+            current.platesById().put(vehicleId, plate);
+            for (String gram : removed) {
+                current.idsByGram().computeIfPresent(gram, (key, ids) -> without(ids, vehicleId));
+            }
+        });
+    }
+
+    private static Set<Integer> candidates(Snapshot snapshot, String needle) {
+        if (needle.length() <= MAX_GRAM) {
+            return snapshot.idsByGram().getOrDefault(needle, Set.of());
+        }
+        Set<Integer> smallest = null;
+        for (int i = 0; i + MAX_GRAM <= needle.length(); i++) {
+            Set<Integer> ids = snapshot.idsByGram().get(needle.substring(i, i + MAX_GRAM));
+            if (ids == null) {
+                return Set.of();
+            }
+            if (smallest == null || ids.size() < smallest.size()) {
+                smallest = ids;
+            }
+        }
+        // Every match contains all trigrams of the needle, so the rarest one narrows the candidates the most
+        return smallest;
+    }
+
+    private static Set<Integer> with(Set<Integer> ids, Integer vehicleId) {
+        Set<Integer> copy = ids != null ? new HashSet<>(ids) : new HashSet<>();
+        copy.add(vehicleId);
+        return Collections.unmodifiableSet(copy);
+    }
+
+    // Null when no ID is left, which removes the substring
+    private static Set<Integer> without(Set<Integer> ids, Integer vehicleId) {
+        Set<Integer> copy = new HashSet<>(ids);
+        copy.remove(vehicleId);
+        return copy.isEmpty() ? null : Collections.unmodifiableSet(copy);
+    }
+
+    private static Set<String> grams(String value) {
+        Set<String> grams = new HashSet<>();
+        for (int length = MIN_GRAM; length <= MAX_GRAM; length++) {
+            for (int i = 0; i + length <= value.length(); i++) {
+                grams.add(value.substring(i, i + length));
+            }
+        }
+        return grams;
+    }
+}
@@ -0,0 +1,218 @@
+package ee.taltech.iti03022024project.service;
+
+import ee.taltech.iti03022024project.dto.report.ReportDto;
+import ee.taltech.iti03022024project.dto.report.ReportStatus;
+import ee.taltech.iti03022024project.dto.report.ReportType;
+import ee.taltech.iti03022024project.dto.searchcriteria.DoneJobSearchCriteria;
+import ee.taltech.iti03022024project.dto.searchcriteria.ExportFormat;
+import ee.taltech.iti03022024project.dto.searchcriteria.OrderSearchCriteria;
+import ee.taltech.iti03022024project.exception.NotFoundException;
+import ee.taltech.iti03022024project.exception.TooManyRequestsException;
+import ee.taltech.iti03022024project.exception.WrongValueException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates reports in the background, so large exports don't hold a request open until a proxy times it out.
+ * Every report gets its own virtual thread, at most {@code reports.max-running} of them write at a time and the
+ * others wait for a slot. A report is written to a temporary file and moved into place when complete, so a
+ * downloaded file is never partial. Finished reports are kept for {@code reports.retention}.
+ * <p>
+ * Report state lives in memory, reports of a previous run are deleted on startup.
+ */
+@Service
+public class ReportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportService.class);
+    private static final String FILE_PREFIX = "report-";
+    private static final int FILE_BUFFER_SIZE = 64 * 1024;
+
+    private final JobService jobService;
+    private final OrderService orderService;
+    private final Path directory;
+    private final int maxPending;
+    private final Duration retention;
+    private final Semaphore runningSlots;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Map<UUID, Report> reports = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("report-", 0).factory());
+
+    public record ReportFile(Path path, String fileName, ExportFormat format) {}
+
+    @FunctionalInterface
+    private interface ReportWriter {
+        long write(OutputStream outputStream) throws IOException;
+    }
+
+    // Fields change only on the generating thread. Status is written last, so a reader that sees DONE sees the rest
+    private static final class Report {
+        private final UUID id;
+        private final ReportType type;
+        private final ExportFormat format;
+        private final Instant createdAt = Instant.now();
+        private final Path file;
+        private volatile Long rows;
+        private volatile String error;
+        private volatile Instant finishedAt;
+        private volatile ReportStatus status = ReportStatus.QUEUED;
+
+        private Report(UUID id, ReportType type, ExportFormat format, Path directory) {
+            this.id = id;
+            this.type = type;
+            this.format = format;
+            this.file = directory.resolve(FILE_PREFIX + id + "." + format.name().toLowerCase(Locale.ROOT));
+        }
+
+        private ReportDto toDto() {
+            return new ReportDto(id, type, format, status, rows, error, createdAt, finishedAt);
+        }
+    }
+
+    public ReportService(JobService jobService, OrderService orderService,
+                         @Value("${reports.directory:${java.io.tmpdir}/erp-reports}") Path directory,
+                         @Value("${reports.max-running:4}") int maxRunning,
+                         @Value("${reports.max-pending:100}") int maxPending,
+                         @Value("${reports.retention:PT1H}") Duration retention) throws IOException {
+        this.jobService = jobService;
+        this.orderService = orderService;
+        this.directory = Files.createDirectories(directory);
+        this.runningSlots = new Semaphore(maxRunning);
+        this.maxPending = maxPending;
+        this.retention = retention;
+        deleteFilesOfPreviousRun();
+    }
+
+    public ReportDto submitDoneJobsReport(DoneJobSearchCriteria criteria, ExportFormat format) {
+        return submit(ReportType.DONE_JOBS, format, outputStream -> jobService.exportDoneJobs(criteria, format, outputStream));
+    }
+
+    public ReportDto submitOrdersReport(OrderSearchCriteria criteria, ExportFormat format) {
+        return submit(ReportType.ORDERS, format, outputStream -> orderService.exportOrders(criteria, format, outputStream));
+    }
+
+    public ReportDto getReport(UUID id) {
+        return findReport(id).toDto();
+    }
+
+    public ReportFile getReportFile(UUID id) {
+        Report report = findReport(id);
+        if (report.status != ReportStatus.DONE) {
+            throw new WrongValueException("Report with ID " + id + " is " + report.status + ", only DONE reports can be downloaded.");
+        }
+        String fileName = report.type.name().toLowerCase(Locale.ROOT).replace('_', '-') + "."
+                + report.format.name().toLowerCase(Locale.ROOT);
+        return new ReportFile(report.file, fileName, report.format);
+    }
+
+    @Scheduled(fixedDelayString = "${reports.cleanup-interval:PT5M}")
+    public void deleteExpiredReports() {
+        Instant expiredBefore = Instant.now().minus(retention);
+        reports.values().removeIf(report -> {
+            if (report.finishedAt == null || report.finishedAt.isAfter(expiredBefore)) return false;
+            deleteQuietly(report.file);
+            log.info("Deleted expired report {}.", report.id);
+            return true;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private ReportDto submit(ReportType type, ExportFormat format, ReportWriter writer) {
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            throw new TooManyRequestsException("Too many reports are waiting to be generated, try again later.");
+        }
+
+        Report report = new Report(UUID.randomUUID(), type, format, directory);
+        reports.put(report.id, report);
+        executor.execute(() -> generate(report, writer));
+
+        log.info("Queued {} report {} as {}.", type, report.id, format);
+        return report.toDto();
+    }
+
+    private void generate(Report report, ReportWriter writer) {
+        Path partFile = report.file.resolveSibling(report.file.getFileName() + ".part");
+        try {
+            runningSlots.acquire();
+            try {
+                report.status = ReportStatus.RUNNING;
+                long rows;
+                try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(partFile), FILE_BUFFER_SIZE)) {
+                    rows = writer.write(outputStream);
+                }
+                Files.move(partFile, report.file, StandardCopyOption.ATOMIC_MOVE);
+                report.rows = rows;
+                finish(report, ReportStatus.DONE);
+                log.info("Generated {} report {} with {} rows.", report.type, report.id, rows);
+            } finally {
+                runningSlots.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            report.error = "Report generation was interrupted.";
+            finish(report, ReportStatus.FAILED);
+        } catch (Exception e) {
+            log.error("Generating {} report {} failed", report.type, report.id, e);
+            deleteQuietly(partFile);
+            report.error = "Report generation failed.";
+            finish(report, ReportStatus.FAILED);
+        } finally {
+            pending.decrementAndGet();
+        }
+    }
+
+    private static void finish(Report report, ReportStatus status) {
+        report.finishedAt = Instant.now();
+        report.status = status;
+    }
+
+    private Report findReport(UUID id) {
+        Report report = reports.get(id);
+        if (report == null) {
+            throw new NotFoundException("Report with ID " + id + " does not exist.");
+        }
+        return report;
+    }
+
+    private void deleteFilesOfPreviousRun() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, FILE_PREFIX + "*")) {
+            for (Path file : files) {
+                deleteQuietly(file);
+            }
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete report file {}", file, e);
+        }
+    }
+}
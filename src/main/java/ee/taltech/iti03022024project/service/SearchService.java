@@ -0,0 +1,37 @@
+package ee.taltech.iti03022024project.service;
+
+import ee.taltech.iti03022024project.dto.SearchHitDto;
+import ee.taltech.iti03022024project.exception.WrongValueException;
+import ee.taltech.iti03022024project.repository.SearchRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+@Service
+public class SearchService {
+
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 100;
+
+    private final SearchRepository searchRepository;
+
+    private static final Logger log = LoggerFactory.getLogger(SearchService.class);
+
+    public List<SearchHitDto> search(String term, Integer limit) {
+        if (term == null || term.isBlank()) {
+            throw new WrongValueException("Search term can't be empty!");
+        }
+        int hitLimit = limit != null ? limit : DEFAULT_LIMIT;
+        if (hitLimit < 1 || hitLimit > MAX_LIMIT) {
+            throw new WrongValueException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+
+        List<SearchHitDto> hits = searchRepository.search(term.trim(), hitLimit);
+        log.info("Found {} search hits for term: {}", hits.size(), term);
+        return hits;
+    }
+}
@@ -0,0 +1,171 @@
+package ee.taltech.iti03022024project.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Results of table searches by their criteria, so the default views that many users open are read once. An entry
+ * is used while none of the tables it was read from has changed since, as counted by {@link TableVersions}, and for
+ * {@code table-cache.ttl} at most, which bounds how long rows written past the services stay unseen. At most
+ * {@code table-cache.max-entries} results are kept, the least recently used are dropped first.
+ * <p>
+ * Hits, misses, the hit ratio, the number of entries and their approximate size are published as
+ * {@code table.cache.*} metrics. The size is measured as the length of the results written as JSON.
+ */
+@Component
+public class TableResultCache {
+
+    private static final ObjectWriter SIZE_WRITER = Jackson2ObjectMapperBuilder.json().build()
+            .writer(new SimpleFilterProvider().setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()));
+
+    private final TableVersions tableVersions;
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    // Access ordered, the first entry is the least recently used. Guarded by this
+    private final LinkedHashMap<String, CachedResult> results = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private static final Logger log = LoggerFactory.getLogger(TableResultCache.class);
+
+    public TableResultCache(TableVersions tableVersions, MeterRegistry meterRegistry,
+                            @Value("${table-cache.max-entries:500}") int maxEntries,
+                            @Value("${table-cache.ttl:PT1M}") Duration ttl) {
+        this.tableVersions = tableVersions;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+
+        FunctionCounter.builder("table.cache.requests", hits, AtomicLong::get)
+                .tag("result", "hit")
+                .description("Table searches answered from the cache")
+                .register(meterRegistry);
+        FunctionCounter.builder("table.cache.requests", misses, AtomicLong::get)
+                .tag("result", "miss")
+                .description("Table searches read from the database")
+                .register(meterRegistry);
+        Gauge.builder("table.cache.hit.ratio", this, TableResultCache::hitRatio)
+                .description("Share of table searches answered from the cache")
+                .register(meterRegistry);
+        Gauge.builder("table.cache.entries", this, TableResultCache::size)
+                .description("Cached table search results")
+                .register(meterRegistry);
+        Gauge.builder("table.cache.memory", this, TableResultCache::memoryBytes)
+                .baseUnit("bytes")
+                .description("Approximate size of the cached results, written as JSON")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached result of the search, or runs it and caches the result. The table names the search, the
+     * criteria's {@code toString()} must name every value that changes the result, and the entities are the tables
+     * the search reads from.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String table, Object criteria, Supplier<T> search, Class<?>... entities) {
+        String key = table + '|' + criteria;
+        // Read before the search, a write committed while it runs leaves the entry behind the tables
+        long[] versions = versions(entities);
+        long now = System.currentTimeMillis();
+
+        synchronized (this) {
+            CachedResult cached = results.get(key);
+            if (cached != null) {
+                if (cached.expiresAt > now && Arrays.equals(cached.versions, versions)) {
+                    hits.incrementAndGet();
+                    return (T) cached.value;
+                }
+                remove(key);
+            }
+        }
+
+        misses.incrementAndGet();
+        T value = search.get();
+        long bytes = sizeOf(value);
+
+        synchronized (this) {
+            CachedResult previous = results.put(key, new CachedResult(value, versions, now + ttlMillis, bytes));
+            if (previous != null) {
+                totalBytes -= previous.bytes;
+            }
+            totalBytes += bytes;
+            Iterator<CachedResult> leastRecentlyUsed = results.values().iterator();
+            while (results.size() > maxEntries && leastRecentlyUsed.hasNext()) {
+                totalBytes -= leastRecentlyUsed.next().bytes;
+                leastRecentlyUsed.remove();
+            }
+        }
+        return value;
+    }
+
+    public synchronized int size() {
+        return results.size();
+    }
+
+    public synchronized long memoryBytes() {
+        return totalBytes;
+    }
+
+    public double hitRatio() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    private long[] versions(Class<?>... entities) {
+        long[] versions = new long[entities.length];
+        for (int i = 0; i < entities.length; i++) {
+            versions[i] = tableVersions.version(entities[i]);
+        }
+        return versions;
+    }
+
+    private void remove(String key) {
+        CachedResult removed = results.remove(key);
+        if (removed != null) {
+            totalBytes -= removed.bytes;
+        }
+    }
+
+    private static long sizeOf(Object value) {
+        try {
+            return SIZE_WRITER.writeValueAsBytes(value).length;
+        } catch (JsonProcessingException e) {
+            log.debug("Could not measure cached table result", e);
+            return 0;
+        }
+    }
+
+    private static class CachedResult {
+        private final Object value;
+        private final long[] versions;
+        private final long expiresAt;
+        private final long bytes;
+
+        private CachedResult(Object value, long[] versions, long expiresAt, long bytes) {
+            this.value = value;
+            this.versions = versions;
+            this.expiresAt = expiresAt;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package ee.taltech.iti03022024project.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A version per entity table, counted up by the services after every write to it. A table response tagged with the
+ * versions of the tables it reads can be answered with 304 Not Modified, without a query, for as long as none of
+ * them changes. Writes made in a transaction count when the transaction completes, so a response read before the
+ * commit isn't tagged with the new versions.
+ */
+@Component
+public class TableVersions {
+
+    // The versions start over with the application, so tags given out by another run must never match
+    private final String generation = Long.toHexString(new SecureRandom().nextLong());
+    private final Map<Class<?>, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public void changed(Class<?>... entities) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    increment(entities);
+                }
+            });
+        } else {
+            increment(entities);
+        }
+    }
+
+    public long version(Class<?> entity) {
+        AtomicLong version = versions.get(entity);
+        return version != null ? version.get() : 0;
+    }
+
+    /**
+     * Weak ETag of a table response, derived from the versions of the tables it reads and the criteria, whose
+     * {@code toString()} must name every value that changes the response. The variant tells apart the
+     * representations of the same response, such as JSON and CBOR.
+     */
+    public String etag(Object criteria, String variant, Class<?>... entities) {
+        StringBuilder key = new StringBuilder(generation);
+        for (Class<?> entity : entities) {
+            key.append('|').append(entity.getSimpleName()).append('=').append(version(entity));
+        }
+        key.append('|').append(criteria).append('|').append(variant);
+        return "W/\"" + hash(key.toString()) + "\"";
+    }
+
+    private void increment(Class<?>... entities) {
+        for (Class<?> entity : entities) {
+            versions.computeIfAbsent(entity, key -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    private static String hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 18));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
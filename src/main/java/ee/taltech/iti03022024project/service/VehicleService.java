@@ -1,28 +1,44 @@
 package ee.taltech.iti03022024project.service;
 
 import ee.taltech.iti03022024project.dto.PageResponse;
+import ee.taltech.iti03022024project.dto.UpdateVehicleRequestDto;
 import ee.taltech.iti03022024project.dto.VehicleDto;
+import ee.taltech.iti03022024project.dto.VehiclePlateDto;
 import ee.taltech.iti03022024project.dto.query.VehicleTableInfoDto;
+import ee.taltech.iti03022024project.dto.searchcriteria.CountMode;
+import ee.taltech.iti03022024project.dto.searchcriteria.StreamFormat;
 import ee.taltech.iti03022024project.dto.searchcriteria.VehicleSearchCriteria;
 import ee.taltech.iti03022024project.entity.VehicleEntity;
 import ee.taltech.iti03022024project.exception.AlreadyExistsException;
 import ee.taltech.iti03022024project.exception.NotFoundException;
 import ee.taltech.iti03022024project.exception.WrongValueException;
 import ee.taltech.iti03022024project.mapping.VehicleMapping;
+import ee.taltech.iti03022024project.repository.TableQueryExecutor;
 import ee.taltech.iti03022024project.repository.VehicleRepository;
+import ee.taltech.iti03022024project.repository.VehicleTableColumns;
 import ee.taltech.iti03022024project.repository.specifications.VehicleSpecifications;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @RequiredArgsConstructor
 @Service
@@ -30,8 +46,16 @@ public class VehicleService {
 
     private final VehicleRepository vehicleRepository;
     private final VehicleMapping vehicleMapping;
+    private final TableQueryExecutor tableQueryExecutor;
+    private final CountEstimator countEstimator;
+    private final RegistrationPlateIndex registrationPlateIndex;
+    private final JsonStreamWriter jsonStreamWriter;
+    private final TableResultCache tableResultCache;
+    private final TableVersions tableVersions;
 
     private static final Logger log = LoggerFactory.getLogger(VehicleService.class);
+    private static final int MAX_BATCH_SIZE = 10_000;
+    private static final UpdateVehicleRequestDto NO_CHANGE = new UpdateVehicleRequestDto();
 
     public VehicleDto createVehicle(VehicleDto vehicleDto) {
         if (vehicleRepository.existsByRegistrationPlate(vehicleDto.getRegistrationPlate())) {
@@ -41,6 +65,8 @@ public class VehicleService {
         VehicleEntity vehicleEntity = new VehicleEntity(null, vehicleDto.getVehicleType(),
                 vehicleDto.getIsInUse(), vehicleDto.getMaxLoad(), vehicleDto.getCurrentFuel(), vehicleDto.getRegistrationPlate());
         VehicleEntity savedVehicleEntity = vehicleRepository.save(vehicleEntity);
+        registrationPlateIndex.put(savedVehicleEntity.getVehicleId(), savedVehicleEntity.getRegistrationPlate());
+        tableVersions.changed(VehicleEntity.class);
 
         log.info("Created vehicle with registration plate: {}", vehicleDto.getRegistrationPlate());
 
@@ -58,6 +84,13 @@ public class VehicleService {
         return vehicleMapping.vehicleListToDtoList(vehicleEntities);
     }
 
+    @Transactional(readOnly = true)
+    public long streamAllVehicles(StreamFormat format, OutputStream outputStream) throws IOException {
+        long count = jsonStreamWriter.write(vehicleRepository.streamAll(), format, outputStream);
+        log.info("Streamed {} vehicles.", count);
+        return count;
+    }
+
     public Optional<VehicleDto> getVehicleById(Integer id) {
         log.info("Fetching vehicle with id {}", id);
         Optional<VehicleEntity> vehicleEntity = vehicleRepository.findById(id);
@@ -111,6 +144,8 @@ public class VehicleService {
 
         // Save the updated vehicle entity
         VehicleEntity updatedVehicle = vehicleRepository.save(vehicleEntity);
+        registrationPlateIndex.put(updatedVehicle.getVehicleId(), updatedVehicle.getRegistrationPlate());
+        tableVersions.changed(VehicleEntity.class);
 
         log.info("Updated vehicle with ID: {}", id);
 
@@ -118,7 +153,79 @@ public class VehicleService {
         return Optional.of(vehicleMapping.vehicleToDto(updatedVehicle));
     }
 
+    /**
+     * Applies partial changes to many vehicles, null fields are left unchanged. Vehicles getting the same change
+     * are updated by one statement, so a fleet-wide change such as taking every vehicle out of use is a single
+     * UPDATE. IDs and registration plates are checked with one query each before anything is written.
+     */
+    @Transactional
+    public List<VehicleDto> updateVehicles(List<VehicleDto> vehicleDtos) {
+        if (vehicleDtos == null || vehicleDtos.isEmpty() || vehicleDtos.size() > MAX_BATCH_SIZE) {
+            throw new WrongValueException("A vehicle batch must contain 1 to " + MAX_BATCH_SIZE + " vehicles.");
+        }
+
+        Set<Integer> vehicleIds = new LinkedHashSet<>();
+        Map<String, Integer> vehicleIdsByPlate = new HashMap<>();
+        Map<Integer, String> platesByVehicleId = new HashMap<>();
+        Map<UpdateVehicleRequestDto, List<Integer>> vehicleIdsByChange = new LinkedHashMap<>();
+        for (VehicleDto vehicleDto : vehicleDtos) {
+            if (vehicleDto == null || vehicleDto.getVehicleId() == null) {
+                throw new WrongValueException("Vehicle ID is required.");
+            }
+            if (!vehicleIds.add(vehicleDto.getVehicleId())) {
+                throw new WrongValueException("Vehicle with ID " + vehicleDto.getVehicleId() + " is in the batch more than once.");
+            }
+            String registrationPlate = vehicleDto.getRegistrationPlate();
+            if (registrationPlate != null) {
+                if (registrationPlate.length() != 6) {
+                    throw new WrongValueException("Numberplate doesn't match criteria!");
+                }
+                if (vehicleIdsByPlate.put(registrationPlate, vehicleDto.getVehicleId()) != null) {
+                    throw new AlreadyExistsException("Registration plate " + registrationPlate + " is given to more than one vehicle.");
+                }
+                platesByVehicleId.put(vehicleDto.getVehicleId(), registrationPlate);
+            }
+
+            UpdateVehicleRequestDto change = new UpdateVehicleRequestDto(vehicleDto.getVehicleType(), vehicleDto.getIsInUse(),
+                    vehicleDto.getMaxLoad(), vehicleDto.getCurrentFuel(), registrationPlate);
+            if (!change.equals(NO_CHANGE)) {
+                vehicleIdsByChange.computeIfAbsent(change, key -> new ArrayList<>()).add(vehicleDto.getVehicleId());
+            }
+        }
+
+        Set<Integer> existingIds = vehicleRepository.findExistingIds(vehicleIds);
+        for (Integer vehicleId : vehicleIds) {
+            if (!existingIds.contains(vehicleId)) {
+                throw new NotFoundException("Vehicle with ID " + vehicleId + " does not exist.");
+            }
+        }
+        if (!vehicleIdsByPlate.isEmpty()) {
+            // A plate is free when its vehicle gets another plate in the same batch, so plates can be swapped
+            for (VehiclePlateDto taken : vehicleRepository.findPlatesIn(vehicleIdsByPlate.keySet())) {
+                if (!taken.getVehicleId().equals(vehicleIdsByPlate.get(taken.getRegistrationPlate()))
+                        && !platesByVehicleId.containsKey(taken.getVehicleId())) {
+                    throw new AlreadyExistsException("Vehicle with registration plate " + taken.getRegistrationPlate() + " already exists.");
+                }
+            }
+        }
+
+        vehicleIdsByChange.forEach((change, ids) -> vehicleRepository.updateAll(ids, change.getVehicleType(),
+                change.getIsInUse(), change.getMaxLoad(), change.getCurrentFuel(), change.getRegistrationPlate()));
+        if (!platesByVehicleId.isEmpty()) {
+            registrationPlateIndex.putAll(platesByVehicleId);
+        }
+        tableVersions.changed(VehicleEntity.class);
+
+        List<VehicleDto> updatedVehicles = vehicleRepository.findDtosByIds(vehicleIds);
+        log.info("Updated {} vehicles with {} statements.", updatedVehicles.size(), vehicleIdsByChange.size());
+        return updatedVehicles;
+    }
+
     public PageResponse<VehicleTableInfoDto> searchVehicleTable(VehicleSearchCriteria criteria) {
+        return tableResultCache.get("vehicle", criteria, () -> readVehicleTable(criteria), VehicleEntity.class);
+    }
+
+    private PageResponse<VehicleTableInfoDto> readVehicleTable(VehicleSearchCriteria criteria) {
         log.info("Searching vehicles with criteria: {}", criteria);
 
         int page = criteria.getPage() != null ? criteria.getPage() : 0;
@@ -134,14 +241,30 @@ public class VehicleService {
                         .and(VehicleSpecifications.isInUse(criteria.getIsInUse()))
                         .and(VehicleSpecifications.loadBetween(criteria.getMinimumLoad(), criteria.getMaximumLoad()))
                         .and(VehicleSpecifications.fuelBetween(criteria.getMinFuel(), criteria.getMaxFuel()))
-                        .and(VehicleSpecifications.registrationPlateLike(criteria.getRegistrationPlate()))
+                        .and(registrationPlateFilter(criteria.getRegistrationPlate()))
         );
 
         Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
 
-        Page<VehicleEntity> vehicleEntities = vehicleRepository.findAll(spec, pageable);
-        Page<VehicleTableInfoDto> vehicleDtos = vehicleMapping.vehiclePageToTableInfoDtoPage(vehicleEntities, pageable);
-        log.info("Fetched {} vehicles based on search criteria.", vehicleDtos.getTotalElements());
-        return new PageResponse<>(vehicleDtos);
+        Set<String> fields = VehicleTableColumns.VEHICLE.resolve(criteria.getFields());
+        Slice<VehicleTableInfoDto> slice = tableQueryExecutor.findTupleSlice(VehicleEntity.class, spec, VehicleTableColumns.VEHICLE.select(fields), pageable)
+                .map(vehicleMapping::tupleToTableInfoDto);
+        log.info("Fetched {} vehicles, more available: {}", slice.getNumberOfElements(), slice.hasNext());
+
+        CountMode countMode = criteria.getCountMode() != null ? criteria.getCountMode() : CountMode.EXACT;
+        return switch (countMode) {
+            case NONE -> new PageResponse<>(slice);
+            case ESTIMATE -> new PageResponse<>(slice, countEstimator.estimate("vehicle", criteria,
+                    criteria.equals(new VehicleSearchCriteria()), () -> vehicleRepository.count(spec)));
+            // Counts only when the slice doesn't already tell where the last page ends
+            case EXACT -> new PageResponse<>(PageableExecutionUtils.getPage(slice.getContent(), pageable,
+                    () -> vehicleRepository.count(spec)));
+        };
+    }
+
+    private Specification<VehicleEntity> registrationPlateFilter(String registrationPlate) {
+        return registrationPlateIndex.findVehicleIds(registrationPlate)
+                .map(VehicleSpecifications::vehicleIdIn)
+                .orElseGet(() -> VehicleSpecifications.registrationPlateLike(registrationPlate));
     }
-}
\ No newline at end of file
+}
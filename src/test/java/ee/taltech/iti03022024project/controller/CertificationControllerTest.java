@@ -8,11 +8,14 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.http.MediaType;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.List;
 
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -30,7 +33,57 @@ class CertificationControllerTest extends AbstractIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @Transactional
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void importCertificationsShouldCreateAndRenewCertifications() throws Exception {
+        List<CertificationDto> certifications = List.of(
+                new CertificationDto(null, 1, 1, LocalDate.of(2026, 1, 18), LocalDate.of(2036, 1, 18)),
+                new CertificationDto(null, 3, 3, LocalDate.of(2026, 2, 1), LocalDate.of(2031, 2, 1)),
+                new CertificationDto(null, 999, 1, LocalDate.of(2026, 2, 1), LocalDate.of(2031, 2, 1))
+        );
+
+        mockMvc.perform(post("/api/certifications/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(certifications)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", is(1)))
+                .andExpect(jsonPath("$.renewed", is(1)))
+                .andExpect(jsonPath("$.unchanged", is(0)))
+                .andExpect(jsonPath("$.rejected", is(1)))
+                .andExpect(jsonPath("$.errors[0]", is("Certification 2: Employee with ID 999 does not exist.")));
+
+        mockMvc.perform(get("/api/certifications/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.expiryDate", is("2036-01-18")));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void importCertificationsShouldTakeIdsFromOnePooledBlock() throws Exception {
+        List<CertificationDto> certifications = List.of(
+                new CertificationDto(null, 3, 2, LocalDate.of(2026, 2, 1), LocalDate.of(2031, 2, 1)),
+                new CertificationDto(null, 3, 3, LocalDate.of(2026, 2, 1), LocalDate.of(2031, 2, 1))
+        );
+
+        mockMvc.perform(post("/api/certifications/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(certifications)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", is(2)));
+
+        List<Integer> ids = jdbcTemplate.queryForList(
+                "SELECT certification_id FROM certification WHERE employee_id = 3 ORDER BY certification_id", Integer.class);
+        assertEquals(2, ids.size());
+        assertEquals(ids.get(0) + 1, ids.get(1));
+    }
+
     @Test
+    @Transactional
     @WithMockUser(username = "admin", authorities = {"ADMIN"})
     void createCertificationShouldCreateNewCertification() throws Exception {
         CertificationDto newCertification = new CertificationDto(
@@ -2,12 +2,16 @@ package ee.taltech.iti03022024project.controller;
 
 import ee.taltech.iti03022024project.AbstractIntegrationTest;
 import ee.taltech.iti03022024project.exception.AlreadyExistsException;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -30,6 +34,21 @@ class CustomerControllerTest extends AbstractIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void streamAllCustomersShouldWriteJsonArray() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/customers/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[*].name", hasItems("John Doe Inc.", "Globex Ltd.")));
+    }
 
     @Test
     @WithMockUser(username = "test")
@@ -156,6 +175,22 @@ class CustomerControllerTest extends AbstractIntegrationTest {
     }
 
 
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void updateCustomerShouldThrowConflictWhenNameDiffersOnlyInCase() throws Exception {
+        CustomerDto updateToDuplicate = new CustomerDto(3, "JOHN DOE INC.", null, null, null, null, null, null);
+
+        mockMvc.perform(put("/api/customers/{id}", 3)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updateToDuplicate)))
+                .andExpect(status().isConflict())
+                .andExpect(result -> assertTrue(result.getResolvedException() instanceof AlreadyExistsException))
+                .andExpect(result -> assertEquals(
+                        "Customer with name JOHN DOE INC. already exists.",
+                        result.getResolvedException().getMessage()
+                ));
+    }
+
     @Test
     @WithMockUser(username = "admin", authorities = {"ADMIN"})
     void searchCustomerTableShouldReturnMatchingResults() throws Exception {
@@ -260,4 +295,20 @@ class CustomerControllerTest extends AbstractIntegrationTest {
                 .andExpect(jsonPath("$.content[0].lastOrderDate").value("2025-01-19T10:00:00"));
 
     }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void searchCustomerTableShouldReadPageWithOneStatement() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(get("/api/customers/table")
+                        .param("sortBy", "lastOrderDate")
+                        .param("sortDirection", "ASC")
+                        .param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", not(empty())));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
 }
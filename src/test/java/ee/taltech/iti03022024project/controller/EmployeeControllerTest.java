@@ -3,6 +3,9 @@ package ee.taltech.iti03022024project.controller;
 import ee.taltech.iti03022024project.AbstractIntegrationTest;
 import ee.taltech.iti03022024project.exception.AlreadyExistsException;
 import ee.taltech.iti03022024project.exception.WrongValueException;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -23,6 +26,9 @@ class EmployeeControllerTest extends AbstractIntegrationTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @Test
     @WithMockUser(username = "admin", authorities = {"ADMIN"})
     void getAllEmployeesShouldReturnEmployeesList() throws Exception {
@@ -414,4 +420,46 @@ class EmployeeControllerTest extends AbstractIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.employeeId", is(employeeId)));
     }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void searchEmployeesShouldFilterByCertificationNamesWithoutDuplicates() throws Exception {
+        mockMvc.perform(get("/api/employees/table")
+                        .param("certificationNames", "B")
+                        .param("page", "0")
+                        .param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements", is(1)))
+                .andExpect(jsonPath("$.content[0].certificationNames", is("B")));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void searchEmployeesShouldFilterByPermissionDescription() throws Exception {
+        mockMvc.perform(get("/api/employees/table")
+                        .param("permissionDescription", "admin")
+                        .param("sortBy", "permissionDescription")
+                        .param("page", "0")
+                        .param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", not(empty())))
+                .andExpect(jsonPath("$.content[*].permissionDescription", everyItem(is("ADMIN"))));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void searchEmployeesShouldReadPageWithOneStatement() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(get("/api/employees/table")
+                        .param("sortBy", "certificationNames")
+                        .param("sortDirection", "ASC")
+                        .param("countMode", "NONE")
+                        .param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", not(empty())));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
 }
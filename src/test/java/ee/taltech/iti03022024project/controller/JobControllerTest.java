@@ -1,8 +1,13 @@
 package ee.taltech.iti03022024project.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import ee.taltech.iti03022024project.AbstractIntegrationTest;
 import ee.taltech.iti03022024project.dto.JobDto;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -10,10 +15,15 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -27,6 +37,9 @@ class JobControllerTest extends AbstractIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @Test
     @WithMockUser(username = "admin", authorities = {"ADMIN"})
     void getAllJobsShouldReturnJobsList() throws Exception {
@@ -104,6 +117,38 @@ class JobControllerTest extends AbstractIntegrationTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @Transactional
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void createJobsShouldCreateValidJobsAndReportFailedOnes() throws Exception {
+        List<JobDto> jobDtos = List.of(
+                new JobDto(null, 1, 1, 1, LocalDateTime.of(2023, 1, 1, 10, 10), LocalDateTime.of(2023, 1, 1, 12, 10), false),
+                new JobDto(null, 1, 1, 999, LocalDateTime.of(2023, 1, 1, 10, 10), LocalDateTime.of(2023, 1, 1, 12, 10), false),
+                new JobDto(null, 2, 2, 2, LocalDateTime.of(2023, 1, 2, 10, 10), LocalDateTime.of(2023, 1, 2, 12, 10), null)
+        );
+
+        mockMvc.perform(post("/api/jobs/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(jobDtos)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].jobId", is(notNullValue())))
+                .andExpect(jsonPath("$[0].error", is(nullValue())))
+                .andExpect(jsonPath("$[1].index", is(1)))
+                .andExpect(jsonPath("$[1].jobId", is(nullValue())))
+                .andExpect(jsonPath("$[1].error", is("Order with ID 999 does not exist.")))
+                .andExpect(jsonPath("$[2].jobId", is(notNullValue())));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void createJobsShouldRejectEmptyBatch() throws Exception {
+        mockMvc.perform(post("/api/jobs/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isConflict());
+    }
+
     @Test
     @WithMockUser(username = "admin", authorities = {"ADMIN"})
     void updateJobShouldSucceedWhenJobExists() throws Exception {
@@ -139,6 +184,19 @@ class JobControllerTest extends AbstractIntegrationTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void updateJobShouldReturnNotFoundWhenVehicleDoesNotExist() throws Exception {
+        JobDto jobDto = new JobDto(null, 999, null, null, null, null, null);
+
+        mockMvc.perform(put("/api/jobs/{id}", 1)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(jobDto)))
+                .andExpect(status().isNotFound())
+                .andExpect(result -> assertEquals("Vehicle with ID 999 does not exist.",
+                        result.getResolvedException().getMessage()));
+    }
+
     @Test
     @WithMockUser(username = "admin", authorities = {"ADMIN"})
     void createJobWithoutIsCompleteShouldSucceed() throws Exception {
@@ -172,6 +230,66 @@ class JobControllerTest extends AbstractIntegrationTest {
                 .andExpect(jsonPath("$.currentPage", is(0)));
     }
 
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void searchDoneJobsShouldReturnCborWhenAccepted() throws Exception {
+        byte[] body = mockMvc.perform(get("/api/jobs/done-table")
+                        .param("jobId", "2")
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode page = new CBORMapper().readTree(body);
+        assertEquals(1, page.get("content").size());
+        assertEquals(2, page.get("content").get(0).get("jobId").asInt());
+        // Dates are written as ISO strings like in JSON, so the mapper got Spring Boot's settings
+        assertTrue(page.get("content").get(0).get("pickupDate").isTextual());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void streamAllJobsShouldWriteOneJobPerLine() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/jobs/stream")
+                        .param("format", "NDJSON"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        List<JobDto> jobs = objectMapper.readerFor(JobDto.class).<JobDto>readValues(body).readAll();
+        assertEquals(body.lines().count(), jobs.size());
+        assertTrue(jobs.stream().anyMatch(job -> job.getJobId() == 1 && job.getVehicleId() == 1 && job.getEmployeeId() == 1));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void exportDoneJobsShouldStreamCsvAndNdjson() throws Exception {
+        MvcResult csv = mockMvc.perform(get("/api/jobs/done-table/export")
+                        .param("jobId", "2"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(csv))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", containsString("done-jobs.csv")))
+                .andExpect(content().string(startsWith("jobId,vehicleId,registrationPlate,")))
+                .andExpect(content().string(containsString("\n2,1,")));
+
+        MvcResult ndjson = mockMvc.perform(get("/api/jobs/done-table/export")
+                        .param("jobId", "2")
+                        .param("format", "NDJSON"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(ndjson))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<String> lines = body.lines().toList();
+        assertEquals(1, lines.size());
+        assertEquals(2, objectMapper.readTree(lines.get(0)).get("jobId").asInt());
+    }
+
     @Test
     @WithMockUser(username = "admin", authorities = {"ADMIN"})
     void searchDoneJobsShouldFilterByJobId() throws Exception {
@@ -496,6 +614,62 @@ class JobControllerTest extends AbstractIntegrationTest {
                 .andExpect(jsonPath("$.content[0].customerName", is("John Doe Inc.")));
     }
 
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void searchNotDoneJobsShouldReturnOnlyRequestedFields() throws Exception {
+        mockMvc.perform(get("/api/jobs/not-done-table")
+                        .param("fields", "jobId,registrationPlate,pickupDate"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", not(empty())))
+                .andExpect(jsonPath("$.content[0].*", hasSize(3)))
+                .andExpect(jsonPath("$.content[*].jobId", everyItem(notNullValue())))
+                .andExpect(jsonPath("$.content[*].registrationPlate", everyItem(notNullValue())))
+                .andExpect(jsonPath("$.content[*].pickupDate", everyItem(notNullValue())))
+                .andExpect(jsonPath("$.content[0].customerName").doesNotExist())
+                .andExpect(jsonPath("$.totalElements", greaterThanOrEqualTo(1)));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void searchDoneJobsShouldAcceptBooleanFieldName() throws Exception {
+        mockMvc.perform(get("/api/jobs/done-table")
+                        .param("fields", "jobId")
+                        .param("fields", "isComplete"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].*", hasSize(2)))
+                .andExpect(jsonPath("$.content[*].complete", everyItem(is(true))));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void scrollNotDoneJobsShouldContinueWithoutSortFieldInResponse() throws Exception {
+        JobDto jobDto = new JobDto(null, 1, 1, 1,
+                LocalDateTime.of(2023, 1, 1, 10, 10),
+                LocalDateTime.of(2023, 1, 1, 12, 10), false);
+        mockMvc.perform(post("/api/jobs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(jobDto)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/jobs/not-done-table/scroll")
+                        .param("fields", "registrationPlate")
+                        .param("sortBy", "pickupDate")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].*", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].registrationPlate", is(notNullValue())))
+                .andExpect(jsonPath("$.nextCursor", is(notNullValue())));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void searchNotDoneJobsShouldRejectUnknownField() throws Exception {
+        mockMvc.perform(get("/api/jobs/not-done-table")
+                        .param("fields", "jobId,fuelUsed"))
+                .andExpect(status().isConflict());
+    }
+
     @Test
     @WithMockUser(username = "admin", authorities = {"ADMIN"})
     void searchNotDoneJobsShouldFilterByPickupDateBetween() throws Exception {
@@ -714,4 +888,74 @@ class JobControllerTest extends AbstractIntegrationTest {
                 .andExpect(jsonPath("$.content", not(empty())))
                 .andExpect(jsonPath("$.content[0].dropOffDate", notNullValue()));
     }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void scrollDoneJobsShouldReturnLastSliceWithoutCursor() throws Exception {
+        mockMvc.perform(get("/api/jobs/done-table/scroll")
+                        .param("sortBy", "jobId")
+                        .param("sortDirection", "ASC")
+                        .param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", not(empty())))
+                .andExpect(jsonPath("$.content[0].jobId", is(2)))
+                .andExpect(jsonPath("$.nextCursor", nullValue()));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void scrollNotDoneJobsShouldReturnOneSlice() throws Exception {
+        mockMvc.perform(get("/api/jobs/not-done-table/scroll")
+                        .param("sortBy", "customerName")
+                        .param("sortDirection", "ASC")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.size", is(1)));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void scrollDoneJobsShouldRejectInvalidCursor() throws Exception {
+        mockMvc.perform(get("/api/jobs/done-table/scroll")
+                        .param("cursor", "not-a-cursor"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void searchDoneJobsShouldReadPageWithOneStatement() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(get("/api/jobs/done-table")
+                        .param("customerName", "Doe")
+                        .param("sortBy", "customerName")
+                        .param("sortDirection", "ASC")
+                        .param("countMode", "NONE")
+                        .param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", not(empty())))
+                .andExpect(jsonPath("$.content[0].customerName", notNullValue()))
+                .andExpect(jsonPath("$.content[0].fuelUsed", notNullValue()));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void searchNotDoneJobsShouldReadPageWithOneStatement() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // The whole result fits on the first page, so the exact total needs no count query either
+        mockMvc.perform(get("/api/jobs/not-done-table")
+                        .param("sortBy", "pickupDate")
+                        .param("size", "100"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", not(empty())))
+                .andExpect(jsonPath("$.content[0].registrationPlate", notNullValue()));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
 }
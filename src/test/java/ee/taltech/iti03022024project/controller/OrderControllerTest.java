@@ -8,12 +8,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -27,6 +32,9 @@ class OrderControllerTest extends AbstractIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Test
     @WithMockUser(username = "admin", authorities = {"ADMIN"})
     void getAllOrdersShouldReturnOrdersList() throws Exception {
@@ -73,6 +81,88 @@ class OrderControllerTest extends AbstractIntegrationTest {
                 .andExpect(jsonPath("$.weight", is(12000)));
     }
 
+    @Test
+    @Transactional
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void createOrderShouldUpdateCustomerLastOrderDate() throws Exception {
+        OrderDto orderDto = new OrderDto(null, 3,
+                LocalDateTime.of(2025, 2, 1, 10, 0),
+                LocalDateTime.of(2025, 2, 1, 18, 0),
+                12000, 200, 300, 400, "Easy access");
+
+        mockMvc.perform(post("/api/orders")
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(orderDto)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/customers/table")
+                        .param("customerId", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].lastOrderDate", is("2025-02-01T18:00:00")));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void importOrdersShouldCopyValidRowsAndReportRejectedOnes() throws Exception {
+        String csv = """
+                customerId,customerName,pickupDate,dropOffDate,weight,width,height,length,orderDetails
+                ,Globex Ltd.,2025-03-01T08:00:00,2025-03-01T18:00:00,1000,100,100,100,"Crates, stacked"
+                999,,2025-03-01T08:00:00,2025-03-01T18:00:00,1000,100,100,100,
+                3,,2025-02-01T08:00:00,2025-02-01T18:00:00,500,50,50,50,
+                """;
+
+        mockMvc.perform(post("/api/orders/import")
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted", is(2)))
+                .andExpect(jsonPath("$.rejected", is(1)))
+                .andExpect(jsonPath("$.errors[0]", is("Line 3: Customer with ID 999 does not exist.")));
+
+        mockMvc.perform(get("/api/orders"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].orderDetails", hasItem("Crates, stacked")));
+
+        mockMvc.perform(get("/api/customers/table")
+                        .param("customerId", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].lastOrderDate", is("2025-03-01T18:00:00")));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void importOrdersShouldCopyFileLongerThanOneChunk() throws Exception {
+        int rows = 2500;
+        StringBuilder csv = new StringBuilder("customerId,customerName,pickupDate,dropOffDate,orderDetails\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append(i % 2 == 0 ? "1," : ",Globex Ltd.").append(",2025-04-01T08:00:00,2025-04-01T18:00:00,Bulk import\n");
+        }
+
+        mockMvc.perform(post("/api/orders/import")
+                        .contentType("text/csv")
+                        .content(csv.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted", is(rows)))
+                .andExpect(jsonPath("$.rejected", is(0)));
+
+        // IDs come from pooled blocks, not one block per row
+        Map<String, Object> imported = jdbcTemplate.queryForMap(
+                "SELECT count(*) AS count, max(order_id) - min(order_id) AS span FROM orders WHERE order_details = 'Bulk import'");
+        assertEquals(rows, ((Number) imported.get("count")).intValue());
+        assertTrue(((Number) imported.get("span")).intValue() < rows + 50);
+    }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void importOrdersShouldRejectFileWithoutRequiredColumns() throws Exception {
+        mockMvc.perform(post("/api/orders/import")
+                        .contentType("text/csv")
+                        .content("customerId,weight\n1,100\n"))
+                .andExpect(status().isConflict());
+    }
+
     @Test
     @WithMockUser(username = "admin", authorities = {"ADMIN"})
     void createOrderShouldFailForInvalidCustomerId() throws Exception {
@@ -425,6 +515,34 @@ class OrderControllerTest extends AbstractIntegrationTest {
                 .andExpect(jsonPath("$.content[0].customerName", notNullValue()));
     }
 
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void searchOrdersWithoutCountShouldReportHasNext() throws Exception {
+        mockMvc.perform(get("/api/orders/table")
+                        .param("countMode", "NONE")
+                        .param("sortBy", "orderId")
+                        .param("sortDirection", "ASC")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.hasNext", is(true)))
+                .andExpect(jsonPath("$.totalElements", is(-1)))
+                .andExpect(jsonPath("$.countMode", is("NONE")));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void searchOrdersWithEstimateShouldReturnTotal() throws Exception {
+        mockMvc.perform(get("/api/orders/table")
+                        .param("countMode", "ESTIMATE")
+                        .param("customerName", "John")
+                        .param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", not(empty())))
+                .andExpect(jsonPath("$.totalElements", greaterThanOrEqualTo(1)))
+                .andExpect(jsonPath("$.countMode", is("ESTIMATE")));
+    }
+
     @Test
     @WithMockUser(username = "admin", authorities = {"ADMIN"})
     void getOrdersWithoutJobShouldReturnOrders() throws Exception {
@@ -0,0 +1,105 @@
+package ee.taltech.iti03022024project.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.taltech.iti03022024project.AbstractIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ReportControllerTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private JsonNode awaitReport(String reportId) throws Exception {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            String body = mockMvc.perform(get("/api/reports/{id}", reportId))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            JsonNode report = objectMapper.readTree(body);
+            String status = report.get("status").asText();
+            if (status.equals("DONE") || status.equals("FAILED")) {
+                return report;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("Report " + reportId + " was not generated in time");
+    }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void doneJobsReportShouldBeGeneratedInTheBackgroundAndDownloaded() throws Exception {
+        String body = mockMvc.perform(post("/api/reports/done-jobs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"jobId\": 2}"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", startsWith("/api/reports/")))
+                .andExpect(jsonPath("$.type", is("DONE_JOBS")))
+                .andExpect(jsonPath("$.format", is("CSV")))
+                .andReturn().getResponse().getContentAsString();
+        String reportId = objectMapper.readTree(body).get("reportId").asText();
+
+        JsonNode report = awaitReport(reportId);
+        assertEquals("DONE", report.get("status").asText());
+        assertEquals(1, report.get("rows").asLong());
+
+        mockMvc.perform(get("/api/reports/{id}/file", reportId))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", containsString("done-jobs.csv")))
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(content().string(startsWith("jobId,vehicleId,registrationPlate,")))
+                .andExpect(content().string(containsString("\n2,1,")));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void ordersReportShouldWriteOneOrderPerLine() throws Exception {
+        String body = mockMvc.perform(post("/api/reports/orders")
+                        .param("format", "NDJSON"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.type", is("ORDERS")))
+                .andReturn().getResponse().getContentAsString();
+        String reportId = objectMapper.readTree(body).get("reportId").asText();
+
+        JsonNode report = awaitReport(reportId);
+        assertEquals("DONE", report.get("status").asText());
+
+        String file = mockMvc.perform(get("/api/reports/{id}/file", reportId))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        List<String> lines = file.lines().toList();
+        assertEquals(report.get("rows").asLong(), lines.size());
+        assertTrue(objectMapper.readTree(lines.get(0)).has("customerName"));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void unknownReportShouldReturnNotFound() throws Exception {
+        UUID reportId = UUID.randomUUID();
+
+        mockMvc.perform(get("/api/reports/{id}", reportId))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/reports/{id}/file", reportId))
+                .andExpect(status().isNotFound());
+    }
+}
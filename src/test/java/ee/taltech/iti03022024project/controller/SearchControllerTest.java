@@ -0,0 +1,70 @@
+package ee.taltech.iti03022024project.controller;
+
+import ee.taltech.iti03022024project.AbstractIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class SearchControllerTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void searchShouldFindCustomerByName() throws Exception {
+        mockMvc.perform(get("/api/search")
+                        .param("q", "Globex"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].type", is("CUSTOMER")))
+                .andExpect(jsonPath("$[0].id", is(3)))
+                .andExpect(jsonPath("$[0].title", is("Globex Ltd.")));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void searchShouldFindOrdersAndJobsThroughCustomer() throws Exception {
+        mockMvc.perform(get("/api/search")
+                        .param("q", "Tallinn")
+                        .param("limit", "100"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].type", hasItems("CUSTOMER", "ORDER", "JOB")))
+                .andExpect(jsonPath("$[?(@.type == 'CUSTOMER')].id", contains(1)));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void searchShouldFindOrderByDetails() throws Exception {
+        mockMvc.perform(get("/api/search")
+                        .param("q", "soojak"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", not(empty())))
+                .andExpect(jsonPath("$[*].type", everyItem(in(new String[]{"ORDER", "JOB"}))));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void searchShouldReturnEmptyListWhenNothingMatches() throws Exception {
+        mockMvc.perform(get("/api/search")
+                        .param("q", "nonexistentterm"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", empty()));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void searchShouldFailForBlankTerm() throws Exception {
+        mockMvc.perform(get("/api/search")
+                        .param("q", " "))
+                .andExpect(status().isConflict());
+    }
+}
@@ -2,15 +2,20 @@ package ee.taltech.iti03022024project.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import ee.taltech.iti03022024project.AbstractIntegrationTest;
+import ee.taltech.iti03022024project.dto.UpdateVehicleRequestDto;
 import ee.taltech.iti03022024project.dto.VehicleDto;
 import ee.taltech.iti03022024project.dto.searchcriteria.VehicleSearchCriteria;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
 
 import static org.hamcrest.Matchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -40,6 +45,32 @@ class VehicleControllerTest extends AbstractIntegrationTest {
                 .andExpect(jsonPath("$.content[0].registrationPlate", is("123ABC")));
     }
 
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void searchVehiclesShouldAnswerUnchangedTableWithNotModified() throws Exception {
+        String etag = mockMvc.perform(get("/api/vehicles/table").param("sortBy", "vehicleId"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, startsWith("W/\"")))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/vehicles/table").param("sortBy", "vehicleId").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/vehicles/table").param("sortBy", "vehicleId").param("page", "1")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+
+        // Any write counts, even one that leaves the row as it was
+        mockMvc.perform(put("/api/vehicles/{id}", 2)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UpdateVehicleRequestDto())))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/vehicles/table").param("sortBy", "vehicleId").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+    }
+
     @Test
     @WithMockUser(username = "admin", authorities = {"ADMIN"})
     void getAllVehiclesShouldReturnVehiclesList() throws Exception {
@@ -95,6 +126,37 @@ class VehicleControllerTest extends AbstractIntegrationTest {
                 .andExpect(jsonPath("$.registrationPlate", is("XYZ789")));
     }
 
+    @Test
+    @Transactional
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void updateVehiclesShouldApplyChangesToEveryListedVehicle() throws Exception {
+        List<VehicleDto> changes = List.of(
+                new VehicleDto(3, null, false, null, null, null),
+                new VehicleDto(4, null, false, null, 77, null)
+        );
+
+        mockMvc.perform(patch("/api/vehicles/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(changes)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].vehicleId", contains(3, 4)))
+                .andExpect(jsonPath("$[*].isInUse", contains(false, false)))
+                .andExpect(jsonPath("$[0].currentFuel", is(150)))
+                .andExpect(jsonPath("$[1].currentFuel", is(77)));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void updateVehiclesShouldRejectRegistrationPlateOfAnotherVehicle() throws Exception {
+        List<VehicleDto> changes = List.of(new VehicleDto(5, null, null, null, null, "789GHI"));
+
+        mockMvc.perform(patch("/api/vehicles/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(changes)))
+                .andExpect(status().isConflict());
+    }
+
     @Test
     @WithMockUser(username = "admin", authorities = {"ADMIN"})
     void updateVehicleShouldReturnNotFoundWhenDoesNotExist() throws Exception {
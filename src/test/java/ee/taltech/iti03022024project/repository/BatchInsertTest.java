@@ -0,0 +1,55 @@
+package ee.taltech.iti03022024project.repository;
+
+import ee.taltech.iti03022024project.AbstractIntegrationTest;
+import ee.taltech.iti03022024project.entity.CustomerEntity;
+import ee.taltech.iti03022024project.entity.OrderEntity;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class BatchInsertTest extends AbstractIntegrationTest {
+
+    private static final int ORDERS = 120;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void saveAllShouldInsertOrdersInBatches() {
+        CustomerEntity customer = customerRepository.getReferenceById(1);
+        List<OrderEntity> orders = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            orders.add(new OrderEntity(null, customer, LocalDateTime.of(2025, 2, 1, 8, 0),
+                    LocalDateTime.of(2025, 2, 2, 8, 0), 100, 10, 10, 10, "batch " + i));
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        orderRepository.saveAll(orders);
+        orderRepository.flush();
+
+        // About 3 sequence calls and 3 insert batches of 50, instead of one insert per order
+        assertTrue(statistics.getPrepareStatementCount() < ORDERS / 10,
+                "Prepared " + statistics.getPrepareStatementCount() + " statements");
+        assertEquals(ORDERS, orders.stream().map(OrderEntity::getOrderId).distinct().count());
+    }
+}
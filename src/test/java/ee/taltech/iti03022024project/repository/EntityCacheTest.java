@@ -0,0 +1,107 @@
+package ee.taltech.iti03022024project.repository;
+
+import ee.taltech.iti03022024project.AbstractIntegrationTest;
+import ee.taltech.iti03022024project.dto.CustomerDto;
+import ee.taltech.iti03022024project.entity.CustomerEntity;
+import ee.taltech.iti03022024project.entity.VehicleEntity;
+import ee.taltech.iti03022024project.service.CustomerService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class EntityCacheTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void clearCache() {
+        entityManagerFactory.getCache().evictAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    // Every transaction has a persistence context of its own, only the second-level cache is shared between them
+    private <T> T inTransaction(Supplier<T> action) {
+        return transactionTemplate.execute(status -> action.get());
+    }
+
+    @Test
+    void repeatedLookupByIdShouldNotReachDatabase() {
+        VehicleEntity first = inTransaction(() -> vehicleRepository.findById(1).orElseThrow());
+        long statementsAfterFirst = statistics.getPrepareStatementCount();
+
+        VehicleEntity second = inTransaction(() -> vehicleRepository.findById(1).orElseThrow());
+
+        assertEquals(first.getRegistrationPlate(), second.getRegistrationPlate());
+        assertEquals(statementsAfterFirst, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getDomainDataRegionStatistics("vehicle").getHitCount());
+        assertEquals(1, statistics.getDomainDataRegionStatistics("vehicle").getMissCount());
+
+        FunctionCounter hits = meterRegistry.find("hibernate.second.level.cache.requests")
+                .tags("region", "vehicle", "result", "hit")
+                .functionCounter();
+        assertNotNull(hits);
+        assertEquals(1, hits.count());
+    }
+
+    @Test
+    void referenceResolvedByIdShouldComeFromCache() {
+        inTransaction(() -> customerRepository.findById(1).orElseThrow());
+        statistics.clear();
+
+        String name = inTransaction(() -> customerRepository.getReferenceById(1).getName());
+
+        assertEquals("John Doe Inc.", name);
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    void updateWrittenPastHibernateShouldEvictCachedEntity() {
+        CustomerEntity cached = inTransaction(() -> customerRepository.findById(2).orElseThrow());
+        String originalName = cached.getName();
+
+        CustomerDto rename = new CustomerDto();
+        rename.setCustomerId(2);
+        rename.setName("Acme Renamed");
+        try {
+            customerService.updateCustomer(rename);
+
+            assertEquals("Acme Renamed", inTransaction(() -> customerRepository.findById(2).orElseThrow().getName()));
+        } finally {
+            rename.setName(originalName);
+            customerService.updateCustomer(rename);
+        }
+        assertEquals(originalName, inTransaction(() -> customerRepository.findById(2).orElseThrow().getName()));
+    }
+}
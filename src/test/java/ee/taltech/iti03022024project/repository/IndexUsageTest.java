@@ -0,0 +1,79 @@
+package ee.taltech.iti03022024project.repository;
+
+import ee.taltech.iti03022024project.AbstractIntegrationTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+
+@SpringBootTest
+@Transactional
+class IndexUsageTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void disableSequentialScans() {
+        // The test tables are tiny, without this the planner would pick a sequential scan anyway
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+    }
+
+    @Test
+    void doneJobDateFilterShouldUseJobIndex() {
+        assertThat(explain("SELECT * FROM job WHERE is_complete = true AND pickup_date >= '2025-01-01'"),
+                containsString("idx_job_is_complete_pickup_date"));
+    }
+
+    @Test
+    void jobJoinsShouldUseForeignKeyIndexes() {
+        assertThat(explain("SELECT * FROM job WHERE vehicle_id = 1"), containsString("idx_job_vehicle_id"));
+        assertThat(explain("SELECT * FROM job WHERE order_id = 1"), containsString("idx_job_order_id"));
+        assertThat(explain("SELECT * FROM job WHERE employee_id = 1"), containsString("idx_job_employee_id_drop_off_date"));
+    }
+
+    @Test
+    void customerOrdersShouldUseOrdersIndex() {
+        assertThat(explain("SELECT max(drop_off_date) FROM orders WHERE customer_id = 1"),
+                containsString("idx_orders_customer_id_drop_off_date"));
+    }
+
+    @Test
+    void certificationAndFuelJoinsShouldUseIndexes() {
+        assertThat(explain("SELECT * FROM certification WHERE employee_id = 1"), containsString("uq_certification_employee_certification_type"));
+        assertThat(explain("SELECT * FROM fuel_consumption WHERE job_id = 2"), containsString("idx_fuel_consumption_job_id"));
+    }
+
+    @Test
+    void substringFiltersShouldUseTrigramIndexes() {
+        assertThat(explain("SELECT * FROM customer WHERE lower(name) LIKE '%acme%'"), containsString("idx_customer_name_trgm"));
+        assertThat(explain("SELECT * FROM customer WHERE lower(email) LIKE '%example%'"), containsString("idx_customer_email_trgm"));
+        assertThat(explain("SELECT * FROM employee WHERE lower(name) LIKE '%test%'"), containsString("idx_employee_name_trgm"));
+        assertThat(explain("SELECT * FROM vehicle WHERE lower(registration_plate) LIKE '%23a%'"),
+                containsString("idx_vehicle_registration_plate_trgm"));
+    }
+
+    @Test
+    void fullTextSearchShouldResolveMatchesThroughIndexes() {
+        String plan = explain(SearchRepository.SEARCH_QUERY.replace(":term", "'tallinn'").replace(":limit", "20")
+                .replace(":related", String.valueOf(SearchRepository.RELATED_PER_HIT)));
+
+        assertThat(plan, containsString("idx_customer_search_vector"));
+        assertThat(plan, containsString("idx_orders_search_vector"));
+        assertThat(plan, containsString("idx_vehicle_search_vector"));
+        assertThat(plan, containsString("idx_employee_search_vector"));
+        assertThat(plan, containsString("idx_orders_customer_id_drop_off_date"));
+        assertThat(plan, containsString("idx_job_employee_id_drop_off_date"));
+        assertThat(plan, not(containsString("Seq Scan")));
+    }
+
+    private String explain(String sql) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class));
+    }
+}
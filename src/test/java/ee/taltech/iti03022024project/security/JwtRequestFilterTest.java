@@ -0,0 +1,96 @@
+package ee.taltech.iti03022024project.security;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtRequestFilterTest {
+
+    private final SecretKey key = Jwts.SIG.HS256.key().build();
+    private final JwtRequestFilter filter = new JwtRequestFilter(key);
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private String token(String name, int permissionId, long validForMillis) {
+        return Jwts.builder()
+                .subject(name)
+                .claims(Map.of("name", name, "permissionId", permissionId))
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + validForMillis))
+                .signWith(key)
+                .compact();
+    }
+
+    private Authentication filter(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    @Test
+    void shouldAuthenticateTokenWithRoleOfItsPermission() throws Exception {
+        Authentication authentication = filter(token("admin", 1, 60_000));
+
+        assertEquals("admin", authentication.getName());
+        assertEquals(List.of("ADMIN"), authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+        assertTrue(authentication.isAuthenticated());
+    }
+
+    @Test
+    void repeatedTokenShouldReuseVerifiedAuthentication() throws Exception {
+        String token = token("driver", 3, 60_000);
+
+        Authentication first = filter(token);
+        Authentication second = filter(token);
+        Authentication other = filter(token("user", 2, 60_000));
+
+        assertSame(first, second);
+        assertNotSame(first, other);
+        assertEquals("user", other.getName());
+    }
+
+    @Test
+    void tamperedTokenShouldBeRejectedAfterValidOneIsCached() throws Exception {
+        String token = token("admin", 1, 60_000);
+        filter(token);
+
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThrows(JwtException.class, () -> filter(tampered));
+    }
+
+    @Test
+    void expiredTokenShouldBeRejected() {
+        String token = token("admin", 1, -60_000);
+
+        assertThrows(JwtException.class, () -> filter(token));
+        assertThrows(JwtException.class, () -> filter(token));
+    }
+
+    @Test
+    void requestWithoutTokenShouldStayAnonymous() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+}
@@ -1,14 +1,17 @@
 package ee.taltech.iti03022024project.service;
 
 import ee.taltech.iti03022024project.dto.CertificationDto;
+import ee.taltech.iti03022024project.dto.CertificationImportResultDto;
 import ee.taltech.iti03022024project.entity.CertificationEntity;
 import ee.taltech.iti03022024project.entity.CertificationTypeEntity;
 import ee.taltech.iti03022024project.entity.EmployeeEntity;
 import ee.taltech.iti03022024project.exception.AlreadyExistsException;
 import ee.taltech.iti03022024project.exception.NotFoundException;
+import ee.taltech.iti03022024project.exception.WrongValueException;
 import ee.taltech.iti03022024project.mapping.CertificationMapping;
 import ee.taltech.iti03022024project.repository.CertificationRepository;
 import ee.taltech.iti03022024project.repository.CertificationTypeRepository;
+import ee.taltech.iti03022024project.repository.CertificationUpsertRepository;
 import ee.taltech.iti03022024project.repository.EmployeeRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -20,8 +23,10 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,6 +43,13 @@ class CertificationServiceTest {
 
     @Mock
     private CertificationMapping certificationMapping;
+    @Mock
+    private JsonStreamWriter jsonStreamWriter;
+    @Mock
+    private CertificationUpsertRepository certificationUpsertRepository;
+
+    @Mock
+    private TableVersions tableVersions;
 
     @InjectMocks
     private CertificationService certificationService;
@@ -246,6 +258,39 @@ class CertificationServiceTest {
         verify(certificationRepository, never()).save(any());
     }
 
+    @Test
+    void importCertifications_ShouldCreateRenewAndRejectWithSetQueries() {
+        CertificationDto renewal = new CertificationDto(null, 100, 200, LocalDate.of(2025, 1, 1), LocalDate.of(2035, 1, 1));
+        CertificationDto olderDuplicate = new CertificationDto(null, 100, 200, LocalDate.of(2024, 1, 1), LocalDate.of(2034, 1, 1));
+        CertificationDto stale = new CertificationDto(null, 101, 200, LocalDate.of(2020, 1, 1), LocalDate.of(2030, 1, 1));
+        CertificationDto created = new CertificationDto(null, 101, 201, LocalDate.of(2025, 1, 1), LocalDate.of(2030, 1, 1));
+        CertificationDto unknownEmployee = new CertificationDto(null, 999, 200, LocalDate.of(2025, 1, 1), LocalDate.of(2030, 1, 1));
+
+        when(employeeRepository.findExistingIds(Set.of(100, 101, 999))).thenReturn(Set.of(100, 101));
+        when(certificationTypeRepository.findExistingIds(Set.of(200, 201))).thenReturn(Set.of(200, 201));
+        when(certificationUpsertRepository.findExisting(List.of(renewal, stale, created))).thenReturn(List.of(
+                new CertificationDto(1, 100, 200, LocalDate.of(2022, 1, 1), LocalDate.of(2032, 1, 1)),
+                new CertificationDto(2, 101, 200, LocalDate.of(2021, 1, 1), LocalDate.of(2031, 1, 1))
+        ));
+
+        CertificationImportResultDto result = certificationService.importCertifications(
+                List.of(renewal, olderDuplicate, stale, created, unknownEmployee));
+
+        assertEquals(1, result.getCreated());
+        assertEquals(1, result.getRenewed());
+        assertEquals(2, result.getUnchanged());
+        assertEquals(1, result.getRejected());
+        assertEquals(List.of("Certification 4: Employee with ID 999 does not exist."), result.getErrors());
+        verify(certificationUpsertRepository).upsert(List.of(renewal, created));
+        verify(certificationRepository, never()).existsByEmployeeAndCertificationType(any(), any());
+    }
+
+    @Test
+    void importCertifications_ShouldRejectEmptyBatch() {
+        assertThrows(WrongValueException.class, () -> certificationService.importCertifications(List.of()));
+        verifyNoInteractions(certificationUpsertRepository);
+    }
+
     @Test
     void updateCertification_ShouldThrowNotFound_WhenCertTypeDoesNotExist() {
         when(certificationRepository.findById(certificationDto.getCertificationId()))
@@ -6,6 +6,7 @@ import ee.taltech.iti03022024project.dto.searchcriteria.CertificationTypeSearchC
 import ee.taltech.iti03022024project.entity.CertificationTypeEntity;
 import ee.taltech.iti03022024project.exception.AlreadyExistsException;
 import ee.taltech.iti03022024project.exception.NotFoundException;
+import ee.taltech.iti03022024project.exception.WrongValueException;
 import ee.taltech.iti03022024project.mapping.CertificationTypeMapping;
 import ee.taltech.iti03022024project.repository.CertificationTypeRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,11 +15,11 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.*;
-import org.springframework.data.jpa.domain.Specification;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -33,6 +34,12 @@ class CertificationTypeServiceTest {
     @Mock
     private CertificationTypeMapping certificationTypeMapping;
 
+    @Mock
+    private ReferenceDataCache referenceDataCache;
+
+    @Mock
+    private TableVersions tableVersions;
+
     @InjectMocks
     private CertificationTypeService certificationTypeService;
 
@@ -62,6 +69,7 @@ class CertificationTypeServiceTest {
         assertNotNull(result);
         assertEquals("Chemicals", result.getCertificationName());
         verify(certificationTypeRepository).save(any(CertificationTypeEntity.class));
+        verify(referenceDataCache).putCertificationType(1, "Chemicals");
     }
 
     @Test
@@ -77,37 +85,29 @@ class CertificationTypeServiceTest {
     }
 
     @Test
-    void getAllCertificationTypes_ShouldReturnList() {
-        List<CertificationTypeEntity> entities = List.of(certificationTypeEntity);
-        when(certificationTypeRepository.findAll()).thenReturn(entities);
-
-        when(certificationTypeMapping.certificationTypeListToDtoList(entities))
-                .thenReturn(List.of(certificationTypeDto));
+    void getAllCertificationTypes_ShouldReturnListFromCache() {
+        when(referenceDataCache.certificationTypes()).thenReturn(new TreeMap<>(Map.of(1, "Chemicals")));
 
         List<CertificationTypeDto> result = certificationTypeService.getAllCertificationTypes();
 
-        assertEquals(1, result.size());
-        assertEquals("Chemicals", result.get(0).getCertificationName());
-        verify(certificationTypeRepository).findAll();
+        assertEquals(List.of(certificationTypeDto), result);
+        verifyNoInteractions(certificationTypeRepository);
     }
 
     @Test
-    void getCertificationTypeById_ShouldReturnWhenEntityFound() {
-        when(certificationTypeRepository.findById(1))
-                .thenReturn(Optional.of(certificationTypeEntity));
-        when(certificationTypeMapping.certificationTypeToDto(certificationTypeEntity))
-                .thenReturn(certificationTypeDto);
+    void getCertificationTypeById_ShouldReturnWhenCached() {
+        when(referenceDataCache.certificationTypes()).thenReturn(new TreeMap<>(Map.of(1, "Chemicals")));
 
         Optional<CertificationTypeDto> result = certificationTypeService.getCertificationTypeById(1);
 
         assertTrue(result.isPresent());
         assertEquals("Chemicals", result.get().getCertificationName());
+        verifyNoInteractions(certificationTypeRepository);
     }
 
     @Test
-    void getCertificationTypeById_ShouldThrowNotFoundWhenEntityDoesNotExist() {
-        when(certificationTypeRepository.findById(anyInt()))
-                .thenReturn(Optional.empty());
+    void getCertificationTypeById_ShouldThrowNotFoundWhenNotCached() {
+        when(referenceDataCache.certificationTypes()).thenReturn(new TreeMap<>(Map.of(1, "Chemicals")));
 
         assertThrows(
                 NotFoundException.class,
@@ -119,6 +119,7 @@ class CertificationTypeServiceTest {
     void updateCertificationType_ShouldUpdateNameWhenNewNameIsUnique() {
         when(certificationTypeRepository.findById(1))
                 .thenReturn(Optional.of(certificationTypeEntity));
+        when(referenceDataCache.certificationTypes()).thenReturn(new TreeMap<>(Map.of(1, "Chemicals")));
         when(certificationTypeRepository.save(certificationTypeEntity))
                 .thenReturn(certificationTypeEntity);
 
@@ -138,6 +139,7 @@ class CertificationTypeServiceTest {
         assertTrue(result.isPresent());
         assertEquals("New Name", result.get().getCertificationName());
         verify(certificationTypeRepository).save(certificationTypeEntity);
+        verify(referenceDataCache).putCertificationType(1, "New Name");
     }
 
     @Test
@@ -145,9 +147,7 @@ class CertificationTypeServiceTest {
         when(certificationTypeRepository.findById(1))
                 .thenReturn(Optional.of(certificationTypeEntity));
 
-        CertificationTypeDto existingDto = new CertificationTypeDto(1, "Chemicals");
-        when(certificationTypeMapping.certificationTypeToDto(certificationTypeEntity))
-                .thenReturn(existingDto);
+        when(referenceDataCache.certificationTypes()).thenReturn(new TreeMap<>(Map.of(1, "Chemicals")));
 
         CertificationTypeDto incomingDto = new CertificationTypeDto();
         incomingDto.setCertificationTypeId(1);
@@ -161,6 +161,7 @@ class CertificationTypeServiceTest {
                 () -> certificationTypeService.updateCertificationType(incomingDto)
         );
         verify(certificationTypeRepository, never()).save(any(CertificationTypeEntity.class));
+        verify(referenceDataCache, never()).putCertificationType(any(), any());
     }
 
 
@@ -183,14 +184,41 @@ class CertificationTypeServiceTest {
         criteria.setPage(0);
         criteria.setSize(10);
 
-        Page<CertificationTypeEntity> page = new PageImpl<>(List.of(certificationTypeEntity));
-        when(certificationTypeRepository.findAll(any(Specification.class), any(Pageable.class)))
-                .thenReturn(page);
+        when(referenceDataCache.certificationTypes()).thenReturn(new TreeMap<>(Map.of(1, "Chemicals", 2, "Explosives")));
 
         PageResponse<CertificationTypeDto> response = certificationTypeService.searchCertificationTypes(criteria);
 
         assertNotNull(response);
-        assertEquals(1, response.getContent().size());
-        verify(certificationTypeRepository).findAll(any(Specification.class), any(Pageable.class));
+        assertEquals(List.of(certificationTypeDto), response.getContent());
+        assertEquals(1, response.getTotalElements());
+        verifyNoInteractions(certificationTypeRepository);
+    }
+
+    @Test
+    void searchCertificationTypes_ShouldSortAndPageInMemory() {
+        CertificationTypeSearchCriteria criteria = new CertificationTypeSearchCriteria();
+        criteria.setCertificationName("S");
+        criteria.setSortBy("certificationName");
+        criteria.setSortDirection("desc");
+        criteria.setPage(1);
+        criteria.setSize(1);
+
+        when(referenceDataCache.certificationTypes()).thenReturn(new TreeMap<>(Map.of(
+                1, "Chemicals", 2, "explosives", 3, "Hazardous", 4, "Driving")));
+
+        PageResponse<CertificationTypeDto> response = certificationTypeService.searchCertificationTypes(criteria);
+
+        assertEquals(List.of(new CertificationTypeDto(3, "Hazardous")), response.getContent());
+        assertEquals(3, response.getTotalElements());
+        assertEquals(3, response.getTotalPages());
+        assertTrue(response.isHasNext());
+    }
+
+    @Test
+    void searchCertificationTypes_ShouldRejectUnknownSortField() {
+        CertificationTypeSearchCriteria criteria = new CertificationTypeSearchCriteria();
+        criteria.setSortBy("issuedDate");
+
+        assertThrows(WrongValueException.class, () -> certificationTypeService.searchCertificationTypes(criteria));
     }
 }
@@ -0,0 +1,75 @@
+package ee.taltech.iti03022024project.service;
+
+import ee.taltech.iti03022024project.dto.searchcriteria.OrderSearchCriteria;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CountEstimatorTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private CountEstimator countEstimator;
+
+    @Test
+    void estimate_ShouldUsePlannerStatisticsWhenUnfiltered() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq("orders"))).thenReturn(1200L);
+
+        long estimate = countEstimator.estimate("orders", new OrderSearchCriteria(), true, () -> {
+            throw new AssertionError("Should not count");
+        });
+
+        assertEquals(1200, estimate);
+    }
+
+    @Test
+    void estimate_ShouldCountWhenTableNotAnalyzed() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq("orders"))).thenReturn(-1L);
+
+        long estimate = countEstimator.estimate("orders", new OrderSearchCriteria(), true, () -> 3);
+
+        assertEquals(3, estimate);
+    }
+
+    @Test
+    void estimate_ShouldReuseCountForSameFiltersOnOtherPage() {
+        AtomicInteger counted = new AtomicInteger();
+        OrderSearchCriteria firstPage = new OrderSearchCriteria();
+        firstPage.setCustomerName("Acme");
+        OrderSearchCriteria secondPage = new OrderSearchCriteria();
+        secondPage.setCustomerName("Acme");
+        secondPage.setPage(1);
+
+        countEstimator.estimate("orders", firstPage, false, () -> counted.incrementAndGet() * 10L);
+        long estimate = countEstimator.estimate("orders", secondPage, false, () -> counted.incrementAndGet() * 10L);
+
+        assertEquals(10, estimate);
+        assertEquals(1, counted.get());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void estimate_ShouldCountAgainForDifferentFilters() {
+        OrderSearchCriteria acme = new OrderSearchCriteria();
+        acme.setCustomerName("Acme");
+        OrderSearchCriteria globex = new OrderSearchCriteria();
+        globex.setCustomerName("Globex");
+
+        countEstimator.estimate("orders", acme, false, () -> 10);
+        long estimate = countEstimator.estimate("orders", globex, false, () -> 4);
+
+        assertEquals(4, estimate);
+    }
+}
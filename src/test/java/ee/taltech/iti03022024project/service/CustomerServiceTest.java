@@ -9,17 +9,26 @@ import ee.taltech.iti03022024project.exception.AlreadyExistsException;
 import ee.taltech.iti03022024project.exception.NotFoundException;
 import ee.taltech.iti03022024project.mapping.CustomerMapping;
 import ee.taltech.iti03022024project.repository.CustomerRepository;
+import ee.taltech.iti03022024project.repository.PartialUpdate;
+import ee.taltech.iti03022024project.repository.PartialUpdateRepository;
+import ee.taltech.iti03022024project.repository.TableQueryExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.Tuple;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -35,6 +44,22 @@ class CustomerServiceTest {
     @Mock
     private CustomerMapping customerMapping;
 
+    @Mock
+    private TableQueryExecutor tableQueryExecutor;
+
+    @Mock
+    private CountEstimator countEstimator;
+    @Mock
+    private JsonStreamWriter jsonStreamWriter;
+    @Mock
+    private PartialUpdateRepository partialUpdateRepository;
+
+    @Mock
+    private TableVersions tableVersions;
+
+    @Spy
+    private TableResultCache tableResultCache = new TableResultCache(new TableVersions(), new SimpleMeterRegistry(), 100, Duration.ofMinutes(1));
+
     @InjectMocks
     private CustomerService customerService;
 
@@ -121,25 +146,6 @@ class CustomerServiceTest {
 
     @Test
     void updateCustomer_ShouldUpdateFields() {
-        when(customerRepository.findById(1)).thenReturn(Optional.of(customerEntity));
-        when(customerRepository.existsByNameIgnoreCase("New name")).thenReturn(false);
-
-        when(customerRepository.save(any(CustomerEntity.class))).thenAnswer(inv -> inv.getArgument(0));
-
-        when(customerMapping.customerToDto(any(CustomerEntity.class))).thenAnswer(invocation -> {
-            CustomerEntity e = invocation.getArgument(0);
-            CustomerDto dto = new CustomerDto();
-            dto.setCustomerId(e.getCustomerId());
-            dto.setName(e.getName());
-            dto.setAddress(e.getAddress());
-            dto.setCityCounty(e.getCityCounty());
-            dto.setZip(e.getZip());
-            dto.setEmail(e.getEmail());
-            dto.setPhoneNumber(e.getPhoneNumber());
-            dto.setVatNo(e.getVatNo());
-            return dto;
-        });
-
         CustomerDto incoming = new CustomerDto();
         incoming.setCustomerId(1);
         incoming.setName("New name");
@@ -149,6 +155,7 @@ class CustomerServiceTest {
         incoming.setEmail("new@abc.com");
         incoming.setPhoneNumber("55551234");
         incoming.setVatNo("NEWVAT");
+        when(partialUpdateRepository.update(any(), any())).thenReturn(Optional.of(incoming));
 
         Optional<CustomerDto> result = customerService.updateCustomer(incoming);
 
@@ -156,41 +163,52 @@ class CustomerServiceTest {
         assertEquals("New name", result.get().getName());
         assertEquals("New address", result.get().getAddress());
         assertEquals("New city", result.get().getCityCounty());
-        verify(customerRepository).save(any(CustomerEntity.class));
+        ArgumentCaptor<PartialUpdate> update = ArgumentCaptor.forClass(PartialUpdate.class);
+        verify(partialUpdateRepository).update(update.capture(), any());
+        assertEquals(List.of("name", "address", "city_county", "zip", "email", "phone_number", "vat_no"),
+                List.copyOf(update.getValue().getChanges().keySet()));
+        verify(customerRepository, never()).findById(any());
+        verify(customerRepository, never()).save(any());
+        verify(tableVersions).changed(CustomerEntity.class);
     }
 
-
     @Test
-    void updateCustomer_ShouldThrowAlreadyExistsWhenNameExists() {
-        when(customerRepository.findById(1))
-                .thenReturn(Optional.of(customerEntity));
-        when(customerRepository.existsByNameIgnoreCase("Duplicate"))
-                .thenReturn(true);
+    void updateCustomer_ShouldOnlySetGivenColumns() {
+        CustomerDto incoming = new CustomerDto();
+        incoming.setCustomerId(1);
+        incoming.setEmail("new@abc.com");
+        when(partialUpdateRepository.update(any(), any())).thenReturn(Optional.of(customerDto));
+
+        customerService.updateCustomer(incoming);
 
-        // Important: if getCustomerById calls customerMapping,
-        // we must stub that to return a valid DTO
-        when(customerMapping.customerToDto(customerEntity))
-                .thenReturn(customerDto);
+        ArgumentCaptor<PartialUpdate> update = ArgumentCaptor.forClass(PartialUpdate.class);
+        verify(partialUpdateRepository).update(update.capture(), any());
+        assertEquals(Map.of("email", "new@abc.com"), update.getValue().getChanges());
+    }
 
+    @Test
+    void updateCustomer_ShouldMapNameConflictToAlreadyExists() {
         CustomerDto incoming = new CustomerDto();
         incoming.setCustomerId(1);
         incoming.setName("Duplicate");
+        when(partialUpdateRepository.update(any(), any())).thenReturn(Optional.of(customerDto));
 
-        assertThrows(
-                AlreadyExistsException.class,
-                () -> customerService.updateCustomer(incoming)
-        );
+        customerService.updateCustomer(incoming);
 
-        verify(customerRepository, never()).save(any());
+        ArgumentCaptor<PartialUpdate> update = ArgumentCaptor.forClass(PartialUpdate.class);
+        verify(partialUpdateRepository).update(update.capture(), any());
+        RuntimeException error = update.getValue().errorFor("uq_customer_name_lower");
+        assertInstanceOf(AlreadyExistsException.class, error);
+        assertEquals("Customer with name Duplicate already exists.", error.getMessage());
+        verify(customerRepository, never()).existsByNameIgnoreCase(any());
     }
 
-
     @Test
     void updateCustomer_ShouldThrowNotFoundWhenMissing() {
-        when(customerRepository.findById(1)).thenReturn(Optional.empty());
+        when(partialUpdateRepository.update(any(), any())).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> customerService.updateCustomer(customerDto));
-        verify(customerRepository, never()).save(any());
+        verifyNoInteractions(tableVersions);
     }
 
     @Test
@@ -214,17 +232,18 @@ class CustomerServiceTest {
                 LocalDateTime.now()
         );
 
-        Page<CustomerEntity> page = new PageImpl<>(List.of(customerEntity));
-        Page<CustomerTableInfoDto> mappedPage = new PageImpl<>(List.of(infoDto));
+        Tuple row = mock(Tuple.class);
+        Pageable pageable = PageRequest.of(0, 10, Sort.by(Sort.Direction.ASC, "name"));
 
-        when(customerRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(page);
-        when(customerMapping.customerPageToDtoPage(page, PageRequest.of(0, 10, Sort.by(Sort.Direction.ASC, "name"))))
-                .thenReturn(mappedPage);
+        when(tableQueryExecutor.findTupleSlice(eq(CustomerEntity.class), any(Specification.class), any(), eq(pageable)))
+                .thenReturn(new SliceImpl<>(List.of(row), pageable, false));
+        when(customerMapping.tupleToTableInfoDto(row)).thenReturn(infoDto);
 
         PageResponse<CustomerTableInfoDto> response = customerService.searchCustomerTable(criteria);
 
         assertNotNull(response);
         assertEquals(1, response.getContent().size());
-        verify(customerRepository).findAll(any(Specification.class), any(Pageable.class));
+        assertEquals(1, response.getTotalElements());
+        verify(customerRepository, never()).findAll(any(Specification.class), any(Pageable.class));
     }
 }
@@ -11,18 +11,26 @@ import ee.taltech.iti03022024project.entity.EmployeeEntity;
 import ee.taltech.iti03022024project.exception.*;
 import ee.taltech.iti03022024project.mapping.EmployeeMapping;
 import ee.taltech.iti03022024project.repository.EmployeeRepository;
+import ee.taltech.iti03022024project.repository.PartialUpdate;
+import ee.taltech.iti03022024project.repository.PartialUpdateRepository;
+import ee.taltech.iti03022024project.repository.TableQueryExecutor;
 import ee.taltech.iti03022024project.security.ApplicationConfiguration;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.Tuple;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Duration;
 import javax.crypto.SecretKey;
 import java.security.Key;
 import java.util.*;
@@ -42,6 +50,18 @@ class EmployeeServiceTest {
     private PasswordEncoder passwordEncoder;
     @Mock
     private ApplicationConfiguration applicationConfiguration;
+    @Mock
+    private TableQueryExecutor tableQueryExecutor;
+    @Mock
+    private CountEstimator countEstimator;
+    @Mock
+    private PartialUpdateRepository partialUpdateRepository;
+
+    @Mock
+    private TableVersions tableVersions;
+
+    @Spy
+    private TableResultCache tableResultCache = new TableResultCache(new TableVersions(), new SimpleMeterRegistry(), 100, Duration.ofMinutes(1));
 
     @InjectMocks
     private EmployeeService employeeService;
@@ -139,48 +159,57 @@ class EmployeeServiceTest {
 
     @Test
     void updateEmployee_ShouldUpdateWhenValid() {
-        when(employeeRepository.findById(1)).thenReturn(Optional.of(employeeEntity));
-        when(employeeMapping.employeeToDto(employeeEntity)).thenReturn(employeeDto);
+        EmployeeDto updatedDto = new EmployeeDto("Mike", 1, 3);
         when(passwordEncoder.encode("newPass")).thenReturn("hashedNewPass");
-        when(employeeRepository.save(employeeEntity)).thenReturn(employeeEntity);
-
-        EmployeeDto updatedDto = new EmployeeDto();
-        updatedDto.setEmployeeId(1);
-        updatedDto.setName("Mike");
-        updatedDto.setPermissionId(3);
-
-        when(employeeMapping.employeeToDto(employeeEntity)).thenReturn(updatedDto);
+        when(partialUpdateRepository.update(any(), any())).thenReturn(Optional.of(updatedDto));
 
         Optional<EmployeeDto> result = employeeService.updateEmployee(1, "Mike", 3, "newPass");
 
         assertTrue(result.isPresent());
         assertEquals("Mike", result.get().getName());
-        verify(employeeRepository).save(employeeEntity);
+        ArgumentCaptor<PartialUpdate> update = ArgumentCaptor.forClass(PartialUpdate.class);
+        verify(partialUpdateRepository).update(update.capture(), any());
+        assertEquals(Map.of("name", "Mike", "permission_id", 3, "password", "hashedNewPass"), update.getValue().getChanges());
+        verify(employeeRepository, never()).findById(any());
+        verify(employeeRepository, never()).save(any());
+    }
+
+    @Test
+    void updateEmployee_ShouldOnlySetGivenColumns() {
+        when(partialUpdateRepository.update(any(), any())).thenReturn(Optional.of(employeeDto));
+
+        employeeService.updateEmployee(1, "", 2, " ");
+
+        ArgumentCaptor<PartialUpdate> update = ArgumentCaptor.forClass(PartialUpdate.class);
+        verify(partialUpdateRepository).update(update.capture(), any());
+        assertEquals(Map.of("permission_id", 2), update.getValue().getChanges());
+        verify(passwordEncoder, never()).encode(any());
     }
 
     @Test
     void updateEmployee_ShouldThrowNotFoundWhenMissing() {
-        when(employeeRepository.findById(1)).thenReturn(Optional.empty());
+        when(partialUpdateRepository.update(any(), any())).thenReturn(Optional.empty());
         assertThrows(NotFoundException.class, () -> employeeService.updateEmployee(1, "X", 1, "Pass"));
     }
 
     @Test
-    void updateEmployee_ShouldThrowAlreadyExistsWhenNameDuplicated() {
-        when(employeeRepository.findById(1)).thenReturn(Optional.of(employeeEntity));
-        when(employeeMapping.employeeToDto(employeeEntity)).thenReturn(employeeDto);
-        when(employeeRepository.existsByNameIgnoreCase("Mike")).thenReturn(true);
+    void updateEmployee_ShouldMapNameConflictToAlreadyExists() {
+        when(partialUpdateRepository.update(any(), any())).thenReturn(Optional.of(employeeDto));
 
-        assertThrows(AlreadyExistsException.class, () -> employeeService.updateEmployee(1, "Mike", 2, "xxx"));
-        verify(employeeRepository, never()).save(any());
+        employeeService.updateEmployee(1, "Mike", 2, null);
+
+        ArgumentCaptor<PartialUpdate> update = ArgumentCaptor.forClass(PartialUpdate.class);
+        verify(partialUpdateRepository).update(update.capture(), any());
+        RuntimeException error = update.getValue().errorFor("uq_employee_name_lower");
+        assertInstanceOf(AlreadyExistsException.class, error);
+        assertEquals("Cannot change name to Mike ,because Mike already exists!", error.getMessage());
+        verify(employeeRepository, never()).existsByNameIgnoreCase(any());
     }
 
     @Test
     void updateEmployee_ShouldThrowWrongValueWhenPermissionIdInvalid() {
-        when(employeeRepository.findById(1)).thenReturn(Optional.of(employeeEntity));
-        when(employeeMapping.employeeToDto(employeeEntity)).thenReturn(employeeDto);
-
         assertThrows(WrongValueException.class, () -> employeeService.updateEmployee(1, "NewName", 99, "NewPass"));
-        verify(employeeRepository, never()).save(any());
+        verify(partialUpdateRepository, never()).update(any(), any());
     }
 
     @Test
@@ -192,21 +221,44 @@ class EmployeeServiceTest {
         criteria.setSortBy("employeeName");
         criteria.setSortDirection("asc");
 
-        Page<EmployeeEntity> page = new PageImpl<>(List.of(employeeEntity));
+        Tuple row = mock(Tuple.class);
+        Pageable pageable = PageRequest.of(0, 10, Sort.by(Sort.Direction.ASC, "name"));
         EmployeeTableInfoDto infoDto = new EmployeeTableInfoDto(
                 1, "John", "Permission", "['B', 'CE', 'D']", null
         );
-        Page<EmployeeTableInfoDto> mappedPage = new PageImpl<>(List.of(infoDto));
 
-        when(employeeRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(page);
-        when(employeeMapping.employeePageToTableInfoDtoPage(page, PageRequest.of(0, 10, Sort.by(Sort.Direction.ASC, "name"))))
-                .thenReturn(mappedPage);
+        when(tableQueryExecutor.findGroupedTupleSlice(eq(EmployeeEntity.class), any(Specification.class), any(),
+                eq("employeeId"), eq(pageable)))
+                .thenReturn(new SliceImpl<>(List.of(row), pageable, false));
+        when(employeeMapping.tupleToTableInfoDto(row)).thenReturn(infoDto);
 
         PageResponse<EmployeeTableInfoDto> response = employeeService.searchEmployeeTable(criteria);
 
         assertNotNull(response);
         assertEquals(1, response.getContent().size());
-        verify(employeeRepository).findAll(any(Specification.class), any(Pageable.class));
+        assertEquals(1, response.getTotalElements());
+        verify(employeeRepository, never()).count(any(Specification.class));
+    }
+
+    @Test
+    void searchEmployeeTable_ShouldCountWhenMoreRowsAvailable() {
+        EmployeeSearchCriteria criteria = new EmployeeSearchCriteria();
+        criteria.setSize(1);
+
+        Tuple row = mock(Tuple.class);
+        Pageable pageable = PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "employeeId"));
+        EmployeeTableInfoDto infoDto = new EmployeeTableInfoDto(1, "John", "USER", "", null);
+
+        when(tableQueryExecutor.findGroupedTupleSlice(eq(EmployeeEntity.class), any(Specification.class), any(),
+                eq("employeeId"), eq(pageable)))
+                .thenReturn(new SliceImpl<>(List.of(row), pageable, true));
+        when(employeeMapping.tupleToTableInfoDto(row)).thenReturn(infoDto);
+        when(employeeRepository.count(any(Specification.class))).thenReturn(2L);
+
+        PageResponse<EmployeeTableInfoDto> response = employeeService.searchEmployeeTable(criteria);
+
+        assertEquals(2, response.getTotalElements());
+        assertEquals(2, response.getTotalPages());
     }
 
     @Test
@@ -1,33 +1,52 @@
 package ee.taltech.iti03022024project.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.taltech.iti03022024project.dto.CursorPageResponse;
+import ee.taltech.iti03022024project.dto.JobBatchResultDto;
 import ee.taltech.iti03022024project.dto.JobDto;
 import ee.taltech.iti03022024project.dto.PageResponse;
 import ee.taltech.iti03022024project.dto.query.DoneJobTableInfoDto;
 import ee.taltech.iti03022024project.dto.query.NotDoneJobTableInfoDto;
 import ee.taltech.iti03022024project.dto.searchcriteria.DoneJobSearchCriteria;
+import ee.taltech.iti03022024project.dto.searchcriteria.ExportFormat;
 import ee.taltech.iti03022024project.dto.searchcriteria.NotDoneJobSearchCriteria;
 import ee.taltech.iti03022024project.entity.EmployeeEntity;
 import ee.taltech.iti03022024project.entity.JobEntity;
 import ee.taltech.iti03022024project.entity.OrderEntity;
 import ee.taltech.iti03022024project.entity.VehicleEntity;
 import ee.taltech.iti03022024project.exception.NotFoundException;
+import ee.taltech.iti03022024project.exception.WrongValueException;
 import ee.taltech.iti03022024project.mapping.JobMapping;
 import ee.taltech.iti03022024project.repository.EmployeeRepository;
 import ee.taltech.iti03022024project.repository.JobRepository;
 import ee.taltech.iti03022024project.repository.OrderRepository;
+import ee.taltech.iti03022024project.repository.PartialUpdate;
+import ee.taltech.iti03022024project.repository.PartialUpdateRepository;
+import ee.taltech.iti03022024project.repository.TableQueryExecutor;
 import ee.taltech.iti03022024project.repository.VehicleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.Tuple;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -46,6 +65,24 @@ class JobServiceTest {
     private OrderRepository orderRepository;
     @Mock
     private JobMapping jobMapping;
+    @Mock
+    private TableQueryExecutor tableQueryExecutor;
+    @Mock
+    private CountEstimator countEstimator;
+    @Mock
+    private RegistrationPlateIndex registrationPlateIndex;
+    @Mock
+    private ObjectMapper objectMapper;
+    @Mock
+    private JsonStreamWriter jsonStreamWriter;
+    @Mock
+    private PartialUpdateRepository partialUpdateRepository;
+
+    @Mock
+    private TableVersions tableVersions;
+
+    @Spy
+    private TableResultCache tableResultCache = new TableResultCache(new TableVersions(), new SimpleMeterRegistry(), 100, Duration.ofMinutes(1));
 
     @InjectMocks
     private JobService jobService;
@@ -91,6 +128,7 @@ class JobServiceTest {
         assertNotNull(result);
         assertEquals(1, result.getJobId());
         verify(jobRepository).save(jobEntity);
+        verify(employeeRepository).refreshLastJobDate(List.of(20));
     }
 
     @Test
@@ -117,6 +155,46 @@ class JobServiceTest {
         verify(jobRepository, never()).save(any());
     }
 
+    @Test
+    void createJobs_ShouldCreateValidJobsAndReportMissingReferences() {
+        JobDto missingVehicleJob = new JobDto(null, 11, 20, 30, null, null, false);
+        when(vehicleRepository.findExistingIds(Set.of(10, 11))).thenReturn(Set.of(10));
+        when(employeeRepository.findExistingIds(Set.of(20))).thenReturn(Set.of(20));
+        when(orderRepository.findExistingIds(Set.of(30))).thenReturn(Set.of(30));
+        when(jobMapping.jobToEntity(jobDto)).thenReturn(jobEntity);
+        when(vehicleRepository.getReferenceById(10)).thenReturn(vehicle);
+        when(employeeRepository.getReferenceById(20)).thenReturn(employee);
+        when(orderRepository.getReferenceById(30)).thenReturn(order);
+
+        List<JobBatchResultDto> results = jobService.createJobs(List.of(jobDto, missingVehicleJob));
+
+        assertEquals(new JobBatchResultDto(0, 1, null), results.get(0));
+        assertEquals(new JobBatchResultDto(1, null, "Vehicle with ID 11 does not exist."), results.get(1));
+        assertFalse(jobEntity.getIsComplete());
+        verify(jobRepository).saveAll(List.of(jobEntity));
+        verify(employeeRepository).refreshLastJobDate(Set.of(20));
+        verify(vehicleRepository, never()).findById(any());
+    }
+
+    @Test
+    void createJobs_ShouldNotInsertWhenEveryJobFails() {
+        jobDto.setVehicleId(null);
+
+        List<JobBatchResultDto> results = jobService.createJobs(List.of(jobDto));
+
+        assertEquals("Vehicle ID is required.", results.getFirst().getError());
+        verify(vehicleRepository, never()).findExistingIds(any());
+        verify(jobRepository, never()).saveAll(any());
+        verify(employeeRepository, never()).refreshLastJobDate(any());
+    }
+
+    @Test
+    void createJobs_ShouldThrowWhenBatchEmpty() {
+        List<JobDto> noJobs = List.of();
+        assertThrows(WrongValueException.class, () -> jobService.createJobs(noJobs));
+        verifyNoInteractions(jobRepository);
+    }
+
     @Test
     void getAllJobs_ShouldReturnList() {
         when(jobRepository.findAll()).thenReturn(List.of(jobEntity));
@@ -147,13 +225,11 @@ class JobServiceTest {
 
     @Test
     void updateJob_ShouldUpdateFields() {
-        when(jobRepository.findById(1)).thenReturn(Optional.of(jobEntity));
-
         JobDto updatedJobDto = new JobDto();
+        updatedJobDto.setEmployeeId(21);
         updatedJobDto.setIsComplete(true);
-
-        when(jobRepository.save(jobEntity)).thenReturn(jobEntity);
-        when(jobMapping.jobToDto(jobEntity)).thenReturn(updatedJobDto);
+        when(partialUpdateRepository.update(any(), any()))
+                .thenReturn(Optional.of(new JobService.UpdatedJob(updatedJobDto, 20)));
 
         JobDto incoming = new JobDto();
         incoming.setVehicleId(11);
@@ -161,39 +237,53 @@ class JobServiceTest {
         incoming.setOrderId(31);
         incoming.setIsComplete(true);
 
-        VehicleEntity newVehicle = new VehicleEntity();
-        newVehicle.setVehicleId(11);
-        EmployeeEntity newEmployee = new EmployeeEntity(21, "Bob", 2, "otherPass");
-        OrderEntity newOrder = new OrderEntity();
-        newOrder.setOrderId(31);
-
-        when(vehicleRepository.findById(11)).thenReturn(Optional.of(newVehicle));
-        when(employeeRepository.findById(21)).thenReturn(Optional.of(newEmployee));
-        when(orderRepository.findById(31)).thenReturn(Optional.of(newOrder));
-
         Optional<JobDto> result = jobService.updateJob(1, incoming);
 
         assertTrue(result.isPresent());
         assertTrue(result.get().getIsComplete());
-        verify(jobRepository).save(jobEntity);
+        ArgumentCaptor<PartialUpdate> update = ArgumentCaptor.forClass(PartialUpdate.class);
+        verify(partialUpdateRepository).update(update.capture(), any());
+        assertEquals(Map.of("vehicle_id", 11, "employee_id", 21, "order_id", 31, "is_complete", true),
+                update.getValue().getChanges());
+        verify(jobRepository, never()).save(any());
+        verify(vehicleRepository, never()).findById(any());
+    }
+
+    @Test
+    void updateJob_ShouldRefreshLastJobDateOfPreviousAndNewEmployee() {
+        JobDto incoming = new JobDto();
+        incoming.setEmployeeId(21);
+        JobDto updatedJobDto = new JobDto();
+        updatedJobDto.setEmployeeId(21);
+        when(partialUpdateRepository.update(any(), any()))
+                .thenReturn(Optional.of(new JobService.UpdatedJob(updatedJobDto, 20)));
+
+        jobService.updateJob(1, incoming);
+
+        verify(employeeRepository).refreshLastJobDate(List.of(20, 21));
     }
 
 
     @Test
     void updateJob_ShouldThrowNotFoundWhenJobMissing() {
-        when(jobRepository.findById(1)).thenReturn(Optional.empty());
+        when(partialUpdateRepository.update(any(), any())).thenReturn(Optional.empty());
         assertThrows(NotFoundException.class, () -> jobService.updateJob(1, jobDto));
-        verify(jobRepository, never()).save(any());
+        verify(employeeRepository, never()).refreshLastJobDate(any());
     }
 
     @Test
     void updateJob_ShouldThrowNotFoundWhenVehicleMissing() {
-        when(jobRepository.findById(1)).thenReturn(Optional.of(jobEntity));
         JobDto incoming = new JobDto();
         incoming.setVehicleId(999);
-        when(vehicleRepository.findById(999)).thenReturn(Optional.empty());
+        when(partialUpdateRepository.update(any(), any())).thenReturn(Optional.empty());
+
         assertThrows(NotFoundException.class, () -> jobService.updateJob(1, incoming));
-        verify(jobRepository, never()).save(any());
+
+        ArgumentCaptor<PartialUpdate> update = ArgumentCaptor.forClass(PartialUpdate.class);
+        verify(partialUpdateRepository).update(update.capture(), any());
+        RuntimeException error = update.getValue().errorFor("fk_job_vehicle");
+        assertInstanceOf(NotFoundException.class, error);
+        assertEquals("Vehicle with ID 999 does not exist.", error.getMessage());
     }
 
     @Test
@@ -202,8 +292,9 @@ class JobServiceTest {
         criteria.setSortDirection("asc");
         criteria.setSortBy("vehicleId");
 
-        Page<JobEntity> page = new PageImpl<>(List.of(jobEntity));
-        Page<DoneJobTableInfoDto> mapped = new PageImpl<>(List.of(new DoneJobTableInfoDto(
+        Tuple row = mock(Tuple.class);
+        Pageable pageable = PageRequest.of(0, 20, Sort.by(Sort.Direction.ASC, "vehicle.vehicleId"));
+        DoneJobTableInfoDto mapped = new DoneJobTableInfoDto(
                 10,
                 20,
                 "345 BDF",
@@ -214,17 +305,68 @@ class JobServiceTest {
                 LocalDateTime.now().minusDays(3),
                 LocalDateTime.now().minusDays(1),
                 true
-        )));
+        );
 
-        when(jobRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(page);
-        when(jobMapping.jobPageToDoneJobDtoPage(page, PageRequest.of(0, 20, Sort.by(Sort.Direction.ASC, "vehicle.vehicleId"))))
-                .thenReturn(mapped);
+        when(tableQueryExecutor.findTupleSlice(eq(JobEntity.class), any(Specification.class), any(), eq(pageable)))
+                .thenReturn(new SliceImpl<>(List.of(row), pageable, false));
+        when(jobMapping.tupleToDoneJobDto(row)).thenReturn(mapped);
 
         PageResponse<DoneJobTableInfoDto> response = jobService.searchDoneJobsTable(criteria);
 
         assertNotNull(response);
         assertEquals(1, response.getContent().size());
-        verify(jobRepository).findAll(any(Specification.class), any(Pageable.class));
+        assertEquals(1, response.getTotalElements());
+        verify(jobRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+        verify(jobRepository, never()).count(any(Specification.class));
+    }
+
+    @Test
+    void searchDoneJobsTable_ShouldCountWhenMorePagesExist() {
+        DoneJobSearchCriteria criteria = new DoneJobSearchCriteria();
+        criteria.setSize(1);
+
+        Tuple row = mock(Tuple.class);
+        Pageable pageable = PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "jobId"));
+
+        when(tableQueryExecutor.findTupleSlice(eq(JobEntity.class), any(Specification.class), any(), eq(pageable)))
+                .thenReturn(new SliceImpl<>(List.of(row), pageable, true));
+        when(jobMapping.tupleToDoneJobDto(row)).thenReturn(new DoneJobTableInfoDto(10, 20, "345 BDF", 65.0, 200.0,
+                30, "Klient", LocalDateTime.now().minusDays(3), LocalDateTime.now().minusDays(1), true));
+        when(jobRepository.count(any(Specification.class))).thenReturn(45L);
+
+        PageResponse<DoneJobTableInfoDto> response = jobService.searchDoneJobsTable(criteria);
+
+        assertEquals(45, response.getTotalElements());
+        assertEquals(45, response.getTotalPages());
+        assertTrue(response.isHasNext());
+    }
+
+    @Test
+    void exportDoneJobs_ShouldWriteCsvRowsFromStream() throws IOException {
+        DoneJobSearchCriteria criteria = new DoneJobSearchCriteria();
+        criteria.setSortBy("customerName");
+        criteria.setSortDirection("asc");
+
+        Tuple first = mock(Tuple.class);
+        Tuple second = mock(Tuple.class);
+        when(tableQueryExecutor.streamTuples(eq(JobEntity.class), any(Specification.class), any(),
+                eq(Sort.by(Sort.Direction.ASC, "order.customer.name")), anyInt()))
+                .thenReturn(Stream.of(first, second));
+        when(jobMapping.tupleToDoneJobDto(first)).thenReturn(new DoneJobTableInfoDto(1, 20, "345 BDF", 65.0, 200.0,
+                30, "Acme, \"Best\" Corp.", LocalDateTime.of(2024, 11, 10, 8, 0), LocalDateTime.of(2024, 11, 10, 17, 0), true));
+        when(jobMapping.tupleToDoneJobDto(second)).thenReturn(new DoneJobTableInfoDto(2, 21, "123 ABC", null, null,
+                31, "Klient", LocalDateTime.of(2024, 11, 11, 8, 0), LocalDateTime.of(2024, 11, 11, 17, 0), true));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = jobService.exportDoneJobs(criteria, ExportFormat.CSV, out);
+
+        assertEquals(2, rows);
+        assertEquals("""
+                jobId,vehicleId,registrationPlate,fuelUsed,distanceDriven,orderId,customerName,pickupDate,dropOffDate
+                1,20,345 BDF,65.0,200.0,30,"Acme, ""Best"" Corp.",2024-11-10T08:00,2024-11-10T17:00
+                2,21,123 ABC,,,31,Klient,2024-11-11T08:00,2024-11-11T17:00
+                """, out.toString(StandardCharsets.UTF_8));
+        verify(jobRepository, never()).count(any(Specification.class));
     }
 
     @Test
@@ -233,8 +375,9 @@ class JobServiceTest {
         criteria.setSortDirection("asc");
         criteria.setSortBy("registrationPlate");
 
-        Page<JobEntity> page = new PageImpl<>(List.of(jobEntity));
-        Page<NotDoneJobTableInfoDto> mapped = new PageImpl<>(List.of(new NotDoneJobTableInfoDto(
+        Tuple row = mock(Tuple.class);
+        Pageable pageable = PageRequest.of(0, 20, Sort.by(Sort.Direction.ASC, "vehicle.registrationPlate"));
+        NotDoneJobTableInfoDto mapped = new NotDoneJobTableInfoDto(
                 10,
                 20,
                 "345 BDF",
@@ -243,16 +386,86 @@ class JobServiceTest {
                 LocalDateTime.now().minusDays(3),
                 LocalDateTime.now().minusDays(1),
                 true
-        )));
+        );
 
-        when(jobRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(page);
-        when(jobMapping.jobPageToNotDoneJobDtoPage(page, PageRequest.of(0, 20, Sort.by(Sort.Direction.ASC, "vehicle.registrationPlate"))))
-                .thenReturn(mapped);
+        when(tableQueryExecutor.findTupleSlice(eq(JobEntity.class), any(Specification.class), any(), eq(pageable)))
+                .thenReturn(new SliceImpl<>(List.of(row), pageable, false));
+        when(jobMapping.tupleToNotDoneJobDto(row)).thenReturn(mapped);
 
         PageResponse<NotDoneJobTableInfoDto> response = jobService.searchNotDoneJobsTable(criteria);
 
         assertNotNull(response);
         assertEquals(1, response.getContent().size());
-        verify(jobRepository).findAll(any(Specification.class), any(Pageable.class));
+        verify(jobRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    void scrollDoneJobsTable_ShouldReturnNextCursorWhenMoreRows() {
+        DoneJobSearchCriteria criteria = new DoneJobSearchCriteria();
+        criteria.setSortDirection("asc");
+        criteria.setSortBy("customerName");
+        criteria.setSize(1);
+
+        LocalDateTime pickup = LocalDateTime.now().minusDays(3);
+        DoneJobTableInfoDto dto = new DoneJobTableInfoDto(10, 20, "345 BDF", 65.0, 200.0, 30, "Klient",
+                pickup, pickup.plusDays(2), true);
+
+        Tuple row = mock(Tuple.class);
+        when(tableQueryExecutor.findTupleSlice(eq(JobEntity.class), any(Specification.class), any(), eq(PageRequest.of(0, 1))))
+                .thenReturn(new SliceImpl<>(List.of(row), PageRequest.of(0, 1), true));
+        when(jobMapping.tupleToDoneJobDto(row)).thenReturn(dto);
+
+        CursorPageResponse<DoneJobTableInfoDto> response = jobService.scrollDoneJobsTable(criteria);
+
+        assertEquals(1, response.getContent().size());
+        JobCursor next = JobCursor.decode(response.getNextCursor());
+        assertEquals("customerName", next.getSortBy());
+        assertEquals(Sort.Direction.ASC, next.getDirection());
+        assertEquals("Klient", next.getLastValue());
+        assertEquals(10, next.getLastJobId());
+        verify(jobRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    void scrollDoneJobsTable_ShouldThrowWhenCursorSortDiffers() {
+        DoneJobSearchCriteria criteria = new DoneJobSearchCriteria();
+        criteria.setSortBy("jobId");
+        criteria.setCursor(new JobCursor("fuelUsed", Sort.Direction.DESC, 12.5, 4).encode());
+
+        assertThrows(WrongValueException.class, () -> jobService.scrollDoneJobsTable(criteria));
+        verifyNoInteractions(tableQueryExecutor);
+    }
+
+    @Test
+    void scrollNotDoneJobsTable_ShouldContinueFromCursor() {
+        LocalDateTime pickup = LocalDateTime.now().minusDays(3);
+        NotDoneJobSearchCriteria criteria = new NotDoneJobSearchCriteria();
+        criteria.setCursor(new JobCursor("pickupDate", Sort.Direction.DESC, pickup, 7).encode());
+
+        NotDoneJobTableInfoDto dto = new NotDoneJobTableInfoDto(6, 20, "345 BDF", 30, "Klient",
+                pickup.minusDays(1), pickup, false);
+
+        Tuple row = mock(Tuple.class);
+        when(tableQueryExecutor.findTupleSlice(eq(JobEntity.class), any(Specification.class), any(), eq(PageRequest.of(0, 20))))
+                .thenReturn(new SliceImpl<>(List.of(row), PageRequest.of(0, 20), false));
+        when(jobMapping.tupleToNotDoneJobDto(row)).thenReturn(dto);
+
+        CursorPageResponse<NotDoneJobTableInfoDto> response = jobService.scrollNotDoneJobsTable(criteria);
+
+        assertEquals(1, response.getContent().size());
+        assertNull(response.getNextCursor());
+    }
+
+    @Test
+    void scrollNotDoneJobsTable_ShouldThrowWhenSortNotSupported() {
+        NotDoneJobSearchCriteria criteria = new NotDoneJobSearchCriteria();
+        criteria.setSortBy("fuelUsed");
+
+        assertThrows(WrongValueException.class, () -> jobService.scrollNotDoneJobsTable(criteria));
+    }
+
+    @Test
+    void jobCursor_ShouldRejectGarbageToken() {
+        assertThrows(WrongValueException.class, () -> JobCursor.decode("not-a-cursor"));
     }
 }
@@ -0,0 +1,78 @@
+package ee.taltech.iti03022024project.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.taltech.iti03022024project.dto.CustomerDto;
+import ee.taltech.iti03022024project.dto.searchcriteria.StreamFormat;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonStreamWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final JsonStreamWriter jsonStreamWriter = new JsonStreamWriter(objectMapper);
+
+    private static Stream<CustomerDto> customers() {
+        return Stream.of(
+                new CustomerDto(1, "John Doe Inc.", null, null, null, null, null, null),
+                new CustomerDto(2, "Acme Corp.", null, null, null, null, null, null)
+        );
+    }
+
+    @Test
+    void shouldWriteJsonArray() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = jsonStreamWriter.write(customers(), StreamFormat.JSON, out);
+
+        assertEquals(2, count);
+        CustomerDto[] written = objectMapper.readValue(out.toByteArray(), CustomerDto[].class);
+        assertEquals(2, written.length);
+        assertEquals("Acme Corp.", written[1].getName());
+    }
+
+    @Test
+    void shouldWriteOneObjectPerLine() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        jsonStreamWriter.write(customers(), StreamFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n", -1);
+        assertEquals(3, lines.length);
+        assertEquals(1, objectMapper.readValue(lines[0], CustomerDto.class).getCustomerId());
+        assertEquals(2, objectMapper.readValue(lines[1], CustomerDto.class).getCustomerId());
+        assertEquals("", lines[2]);
+    }
+
+    @Test
+    void shouldWriteEmptyArrayForNoRows() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        jsonStreamWriter.write(Stream.empty(), StreamFormat.JSON, out);
+
+        assertEquals("[]", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldCloseStreamWhenClientDisconnects() {
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<CustomerDto> rows = Stream.generate(() -> new CustomerDto(1, "John Doe Inc.", null, null, null, null, null, null))
+                .onClose(() -> closed.set(true));
+        OutputStream disconnected = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        assertThrows(IOException.class, () -> jsonStreamWriter.write(rows, StreamFormat.NDJSON, disconnected));
+        assertTrue(closed.get());
+    }
+}
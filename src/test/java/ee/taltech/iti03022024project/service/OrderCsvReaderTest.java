@@ -0,0 +1,159 @@
+package ee.taltech.iti03022024project.service;
+
+import ee.taltech.iti03022024project.dto.CustomerNameIdDto;
+import ee.taltech.iti03022024project.dto.OrderDto;
+import ee.taltech.iti03022024project.exception.WrongValueException;
+import ee.taltech.iti03022024project.repository.CustomerRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderCsvReaderTest {
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    private OrderCsvReader reader(String csv) {
+        return new OrderCsvReader(new BufferedReader(new StringReader(csv)), customerRepository);
+    }
+
+    private static List<OrderDto> readAll(OrderCsvReader reader) {
+        List<OrderDto> orders = new ArrayList<>();
+        for (List<OrderDto> chunk = reader.nextChunk(); !chunk.isEmpty(); chunk = reader.nextChunk()) {
+            orders.addAll(chunk);
+        }
+        return orders;
+    }
+
+    @Test
+    void shouldResolveCustomersByIdAndName() {
+        when(customerRepository.findExistingIds(Set.of(1))).thenReturn(Set.of(1));
+        when(customerRepository.findByLowerCaseNames(Set.of("globex ltd."))).thenReturn(List.of(new CustomerNameIdDto(3, "Globex Ltd.")));
+
+        OrderCsvReader reader = reader("""
+                customerId,customerName,pickupDate,dropOffDate,weight,orderDetails
+                1,,2025-02-01T08:00:00,2025-02-02T08:00:00,500,"Pallets, two of them"
+                ,Globex Ltd.,2025-02-03T08:00:00,2025-02-04T08:00:00,,"Say ""hi""\"
+                """);
+        List<OrderDto> orders = readAll(reader);
+
+        assertEquals(2, orders.size());
+        assertEquals(1, orders.get(0).getCustomerId());
+        assertEquals(LocalDateTime.of(2025, 2, 1, 8, 0), orders.get(0).getPickupDate());
+        assertEquals(500, orders.get(0).getWeight());
+        assertEquals("Pallets, two of them", orders.get(0).getOrderDetails());
+        assertEquals(3, orders.get(1).getCustomerId());
+        assertNull(orders.get(1).getWeight());
+        assertEquals("Say \"hi\"", orders.get(1).getOrderDetails());
+        assertEquals(0, reader.getRejected());
+        assertEquals(Set.of(1, 3), reader.getAcceptedCustomerIds());
+    }
+
+    @Test
+    void shouldRejectInvalidRowsWithLineNumbers() {
+        when(customerRepository.findExistingIds(Set.of(1, 99))).thenReturn(Set.of(1));
+        when(customerRepository.findByLowerCaseNames(Set.of("initech"))).thenReturn(List.of());
+
+        OrderCsvReader reader = reader("""
+                customerId,customerName,pickupDate,dropOffDate,weight
+                99,,2025-02-01T08:00:00,2025-02-02T08:00:00,1
+                ,Initech,2025-02-01T08:00:00,2025-02-02T08:00:00,1
+                1,,tomorrow,2025-02-02T08:00:00,1
+                1,,2025-02-03T08:00:00,2025-02-02T08:00:00,1
+                1,,2025-02-01T08:00:00,2025-02-02T08:00:00,heavy
+                1,,2025-02-01T08:00:00
+                ,,2025-02-01T08:00:00,2025-02-02T08:00:00,1
+                1,,2025-02-01T08:00:00,2025-02-02T08:00:00,"1
+                1,,2025-02-01T08:00:00,2025-02-02T08:00:00,1
+                1,Initech,2025-02-01T08:00:00,2025-02-02T08:00:00,1
+                one,,2025-02-01T08:00:00,2025-02-02T08:00:00,1
+                """);
+        List<OrderDto> orders = readAll(reader);
+
+        assertEquals(1, orders.size());
+        assertEquals(10, reader.getRejected());
+        assertEquals(List.of(
+                "Line 9: Quoted value is not closed.",
+                "Line 2: Customer with ID 99 does not exist.",
+                "Line 3: Customer Initech does not exist.",
+                "Line 4: pickupDate is not a date and time: tomorrow",
+                "Line 5: dropOffDate is before pickupDate.",
+                "Line 6: weight is not a whole number: heavy",
+                "Line 7: Expected 5 columns, found 3.",
+                "Line 8: Exactly one of customerId and customerName is required.",
+                "Line 11: Exactly one of customerId and customerName is required.",
+                "Line 12: customerId is not a whole number: one"
+        ), reader.getErrors());
+    }
+
+    @Test
+    void shouldQueryEachCustomerOnceAcrossChunks() {
+        StringBuilder csv = new StringBuilder("customerName,pickupDate,dropOffDate\n");
+        for (int i = 0; i < OrderCsvReader.CHUNK_SIZE * 2 + 1; i++) {
+            csv.append("Acme Corp.,2025-02-01T08:00:00,2025-02-02T08:00:00\n");
+        }
+        when(customerRepository.findByLowerCaseNames(Set.of("acme corp."))).thenReturn(List.of(new CustomerNameIdDto(2, "Acme Corp.")));
+
+        List<OrderDto> orders = readAll(reader(csv.toString()));
+
+        assertEquals(OrderCsvReader.CHUNK_SIZE * 2 + 1, orders.size());
+        verify(customerRepository, times(1)).findByLowerCaseNames(any());
+        verify(customerRepository, never()).findExistingIds(any());
+    }
+
+    @Test
+    void nextChunkShouldReturnOrdersOneChunkAtATime() {
+        StringBuilder csv = new StringBuilder("customerId,customerName,pickupDate,dropOffDate\n");
+        for (int i = 0; i < OrderCsvReader.CHUNK_SIZE + 1; i++) {
+            csv.append(i == OrderCsvReader.CHUNK_SIZE ? ",Acme Corp." : "1,").append(",2025-02-01T08:00:00,2025-02-02T08:00:00\n");
+        }
+        when(customerRepository.findExistingIds(Set.of(1))).thenReturn(Set.of(1));
+        when(customerRepository.findByLowerCaseNames(Set.of("acme corp."))).thenReturn(List.of(new CustomerNameIdDto(2, "Acme Corp.")));
+        OrderCsvReader reader = reader(csv.toString());
+
+        assertEquals(OrderCsvReader.CHUNK_SIZE, reader.nextChunk().size());
+        verify(customerRepository, never()).findByLowerCaseNames(any());
+
+        List<OrderDto> last = reader.nextChunk();
+        assertEquals(1, last.size());
+        assertEquals(2, last.get(0).getCustomerId());
+        assertEquals(List.of(), reader.nextChunk());
+        assertEquals(Set.of(1, 2), reader.getAcceptedCustomerIds());
+    }
+
+    @Test
+    void shouldFindCustomerWithNumericNameByName() {
+        when(customerRepository.findByLowerCaseNames(Set.of("1984"))).thenReturn(List.of(new CustomerNameIdDto(7, "1984")));
+
+        List<OrderDto> orders = readAll(reader("""
+                customerName,pickupDate,dropOffDate
+                1984,2025-02-01T08:00:00,2025-02-02T08:00:00
+                """));
+
+        assertEquals(1, orders.size());
+        assertEquals(7, orders.get(0).getCustomerId());
+        verify(customerRepository, never()).findExistingIds(any());
+    }
+
+    @Test
+    void shouldRejectHeaderWithoutRequiredColumns() {
+        assertThrows(WrongValueException.class, () -> reader("customerId,pickupDate\n"));
+        assertThrows(WrongValueException.class, () -> reader("pickupDate,dropOffDate\n"));
+        assertThrows(WrongValueException.class, () -> reader("customer,pickupDate,dropOffDate\n"));
+        assertThrows(WrongValueException.class, () -> reader("customerId,pickupDate,dropOffDate,color\n"));
+        assertThrows(WrongValueException.class, () -> reader(""));
+    }
+}
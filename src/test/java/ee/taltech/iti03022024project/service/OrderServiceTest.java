@@ -1,28 +1,48 @@
 package ee.taltech.iti03022024project.service;
 
 import ee.taltech.iti03022024project.dto.OrderDto;
+import ee.taltech.iti03022024project.dto.OrderImportResultDto;
 import ee.taltech.iti03022024project.dto.OrderNameIdDto;
 import ee.taltech.iti03022024project.dto.PageResponse;
 import ee.taltech.iti03022024project.dto.query.OrdersTableInfoDto;
+import ee.taltech.iti03022024project.dto.searchcriteria.CountMode;
+import ee.taltech.iti03022024project.dto.searchcriteria.ExportFormat;
 import ee.taltech.iti03022024project.dto.searchcriteria.OrderSearchCriteria;
 import ee.taltech.iti03022024project.entity.CustomerEntity;
 import ee.taltech.iti03022024project.entity.OrderEntity;
 import ee.taltech.iti03022024project.exception.NotFoundException;
+import ee.taltech.iti03022024project.exception.WrongValueException;
 import ee.taltech.iti03022024project.mapping.OrderMapping;
 import ee.taltech.iti03022024project.repository.CustomerRepository;
+import ee.taltech.iti03022024project.repository.OrderCopyRepository;
 import ee.taltech.iti03022024project.repository.OrderRepository;
+import ee.taltech.iti03022024project.repository.PartialUpdate;
+import ee.taltech.iti03022024project.repository.PartialUpdateRepository;
+import ee.taltech.iti03022024project.repository.TableQueryExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.Tuple;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -40,6 +60,25 @@ class OrderServiceTest {
     @Mock
     private OrderMapping orderMapping;
 
+    @Mock
+    private TableQueryExecutor tableQueryExecutor;
+
+    @Mock
+    private CountEstimator countEstimator;
+
+    @Mock
+    private OrderCopyRepository orderCopyRepository;
+    @Mock
+    private JsonStreamWriter jsonStreamWriter;
+    @Mock
+    private PartialUpdateRepository partialUpdateRepository;
+
+    @Mock
+    private TableVersions tableVersions;
+
+    @Spy
+    private TableResultCache tableResultCache = new TableResultCache(new TableVersions(), new SimpleMeterRegistry(), 100, Duration.ofMinutes(1));
+
     @InjectMocks
     private OrderService orderService;
 
@@ -80,6 +119,7 @@ class OrderServiceTest {
         assertNotNull(result);
         assertEquals(100, result.getOrderId());
         verify(orderRepository).save(orderEntity);
+        verify(customerRepository).refreshLastOrderDate(List.of(200));
     }
 
     @Test
@@ -89,6 +129,24 @@ class OrderServiceTest {
         verify(orderRepository, never()).save(any());
     }
 
+    @Test
+    void importOrders_ShouldCopyValidRowsAndRefreshLastOrderDates() {
+        String csv = """
+                customerId,pickupDate,dropOffDate
+                200,2025-01-01T09:00:00,2025-01-10T18:00:00
+                201,2025-01-01T09:00:00,2025-01-10T18:00:00
+                """;
+        when(customerRepository.findExistingIds(Set.of(200, 201))).thenReturn(Set.of(200));
+        when(orderCopyRepository.copyOrders(any())).thenAnswer(invocation -> (long) invocation.<List<OrderDto>>getArgument(0).size());
+
+        OrderImportResultDto result = orderService.importOrders(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(1, result.getAccepted());
+        assertEquals(1, result.getRejected());
+        assertEquals(List.of("Line 3: Customer with ID 201 does not exist."), result.getErrors());
+        verify(customerRepository).refreshLastOrderDate(Set.of(200));
+    }
+
     @Test
     void getAllOrders_ShouldReturnList() {
         List<OrderEntity> orders = List.of(orderEntity);
@@ -121,16 +179,12 @@ class OrderServiceTest {
 
     @Test
     void updateOrder_ShouldUpdateWhenFound() {
-        when(orderRepository.findById(100)).thenReturn(Optional.of(orderEntity));
-        when(customerRepository.findById(200)).thenReturn(Optional.of(customerEntity));
-        when(orderRepository.save(orderEntity)).thenReturn(orderEntity);
-
         OrderDto updatedOrderDto = new OrderDto();
         updatedOrderDto.setOrderId(100);
         updatedOrderDto.setCustomerId(200);
         updatedOrderDto.setOrderDetails("Updated");
-
-        when(orderMapping.orderToDto(orderEntity)).thenReturn(updatedOrderDto);
+        when(partialUpdateRepository.update(any(), any()))
+                .thenReturn(Optional.of(new OrderService.UpdatedOrder(updatedOrderDto, 150)));
 
         OrderDto incoming = new OrderDto();
         incoming.setCustomerId(200);
@@ -140,25 +194,59 @@ class OrderServiceTest {
 
         assertTrue(result.isPresent());
         assertEquals("Updated", result.get().getOrderDetails());
-        verify(orderRepository).save(orderEntity);
+        ArgumentCaptor<PartialUpdate> update = ArgumentCaptor.forClass(PartialUpdate.class);
+        verify(partialUpdateRepository).update(update.capture(), any());
+        assertEquals(Map.of("customer_id", 200, "order_details", "Updated"), update.getValue().getChanges());
+        verify(orderRepository, never()).save(any());
+        verify(customerRepository).refreshLastOrderDate(List.of(150, 200));
     }
 
 
     @Test
     void updateOrder_ShouldThrowNotFoundWhenOrderMissing() {
-        when(orderRepository.findById(100)).thenReturn(Optional.empty());
+        when(partialUpdateRepository.update(any(), any())).thenReturn(Optional.empty());
         assertThrows(NotFoundException.class, () -> orderService.updateOrder(100, orderDto));
-        verify(orderRepository, never()).save(any());
+        verify(customerRepository, never()).refreshLastOrderDate(any());
     }
 
     @Test
     void updateOrder_ShouldThrowNotFoundWhenCustomerMissing() {
-        when(orderRepository.findById(100)).thenReturn(Optional.of(orderEntity));
         OrderDto incoming = new OrderDto();
         incoming.setCustomerId(999);
-        when(customerRepository.findById(999)).thenReturn(Optional.empty());
+        when(partialUpdateRepository.update(any(), any())).thenReturn(Optional.empty());
+
         assertThrows(NotFoundException.class, () -> orderService.updateOrder(100, incoming));
-        verify(orderRepository, never()).save(any());
+
+        ArgumentCaptor<PartialUpdate> update = ArgumentCaptor.forClass(PartialUpdate.class);
+        verify(partialUpdateRepository).update(update.capture(), any());
+        RuntimeException error = update.getValue().errorFor("fk_order_customer");
+        assertInstanceOf(NotFoundException.class, error);
+        assertEquals("Customer with ID 999 does not exist.", error.getMessage());
+        verify(customerRepository, never()).findById(any());
+    }
+
+    @Test
+    void exportOrders_ShouldWriteCsvRowsFromStream() throws IOException {
+        OrderSearchCriteria criteria = new OrderSearchCriteria();
+        criteria.setSortBy("customerName");
+        criteria.setSortDirection("asc");
+
+        Tuple row = mock(Tuple.class);
+        when(tableQueryExecutor.streamTuples(eq(OrderEntity.class), any(Specification.class), any(),
+                eq(Sort.by(Sort.Direction.ASC, "customer.name")), anyInt()))
+                .thenReturn(Stream.of(row));
+        when(orderMapping.tupleToTableInfoDto(row)).thenReturn(new OrdersTableInfoDto(100, "Acme, Corp.",
+                LocalDateTime.of(2025, 1, 1, 9, 0), LocalDateTime.of(2025, 1, 10, 18, 0), 500, 0, 0, 0, null));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = orderService.exportOrders(criteria, ExportFormat.CSV, out);
+
+        assertEquals(1, rows);
+        assertEquals("""
+                orderId,customerName,pickupDate,dropOffDate,weight,width,height,length,orderDetails
+                100,"Acme, Corp.",2025-01-01T09:00,2025-01-10T18:00,500,0,0,0,
+                """, out.toString(StandardCharsets.UTF_8));
+        verify(jsonStreamWriter, never()).write(any(), any(), any());
     }
 
     @Test
@@ -170,8 +258,9 @@ class OrderServiceTest {
         criteria.setPage(0);
         criteria.setSize(2);
 
-        Page<OrderEntity> page = new PageImpl<>(List.of(orderEntity));
-        Page<OrdersTableInfoDto> mappedPage = new PageImpl<>(List.of(new OrdersTableInfoDto(
+        Tuple row = mock(Tuple.class);
+        Pageable pageable = PageRequest.of(0, 2, Sort.by(Sort.Direction.ASC, "customer.name"));
+        OrdersTableInfoDto dto = new OrdersTableInfoDto(
                 1,
                 "Customer name",
                 LocalDateTime.now(),
@@ -181,18 +270,98 @@ class OrderServiceTest {
                 450,
                 1500,
                 "some details"
-        )));
+        );
 
-        when(orderRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(page);
-        when(orderMapping.orderPageToDtoPage(page,
-                PageRequest.of(0, 2, Sort.by(Sort.Direction.ASC, "customer.name"))))
-                .thenReturn(mappedPage);
+        when(tableQueryExecutor.findTupleSlice(eq(OrderEntity.class), any(Specification.class), any(), eq(pageable)))
+                .thenReturn(new SliceImpl<>(List.of(row), pageable, false));
+        when(orderMapping.tupleToTableInfoDto(row)).thenReturn(dto);
 
         PageResponse<OrdersTableInfoDto> response = orderService.searchOrdersTable(criteria);
 
         assertNotNull(response);
         assertEquals(1, response.getContent().size());
-        verify(orderRepository).findAll(any(Specification.class), any(Pageable.class));
+        assertEquals(1, response.getTotalElements());
+        assertEquals(CountMode.EXACT, response.getCountMode());
+        verify(orderRepository, never()).count(any(Specification.class));
+    }
+
+    @Test
+    void searchOrdersTable_ShouldSkipCountWhenCountModeNone() {
+        OrderSearchCriteria criteria = new OrderSearchCriteria();
+        criteria.setCountMode(CountMode.NONE);
+        criteria.setSize(1);
+
+        OrdersTableInfoDto dto = new OrdersTableInfoDto(1, "Customer name", LocalDateTime.now(),
+                LocalDateTime.now().plusDays(1), 6000, 200, 450, 1500, "some details");
+
+        Tuple row = mock(Tuple.class);
+        when(tableQueryExecutor.findTupleSlice(eq(OrderEntity.class), any(Specification.class), any(), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(row), PageRequest.of(0, 1), true));
+        when(orderMapping.tupleToTableInfoDto(row)).thenReturn(dto);
+
+        PageResponse<OrdersTableInfoDto> response = orderService.searchOrdersTable(criteria);
+
+        assertEquals(1, response.getContent().size());
+        assertTrue(response.isHasNext());
+        assertEquals(-1, response.getTotalElements());
+        assertEquals(CountMode.NONE, response.getCountMode());
+        verify(orderRepository, never()).count(any(Specification.class));
+        verifyNoInteractions(countEstimator);
+    }
+
+    @Test
+    void searchOrdersTable_ShouldUseEstimateWhenCountModeEstimate() {
+        OrderSearchCriteria criteria = new OrderSearchCriteria();
+        criteria.setCustomerName("Test");
+        criteria.setCountMode(CountMode.ESTIMATE);
+        criteria.setSize(1);
+
+        OrdersTableInfoDto dto = new OrdersTableInfoDto(1, "Customer name", LocalDateTime.now(),
+                LocalDateTime.now().plusDays(1), 6000, 200, 450, 1500, "some details");
+
+        Tuple row = mock(Tuple.class);
+        when(tableQueryExecutor.findTupleSlice(eq(OrderEntity.class), any(Specification.class), any(), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(row), PageRequest.of(0, 1), true));
+        when(orderMapping.tupleToTableInfoDto(row)).thenReturn(dto);
+        when(countEstimator.estimate(eq("orders"), eq(criteria), eq(false), any())).thenReturn(40L);
+
+        PageResponse<OrdersTableInfoDto> response = orderService.searchOrdersTable(criteria);
+
+        assertEquals(40, response.getTotalElements());
+        assertEquals(40, response.getTotalPages());
+        assertEquals(CountMode.ESTIMATE, response.getCountMode());
+        verify(orderRepository, never()).count(any(Specification.class));
+    }
+
+    @Test
+    void searchOrdersTable_ShouldServeRepeatedSearchFromCache() {
+        OrderSearchCriteria criteria = new OrderSearchCriteria();
+        criteria.setCountMode(CountMode.NONE);
+
+        Tuple row = mock(Tuple.class);
+        when(tableQueryExecutor.findTupleSlice(eq(OrderEntity.class), any(Specification.class), any(), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(row), PageRequest.of(0, 20), false));
+        when(orderMapping.tupleToTableInfoDto(row)).thenReturn(new OrdersTableInfoDto(1, "Customer name", LocalDateTime.now(),
+                LocalDateTime.now().plusDays(1), 6000, 200, 450, 1500, "some details"));
+
+        PageResponse<OrdersTableInfoDto> first = orderService.searchOrdersTable(criteria);
+        PageResponse<OrdersTableInfoDto> second = orderService.searchOrdersTable(criteria);
+        criteria.setPage(1);
+        orderService.searchOrdersTable(criteria);
+
+        assertSame(first, second);
+        verify(tableQueryExecutor, times(2)).findTupleSlice(eq(OrderEntity.class), any(Specification.class), any(), any(Pageable.class));
+    }
+
+    @Test
+    void searchOrdersTable_ShouldRejectUnknownField() {
+        OrderSearchCriteria criteria = new OrderSearchCriteria();
+        criteria.setFields(List.of("orderId", "price"));
+
+        WrongValueException exception = assertThrows(WrongValueException.class, () -> orderService.searchOrdersTable(criteria));
+
+        assertTrue(exception.getMessage().startsWith("Unknown field price"));
+        verifyNoInteractions(tableQueryExecutor);
     }
 
     @Test
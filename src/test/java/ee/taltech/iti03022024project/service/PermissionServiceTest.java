@@ -15,7 +15,9 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -29,6 +31,12 @@ class PermissionServiceTest {
     @Mock
     private PermissionMapping permissionMapping;
 
+    @Mock
+    private ReferenceDataCache referenceDataCache;
+
+    @Mock
+    private TableVersions tableVersions;
+
     @InjectMocks
     private PermissionService permissionService;
 
@@ -52,6 +60,7 @@ class PermissionServiceTest {
         assertNotNull(result);
         assertEquals("ADMIN", result.getDescription());
         verify(permissionRepository).save(any(PermissionEntity.class));
+        verify(referenceDataCache).putPermission(1, "ADMIN");
     }
 
     @Test
@@ -59,43 +68,39 @@ class PermissionServiceTest {
         when(permissionRepository.existsByDescriptionIgnoreCase("ADMIN")).thenReturn(true);
         assertThrows(AlreadyExistsException.class, () -> permissionService.createPermission(permissionDto));
         verify(permissionRepository, never()).save(any());
+        verifyNoInteractions(referenceDataCache);
     }
 
     @Test
-    void getAllPermissions_ShouldReturnList() {
-        List<PermissionEntity> entities = List.of(permissionEntity);
-        when(permissionRepository.findAll()).thenReturn(entities);
-
-        List<PermissionDto> dtos = List.of(permissionDto);
-        when(permissionMapping.permissionListToDtoList(entities)).thenReturn(dtos);
+    void getAllPermissions_ShouldReturnListFromCache() {
+        when(referenceDataCache.permissions()).thenReturn(new TreeMap<>(Map.of(1, "ADMIN", 2, "USER")));
 
         List<PermissionDto> result = permissionService.getAllPermissions();
 
-        assertEquals(1, result.size());
-        assertEquals("ADMIN", result.get(0).getDescription());
-        verify(permissionRepository).findAll();
+        assertEquals(List.of(new PermissionDto("ADMIN"), new PermissionDto("USER")), result);
+        verifyNoInteractions(permissionRepository);
     }
 
     @Test
     void getAllPermissions_ShouldThrowNotFoundWhenEmpty() {
-        when(permissionRepository.findAll()).thenReturn(Collections.emptyList());
+        when(referenceDataCache.permissions()).thenReturn(Collections.emptySortedMap());
         assertThrows(NotFoundException.class, () -> permissionService.getAllPermissions());
     }
 
     @Test
     void getPermissionById_ShouldReturnWhenFound() {
-        when(permissionRepository.findById(1)).thenReturn(Optional.of(permissionEntity));
-        when(permissionMapping.permissionToDto(permissionEntity)).thenReturn(permissionDto);
+        when(referenceDataCache.permissions()).thenReturn(new TreeMap<>(Map.of(1, "ADMIN")));
 
         Optional<PermissionDto> result = permissionService.getPermissionById(1);
 
         assertTrue(result.isPresent());
         assertEquals("ADMIN", result.get().getDescription());
+        verifyNoInteractions(permissionRepository);
     }
 
     @Test
     void getPermissionById_ShouldThrowNotFoundWhenMissing() {
-        when(permissionRepository.findById(999)).thenReturn(Optional.empty());
+        when(referenceDataCache.permissions()).thenReturn(new TreeMap<>(Map.of(1, "ADMIN")));
         assertThrows(NotFoundException.class, () -> permissionService.getPermissionById(999));
     }
 }
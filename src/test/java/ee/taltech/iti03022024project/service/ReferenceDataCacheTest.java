@@ -0,0 +1,65 @@
+package ee.taltech.iti03022024project.service;
+
+import ee.taltech.iti03022024project.entity.CertificationTypeEntity;
+import ee.taltech.iti03022024project.entity.PermissionEntity;
+import ee.taltech.iti03022024project.repository.CertificationTypeRepository;
+import ee.taltech.iti03022024project.repository.PermissionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReferenceDataCacheTest {
+
+    @Mock
+    private PermissionRepository permissionRepository;
+
+    @Mock
+    private CertificationTypeRepository certificationTypeRepository;
+
+    @InjectMocks
+    private ReferenceDataCache referenceDataCache;
+
+    private void loadTestRows() {
+        when(permissionRepository.findAll()).thenReturn(List.of(new PermissionEntity(2, "USER"), new PermissionEntity(1, "ADMIN")));
+        when(certificationTypeRepository.findAll()).thenReturn(List.of(new CertificationTypeEntity(1, "Chemicals")));
+    }
+
+    @Test
+    void shouldLoadSnapshotOnFirstLookupAndServeLaterOnesFromMemory() {
+        loadTestRows();
+
+        assertEquals(Map.of(1, "ADMIN", 2, "USER"), referenceDataCache.permissions());
+        assertEquals(List.of(1, 2), List.copyOf(referenceDataCache.permissions().keySet()));
+        assertEquals(Map.of(1, "Chemicals"), referenceDataCache.certificationTypes());
+
+        verify(permissionRepository, times(1)).findAll();
+        verify(certificationTypeRepository, times(1)).findAll();
+    }
+
+    @Test
+    void putShouldReplaceSnapshotWithoutChangingThePreviousOne() {
+        loadTestRows();
+        referenceDataCache.reload();
+        SortedMap<Integer, String> before = referenceDataCache.certificationTypes();
+
+        referenceDataCache.putCertificationType(2, "Explosives");
+        referenceDataCache.putCertificationType(1, "Hazardous chemicals");
+        referenceDataCache.putPermission(3, "DRIVER");
+
+        assertEquals(Map.of(1, "Chemicals"), before);
+        assertEquals(Map.of(1, "Hazardous chemicals", 2, "Explosives"), referenceDataCache.certificationTypes());
+        assertEquals(Map.of(1, "ADMIN", 2, "USER", 3, "DRIVER"), referenceDataCache.permissions());
+        assertThrows(UnsupportedOperationException.class, () -> referenceDataCache.permissions().put(4, "GUEST"));
+        verify(permissionRepository, times(1)).findAll();
+    }
+}
@@ -0,0 +1,162 @@
+package ee.taltech.iti03022024project.service;
+
+import ee.taltech.iti03022024project.dto.VehiclePlateDto;
+import ee.taltech.iti03022024project.repository.VehicleRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RegistrationPlateIndexTest {
+
+    @Mock
+    private VehicleRepository vehicleRepository;
+
+    @InjectMocks
+    private RegistrationPlateIndex registrationPlateIndex;
+
+    private void loadTestPlates() {
+        when(vehicleRepository.findAllPlates()).thenReturn(List.of(
+                new VehiclePlateDto(1, "123ABC"),
+                new VehiclePlateDto(2, "123CBA"),
+                new VehiclePlateDto(3, "456DEF"),
+                new VehiclePlateDto(4, "ABC321")
+        ));
+        registrationPlateIndex.reload();
+    }
+
+    @Test
+    void findVehicleIds_ShouldBeEmptyBeforeReload() {
+        assertEquals(Optional.empty(), registrationPlateIndex.findVehicleIds("ABC"));
+        verifyNoInteractions(vehicleRepository);
+    }
+
+    @Test
+    void findVehicleIds_ShouldMatchSubstringIgnoringCase() {
+        loadTestPlates();
+
+        assertEquals(Optional.of(Set.of(1, 4)), registrationPlateIndex.findVehicleIds("abc"));
+        assertEquals(Optional.of(Set.of(1, 2)), registrationPlateIndex.findVehicleIds("123"));
+        assertEquals(Optional.of(Set.of(1)), registrationPlateIndex.findVehicleIds("3aB"));
+    }
+
+    @Test
+    void findVehicleIds_ShouldMatchTwoCharacterFragment() {
+        loadTestPlates();
+
+        assertEquals(Optional.of(Set.of(3)), registrationPlateIndex.findVehicleIds("de"));
+        assertEquals(Optional.of(Set.of(1, 4)), registrationPlateIndex.findVehicleIds("Ab"));
+    }
+
+    @Test
+    void findVehicleIds_ShouldLeaveSingleCharacterToLike() {
+        loadTestPlates();
+
+        assertEquals(Optional.empty(), registrationPlateIndex.findVehicleIds("b"));
+    }
+
+    @Test
+    void findVehicleIds_ShouldLeaveLikeWildcardsToLike() {
+        loadTestPlates();
+
+        assertEquals(Optional.empty(), registrationPlateIndex.findVehicleIds("12_"));
+        assertEquals(Optional.empty(), registrationPlateIndex.findVehicleIds("1%C"));
+        assertEquals(Optional.empty(), registrationPlateIndex.findVehicleIds("AB\\C"));
+    }
+
+    @Test
+    void findVehicleIds_ShouldReturnEmptySetWhenNothingMatches() {
+        loadTestPlates();
+
+        assertEquals(Optional.of(Set.of()), registrationPlateIndex.findVehicleIds("XYZ"));
+        assertEquals(Optional.of(Set.of()), registrationPlateIndex.findVehicleIds("ABCD"));
+    }
+
+    @Test
+    void put_ShouldReplacePreviousPlate() {
+        loadTestPlates();
+
+        registrationPlateIndex.put(3, "XYZ999");
+        registrationPlateIndex.put(5, "789GHI");
+
+        assertEquals(Optional.of(Set.of()), registrationPlateIndex.findVehicleIds("456"));
+        assertEquals(Optional.of(Set.of(3)), registrationPlateIndex.findVehicleIds("xyz"));
+        assertEquals(Optional.of(Set.of(5)), registrationPlateIndex.findVehicleIds("89G"));
+    }
+
+    @Test
+    void put_ShouldKeepSharedSubstringsOfPreviousPlate() {
+        loadTestPlates();
+
+        registrationPlateIndex.put(1, "123ABD");
+
+        assertEquals(Optional.of(Set.of(1, 2)), registrationPlateIndex.findVehicleIds("123"));
+        assertEquals(Optional.of(Set.of(1, 4)), registrationPlateIndex.findVehicleIds("ab"));
+        assertEquals(Optional.of(Set.of(4)), registrationPlateIndex.findVehicleIds("abc"));
+        assertEquals(Optional.of(Set.of(1)), registrationPlateIndex.findVehicleIds("bd"));
+    }
+
+    @Test
+    void putAll_ShouldApplyPlatesWhenTransactionCommits() {
+        loadTestPlates();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            registrationPlateIndex.putAll(Map.of(1, "456DEF", 3, "123ABC"));
+            assertEquals(Optional.of(Set.of(1)), registrationPlateIndex.findVehicleIds("3ab"));
+
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(Optional.of(Set.of(3)), registrationPlateIndex.findVehicleIds("3ab"));
+        assertEquals(Optional.of(Set.of(1)), registrationPlateIndex.findVehicleIds("6de"));
+    }
+
+    @Test
+    void putAll_ShouldLeaveIndexUnchangedWhenTransactionRollsBack() {
+        loadTestPlates();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            registrationPlateIndex.putAll(Map.of(1, "XYZ999"));
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(Optional.of(Set.of()), registrationPlateIndex.findVehicleIds("xyz"));
+        assertEquals(Optional.of(Set.of(1, 4)), registrationPlateIndex.findVehicleIds("abc"));
+    }
+
+    @Test
+    void findVehicleIds_ShouldGiveUpWhenTooManyVehiclesMatch() {
+        List<VehiclePlateDto> plates = new ArrayList<>();
+        for (int i = 0; i <= RegistrationPlateIndex.MAX_MATCHES; i++) {
+            plates.add(new VehiclePlateDto(i, "TST" + i));
+        }
+        when(vehicleRepository.findAllPlates()).thenReturn(plates);
+        registrationPlateIndex.reload();
+
+        assertEquals(Optional.empty(), registrationPlateIndex.findVehicleIds("TST"));
+        assertEquals(Optional.of(Set.of(999)), registrationPlateIndex.findVehicleIds("TST999"));
+    }
+}
@@ -0,0 +1,49 @@
+package ee.taltech.iti03022024project.service;
+
+import ee.taltech.iti03022024project.dto.SearchHitDto;
+import ee.taltech.iti03022024project.exception.WrongValueException;
+import ee.taltech.iti03022024project.repository.SearchRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SearchServiceTest {
+
+    @Mock
+    private SearchRepository searchRepository;
+
+    @InjectMocks
+    private SearchService searchService;
+
+    @Test
+    void search_ShouldUseDefaultLimit() {
+        SearchHitDto hit = new SearchHitDto("CUSTOMER", 3, "Globex Ltd.", 0.6f);
+        when(searchRepository.search("globex", 20)).thenReturn(List.of(hit));
+
+        List<SearchHitDto> result = searchService.search(" globex ", null);
+
+        assertEquals(List.of(hit), result);
+    }
+
+    @Test
+    void search_ShouldThrowWhenTermBlank() {
+        assertThrows(WrongValueException.class, () -> searchService.search("  ", 10));
+        verifyNoInteractions(searchRepository);
+    }
+
+    @Test
+    void search_ShouldThrowWhenLimitOutOfRange() {
+        assertThrows(WrongValueException.class, () -> searchService.search("globex", 0));
+        assertThrows(WrongValueException.class, () -> searchService.search("globex", 101));
+        verify(searchRepository, never()).search(anyString(), anyInt());
+    }
+}
@@ -0,0 +1,104 @@
+package ee.taltech.iti03022024project.service;
+
+import ee.taltech.iti03022024project.entity.CustomerEntity;
+import ee.taltech.iti03022024project.entity.OrderEntity;
+import ee.taltech.iti03022024project.entity.VehicleEntity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TableResultCacheTest {
+
+    private final TableVersions tableVersions = new TableVersions();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger searches = new AtomicInteger();
+
+    private TableResultCache cache(int maxEntries, Duration ttl) {
+        return new TableResultCache(tableVersions, meterRegistry, maxEntries, ttl);
+    }
+
+    private List<String> search(TableResultCache cache, String criteria) {
+        return cache.get("orders", criteria, () -> {
+            searches.incrementAndGet();
+            return List.of("row of " + criteria);
+        }, OrderEntity.class, CustomerEntity.class);
+    }
+
+    @Test
+    void repeatedSearchShouldBeServedFromCacheUntilOneOfItsTablesChanges() {
+        TableResultCache cache = cache(10, Duration.ofMinutes(1));
+
+        List<String> first = search(cache, "page=0");
+        assertSame(first, search(cache, "page=0"));
+        assertEquals(1, searches.get());
+
+        tableVersions.changed(VehicleEntity.class);
+        assertSame(first, search(cache, "page=0"));
+        assertEquals(1, searches.get());
+
+        tableVersions.changed(CustomerEntity.class);
+        assertNotSame(first, search(cache, "page=0"));
+        assertEquals(2, searches.get());
+    }
+
+    @Test
+    void differentCriteriaShouldBeCachedSeparately() {
+        TableResultCache cache = cache(10, Duration.ofMinutes(1));
+
+        assertEquals(List.of("row of page=0"), search(cache, "page=0"));
+        assertEquals(List.of("row of page=1"), search(cache, "page=1"));
+
+        assertEquals(2, searches.get());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void expiredResultShouldBeSearchedAgain() {
+        TableResultCache cache = cache(10, Duration.ZERO);
+
+        search(cache, "page=0");
+        search(cache, "page=0");
+
+        assertEquals(2, searches.get());
+    }
+
+    @Test
+    void leastRecentlyUsedResultShouldBeDroppedWhenFull() {
+        TableResultCache cache = cache(2, Duration.ofMinutes(1));
+
+        search(cache, "page=0");
+        search(cache, "page=1");
+        search(cache, "page=0");
+        search(cache, "page=2");
+        assertEquals(3, searches.get());
+
+        search(cache, "page=0");
+        assertEquals(3, searches.get());
+        search(cache, "page=1");
+        assertEquals(4, searches.get());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void metricsShouldReportHitRatioAndSize() {
+        TableResultCache cache = cache(1, Duration.ofMinutes(1));
+
+        search(cache, "page=0");
+        search(cache, "page=0");
+        search(cache, "page=0");
+        search(cache, "page=1");
+
+        assertEquals(2, meterRegistry.get("table.cache.requests").tag("result", "hit").functionCounter().count());
+        assertEquals(2, meterRegistry.get("table.cache.requests").tag("result", "miss").functionCounter().count());
+        assertEquals(0.5, meterRegistry.get("table.cache.hit.ratio").gauge().value());
+        assertEquals(1, meterRegistry.get("table.cache.entries").gauge().value());
+        // ["row of page=1"] written as JSON, the evicted entry no longer counts
+        assertEquals(17, meterRegistry.get("table.cache.memory").gauge().value());
+        assertEquals(17, cache.memoryBytes());
+    }
+}
@@ -0,0 +1,62 @@
+package ee.taltech.iti03022024project.service;
+
+import ee.taltech.iti03022024project.dto.searchcriteria.VehicleSearchCriteria;
+import ee.taltech.iti03022024project.entity.JobEntity;
+import ee.taltech.iti03022024project.entity.VehicleEntity;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TableVersionsTest {
+
+    private final TableVersions tableVersions = new TableVersions();
+
+    private static VehicleSearchCriteria criteria(int page) {
+        VehicleSearchCriteria criteria = new VehicleSearchCriteria();
+        criteria.setPage(page);
+        return criteria;
+    }
+
+    @Test
+    void etagShouldStayTheSameUntilOneOfItsTablesChanges() {
+        String etag = tableVersions.etag(criteria(0), "application/json", VehicleEntity.class);
+
+        assertTrue(etag.startsWith("W/\""));
+        assertEquals(etag, tableVersions.etag(criteria(0), "application/json", VehicleEntity.class));
+
+        tableVersions.changed(JobEntity.class);
+        assertEquals(etag, tableVersions.etag(criteria(0), "application/json", VehicleEntity.class));
+
+        tableVersions.changed(VehicleEntity.class);
+        assertNotEquals(etag, tableVersions.etag(criteria(0), "application/json", VehicleEntity.class));
+        assertEquals(1, tableVersions.version(VehicleEntity.class));
+    }
+
+    @Test
+    void etagShouldDependOnCriteriaAndVariant() {
+        String etag = tableVersions.etag(criteria(0), "application/json", VehicleEntity.class);
+
+        assertNotEquals(etag, tableVersions.etag(criteria(1), "application/json", VehicleEntity.class));
+        assertNotEquals(etag, tableVersions.etag(criteria(0), "application/cbor", VehicleEntity.class));
+        assertNotEquals(etag, new TableVersions().etag(criteria(0), "application/json", VehicleEntity.class));
+    }
+
+    @Test
+    void changeInTransactionShouldCountWhenTransactionCompletes() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            tableVersions.changed(VehicleEntity.class);
+            assertEquals(0, tableVersions.version(VehicleEntity.class));
+
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(1, tableVersions.version(VehicleEntity.class));
+    }
+}
@@ -1,22 +1,29 @@
 package ee.taltech.iti03022024project.service;
 
 import ee.taltech.iti03022024project.dto.VehicleDto;
+import ee.taltech.iti03022024project.dto.VehiclePlateDto;
 import ee.taltech.iti03022024project.entity.VehicleEntity;
 import ee.taltech.iti03022024project.exception.AlreadyExistsException;
 import ee.taltech.iti03022024project.exception.NotFoundException;
 import ee.taltech.iti03022024project.exception.WrongValueException;
 import ee.taltech.iti03022024project.mapping.VehicleMapping;
+import ee.taltech.iti03022024project.repository.TableQueryExecutor;
 import ee.taltech.iti03022024project.repository.VehicleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -31,6 +38,23 @@ class VehicleServiceTest {
     @Mock
     private VehicleMapping vehicleMapping;
 
+    @Mock
+    private TableQueryExecutor tableQueryExecutor;
+
+    @Mock
+    private CountEstimator countEstimator;
+
+    @Mock
+    private RegistrationPlateIndex registrationPlateIndex;
+    @Mock
+    private JsonStreamWriter jsonStreamWriter;
+
+    @Mock
+    private TableVersions tableVersions;
+
+    @Spy
+    private TableResultCache tableResultCache = new TableResultCache(new TableVersions(), new SimpleMeterRegistry(), 100, Duration.ofMinutes(1));
+
     @InjectMocks
     private VehicleService vehicleService;
 
@@ -65,6 +89,8 @@ class VehicleServiceTest {
         assertNotNull(result);
         assertEquals("ABC123", result.getRegistrationPlate());
         verify(vehicleRepository).save(any(VehicleEntity.class));
+        verify(registrationPlateIndex).put(1, "ABC123");
+        verify(tableVersions).changed(VehicleEntity.class);
     }
 
     @Test
@@ -72,6 +98,7 @@ class VehicleServiceTest {
         when(vehicleRepository.existsByRegistrationPlate("ABC123")).thenReturn(true);
         assertThrows(AlreadyExistsException.class, () -> vehicleService.createVehicle(vehicleDto));
         verify(vehicleRepository, never()).save(any());
+        verifyNoInteractions(tableVersions);
     }
 
     @Test
@@ -142,8 +169,86 @@ class VehicleServiceTest {
         assertTrue(result.isPresent());
         assertEquals("XYZ999", result.get().getRegistrationPlate());
         verify(vehicleRepository).save(any(VehicleEntity.class));
+        verify(registrationPlateIndex).put(1, "XYZ999");
+    }
+
+
+    @Test
+    void updateVehicles_ShouldUpdateVehiclesWithTheSameChangeInOneStatement() {
+        List<VehicleDto> changes = List.of(
+                new VehicleDto(2, null, false, null, null, null),
+                new VehicleDto(3, null, false, null, null, null),
+                new VehicleDto(4, null, null, null, 77, null)
+        );
+        List<VehicleDto> updated = List.of(
+                new VehicleDto(2, 'K', false, 2000, 300, "123CBA"),
+                new VehicleDto(3, 'M', false, 2000, 150, "456DEF"),
+                new VehicleDto(4, 'K', true, 2000, 77, "789GHI")
+        );
+        when(vehicleRepository.findExistingIds(Set.of(2, 3, 4))).thenReturn(Set.of(2, 3, 4));
+        when(vehicleRepository.findDtosByIds(Set.of(2, 3, 4))).thenReturn(updated);
+
+        List<VehicleDto> result = vehicleService.updateVehicles(changes);
+
+        assertEquals(updated, result);
+        verify(vehicleRepository).updateAll(List.of(2, 3), null, false, null, null, null);
+        verify(vehicleRepository).updateAll(List.of(4), null, null, null, 77, null);
+        verify(vehicleRepository, never()).findPlatesIn(any());
+        verify(vehicleRepository, never()).findById(any());
     }
 
+    @Test
+    void updateVehicles_ShouldRejectPlateOfAnotherVehicle() {
+        List<VehicleDto> changes = List.of(new VehicleDto(5, null, null, null, null, "789GHI"));
+        when(vehicleRepository.findExistingIds(Set.of(5))).thenReturn(Set.of(5));
+        when(vehicleRepository.findPlatesIn(Set.of("789GHI"))).thenReturn(List.of(new VehiclePlateDto(4, "789GHI")));
+
+        assertThrows(AlreadyExistsException.class, () -> vehicleService.updateVehicles(changes));
+        verify(vehicleRepository, never()).updateAll(any(), any(), any(), any(), any(), any());
+        verify(registrationPlateIndex, never()).putAll(any());
+    }
+
+    @Test
+    void updateVehicles_ShouldAllowPlateWhoseVehicleGetsAnotherPlateInTheBatch() {
+        List<VehicleDto> changes = List.of(
+                new VehicleDto(4, null, null, null, null, "123ABC"),
+                new VehicleDto(1, null, null, null, null, "NEW001")
+        );
+        when(vehicleRepository.findExistingIds(Set.of(4, 1))).thenReturn(Set.of(1, 4));
+        when(vehicleRepository.findPlatesIn(Set.of("123ABC", "NEW001"))).thenReturn(List.of(new VehiclePlateDto(1, "123ABC")));
+        when(vehicleRepository.findDtosByIds(Set.of(4, 1))).thenReturn(List.of());
+
+        vehicleService.updateVehicles(changes);
+
+        verify(vehicleRepository).updateAll(List.of(4), null, null, null, null, "123ABC");
+        verify(vehicleRepository).updateAll(List.of(1), null, null, null, null, "NEW001");
+        verify(registrationPlateIndex).putAll(Map.of(4, "123ABC", 1, "NEW001"));
+    }
+
+    @Test
+    void updateVehicles_ShouldRejectPlateWhoseVehicleKeepsItInTheBatch() {
+        List<VehicleDto> changes = List.of(
+                new VehicleDto(4, null, null, null, null, "123ABC"),
+                new VehicleDto(1, null, false, null, null, null)
+        );
+        when(vehicleRepository.findExistingIds(Set.of(4, 1))).thenReturn(Set.of(1, 4));
+        when(vehicleRepository.findPlatesIn(Set.of("123ABC"))).thenReturn(List.of(new VehiclePlateDto(1, "123ABC")));
+
+        assertThrows(AlreadyExistsException.class, () -> vehicleService.updateVehicles(changes));
+        verify(vehicleRepository, never()).updateAll(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void updateVehicles_ShouldThrowNotFoundWhenAnyVehicleIsMissing() {
+        List<VehicleDto> changes = List.of(
+                new VehicleDto(1, null, false, null, null, null),
+                new VehicleDto(999, null, false, null, null, null)
+        );
+        when(vehicleRepository.findExistingIds(Set.of(1, 999))).thenReturn(Set.of(1));
+
+        assertThrows(NotFoundException.class, () -> vehicleService.updateVehicles(changes));
+        verify(vehicleRepository, never()).updateAll(any(), any(), any(), any(), any(), any());
+    }
 
     @Test
     void updateVehicle_ShouldThrowNotFoundWhenMissing() {